@@ -0,0 +1,202 @@
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import entity.Course;
+import entity.Student;
+import entity.StudentCourse;
+import entity.Teacher;
+import servlet.json.Gsons;
+import servlet.json.JsonOutput;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * JSON输出兼容性检查
+ * 对比Servlet使用的Gsons.shared()（EntityTypeAdapters手写适配器，JsonOutput流式输出）
+ * 与Gsons.reflectiveBuilder()（Gson反射适配器，原来的输出方式）在每个实体上的结果：
+ * 1. 序列化：单个实体和实体列表的JSON文本逐字节相同，包括null属性、HTML字符、非ASCII字符和各种日期
+ * 2. 反序列化：同一段JSON解析出的实体相同；解析失败时异常类型和信息相同，批量导入的逐行错误原因依赖这一点
+ *    字符串解析和JsonElement解析（批量导入使用）两条路径都检查
+ *
+ * 运行：mvn -Pjson-compat test-compile exec:exec，有不一致时列出每一处差异并以状态码1退出
+ */
+public class JsonCompatibilityCheck {
+    private final Gson shared = Gsons.shared();
+    private final Gson reflective = Gsons.reflectiveBuilder().create();
+    private final List<String> mismatches = new ArrayList<>();
+    private int checks;
+
+    public static void main(String[] args) {
+        JsonCompatibilityCheck check = new JsonCompatibilityCheck();
+        check.run();
+        System.out.println("共检查 " + check.checks + " 项，不一致 " + check.mismatches.size() + " 项");
+        for (String mismatch : check.mismatches) {
+            System.out.println("  " + mismatch);
+        }
+        System.exit(check.mismatches.isEmpty() ? 0 : 1);
+    }
+
+    private void run() {
+        // 1. 序列化
+        String special = "<a href='x'>&\"\\   中文 😀";
+        List<Student> students = Arrays.asList(
+                new Student(1, "张三", "男", 20, date(2021, 9, 1, 0, 0)),
+                new Student(null, null, null, null, null),
+                new Student(2, special, "", 0, date(2021, 9, 1, 23, 59)),
+                new Student(Integer.MAX_VALUE, "a", "b", -1, new java.sql.Date(date(2000, 2, 29, 0, 0).getTime())),
+                new Student(Integer.MIN_VALUE, "c", "d", 1, new Date(0)),
+                new Student(3, "e", "f", 2, date(1969, 12, 31, 12, 0)));
+        List<Teacher> teachers = Arrays.asList(
+                new Teacher(1, "张教授", "男", "教授"),
+                new Teacher(null, null, null, null),
+                new Teacher(2, special, "", special));
+        List<Course> courses = Arrays.asList(
+                new Course(1, "数据库原理", 4, 1),
+                new Course(null, null, null, null),
+                new Course(2, special, 0, Integer.MAX_VALUE));
+        List<StudentCourse> studentCourses = Arrays.asList(
+                new StudentCourse(1, 1, 1, 90, "2023-1"),
+                new StudentCourse(null, null, null, null, null),
+                new StudentCourse(2, -1, 0, Integer.MIN_VALUE, special));
+        checkSerialization(Student.class, students);
+        checkSerialization(Teacher.class, teachers);
+        checkSerialization(Course.class, courses);
+        checkSerialization(StudentCourse.class, studentCourses);
+
+        // 2. 反序列化：反射方式的输出、类型宽松的写法、未知属性和格式错误的值
+        for (Student student : students) {
+            checkParse(Student.class, reflective.toJson(student));
+        }
+        for (Teacher teacher : teachers) {
+            checkParse(Teacher.class, reflective.toJson(teacher));
+        }
+        for (Course course : courses) {
+            checkParse(Course.class, reflective.toJson(course));
+        }
+        for (StudentCourse studentCourse : studentCourses) {
+            checkParse(StudentCourse.class, reflective.toJson(studentCourse));
+        }
+        String[] studentInputs = {
+                "{}",
+                "{\"studentId\":\"7\",\"name\":12,\"gender\":true,\"age\":\"20\",\"enrollmentDate\":\"2021-09-01\"}",
+                "{\"unknown\":{\"a\":[1,2,{}]},\"name\":\"x\",\"extra\":null}",
+                "{\"enrollmentDate\":\"2021-02-30\"}",
+                "{\"enrollmentDate\":\"Sep 1, 2021\"}",
+                "{\"enrollmentDate\":\"2021-09-01T10:00:00Z\"}",
+                "{\"enrollmentDate\":\"bad\"}",
+                "{\"enrollmentDate\":1630454400000}",
+                "{\"age\":\"x\"}",
+                "{\"age\":1.5}",
+                "{\"age\":true}",
+                "{\"age\":12345678901}",
+                "{\"name\":{}}",
+                "{\"name\":[]}",
+                "{\"studentId\":null,\"name\":null}",
+                "[]",
+                "\"text\""
+        };
+        for (String input : studentInputs) {
+            checkParse(Student.class, input);
+        }
+        String[] studentCourseInputs = {
+                "{\"studentId\":1,\"courseId\":2,\"score\":80,\"semester\":\"s\"}",
+                "{\"studentId\":\"1\",\"courseId\":\"2\",\"score\":\"\",\"semester\":3}",
+                "{\"studentId\":1,\"courseId\":2,\"score\":\"x\"}",
+                "{\"studentId\":1,\"courseId\":2,\"score\":90.0}",
+                "{\"studentId\":1,\"courseId\":2,\"score\":90.5}",
+                "{\"id\":false}",
+                "{\"semester\":{\"a\":1}}",
+                "{\"score\":null}"
+        };
+        for (String input : studentCourseInputs) {
+            checkParse(StudentCourse.class, input);
+        }
+        String[] otherInputs = {
+                "{\"teacherId\":\"x\"}",
+                "{\"courseId\":1,\"courseName\":\"c\",\"credit\":\"4\",\"teacherId\":null}",
+                "{\"credit\":4.2}"
+        };
+        for (String input : otherInputs) {
+            checkParse(Teacher.class, input);
+            checkParse(Course.class, input);
+        }
+    }
+
+    /**
+     * 对比单个实体、实体列表以及JsonOutput流式输出的JSON文本
+     */
+    private <T> void checkSerialization(Class<T> type, List<T> entities) {
+        TypeAdapter<T> adapter = shared.getAdapter(type);
+        for (T entity : entities) {
+            String expected = reflective.toJson(entity);
+            compare(type.getSimpleName() + " toJson", expected, shared.toJson(entity));
+            compare(type.getSimpleName() + " JsonOutput", expected, stream(adapter, entity));
+        }
+        List<T> withNull = new ArrayList<>(entities);
+        withNull.add(null);
+        TypeToken<?> listType = TypeToken.getParameterized(List.class, type);
+        String expected = reflective.toJson(withNull, listType.getType());
+        compare(type.getSimpleName() + " list toJson", expected, shared.toJson(withNull, listType.getType()));
+        @SuppressWarnings("unchecked")
+        TypeAdapter<List<T>> listAdapter = (TypeAdapter<List<T>>) shared.getAdapter(listType);
+        compare(type.getSimpleName() + " list JsonOutput", expected, stream(listAdapter, withNull));
+    }
+
+    /**
+     * 对比字符串和JsonElement两种方式解析同一段JSON的结果
+     */
+    private void checkParse(Class<?> type, String json) {
+        String label = type.getSimpleName() + " " + json;
+        compare(label, parse(reflective, type, json, false), parse(shared, type, json, false));
+        compare(label + " (tree)", parse(reflective, type, json, true), parse(shared, type, json, true));
+    }
+
+    /**
+     * 解析并把结果统一成可比较的文本：成功时为反射方式输出的JSON，失败时为异常类型和信息
+     */
+    private String parse(Gson gson, Class<?> type, String json, boolean tree) {
+        try {
+            Object value;
+            if (tree) {
+                JsonElement element = JsonParser.parseString(json);
+                value = gson.fromJson(element, type);
+            } else {
+                value = gson.fromJson(json, type);
+            }
+            return "ok " + reflective.toJson(value);
+        } catch (RuntimeException e) {
+            return "error " + e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+    private <V> String stream(TypeAdapter<V> adapter, V value) {
+        StringWriter out = new StringWriter();
+        try {
+            JsonOutput.write(shared, out, adapter, value);
+        } catch (Exception e) {
+            return "error " + e;
+        }
+        return out.toString();
+    }
+
+    private void compare(String label, String expected, String actual) {
+        checks++;
+        if (!expected.equals(actual)) {
+            mismatches.add(label + "\n    反射: " + expected + "\n    适配器: " + actual);
+        }
+    }
+
+    private static Date date(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month - 1, day, hour, minute);
+        return calendar.getTime();
+    }
+}
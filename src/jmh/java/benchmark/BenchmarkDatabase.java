@@ -0,0 +1,83 @@
+package benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 基准测试使用的内存数据库
+ * H2以MySQL兼容模式运行，表结构与script.sql一致，不需要网络和MySQL服务
+ * 必须在第一次使用Mapper之前调用init，让连接池使用这里的连接配置
+ */
+final class BenchmarkDatabase {
+    static final String URL = "jdbc:h2:mem:benchmark;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String USERNAME = "sa";
+    static final String PASSWORD = "";
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * 配置连接并建表，学生表中没有数据时插入指定行数，每个学生一条选课记录
+     * @param students 学生表和选课表的行数
+     */
+    static synchronized void init(int students) throws SQLException {
+        System.setProperty("db.url", URL);
+        System.setProperty("db.username", USERNAME);
+        System.setProperty("db.password", PASSWORD);
+        // 基准测试只关心执行路径，不输出日志
+        System.setProperty("log.level", "ERROR");
+
+        try (Connection connection = open(); Statement statement = connection.createStatement()) {
+            // 1. 建表
+            statement.execute("CREATE TABLE IF NOT EXISTS teacher (teacher_id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "name VARCHAR(100) NOT NULL, gender CHAR(1), title VARCHAR(50))");
+            statement.execute("CREATE TABLE IF NOT EXISTS course (course_id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "course_name VARCHAR(100) NOT NULL, credit INT, teacher_id INT)");
+            statement.execute("CREATE TABLE IF NOT EXISTS student (student_id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "name VARCHAR(100) NOT NULL, gender CHAR(1), age INT, enrollment_date DATE)");
+            statement.execute("CREATE TABLE IF NOT EXISTS student_course (id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "student_id INT, course_id INT, score INT, semester VARCHAR(20), "
+                    + "UNIQUE KEY (student_id, course_id, semester))");
+
+            // 2. 插入学生数据
+            try (ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM student")) {
+                rs.next();
+                if (rs.getInt(1) > 0) {
+                    return;
+                }
+            }
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO student (name, gender, age, enrollment_date) VALUES (?, ?, ?, ?)")) {
+                for (int i = 0; i < students; i++) {
+                    insert.setString(1, "学生" + i);
+                    insert.setString(2, i % 2 == 0 ? "M" : "F");
+                    insert.setInt(3, 18 + i % 8);
+                    insert.setDate(4, java.sql.Date.valueOf("2021-09-01"));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+
+            // 3. 插入选课数据
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO student_course (student_id, course_id, score, semester) VALUES (?, ?, ?, ?)")) {
+                for (int i = 0; i < students; i++) {
+                    insert.setInt(1, i + 1);
+                    insert.setInt(2, i % 10 + 1);
+                    insert.setInt(3, 60 + i % 40);
+                    insert.setString(4, "2021-2022-1");
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    static Connection open() throws SQLException {
+        return DriverManager.getConnection(URL, USERNAME, PASSWORD);
+    }
+}
@@ -0,0 +1,114 @@
+package benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import entity.Student;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import servlet.json.Gsons;
+import servlet.json.JsonOutput;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应序列化和请求解析的开销
+ * Gson的配置与BaseServlet相同；adapters参数对比EntityTypeAdapters中预先写好的实体适配器和Gson的反射适配器
+ * print*是原来先生成JSON字符串再写入PrintWriter的方式，stream*是BaseServlet现在使用的JsonOutput管道，
+ * 都写入一个丢弃输出的UTF-8 PrintWriter，可以加 -prof gc 比较每次调用的内存分配
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GsonBenchmark {
+    private static final Type STUDENT_LIST = new TypeToken<List<Student>>() { }.getType();
+
+    @Param({"precompiled", "reflective"})
+    public String adapters;
+
+    private Gson gson;
+    private Student student;
+    private List<Student> students;
+    private String studentJson;
+    private String studentsJson;
+    private TypeAdapter<Student> studentAdapter;
+    private TypeAdapter<List<Student>> listAdapter;
+    private PrintWriter out;
+
+    @Setup
+    public void setup() {
+        gson = adapters.equals("precompiled") ? Gsons.shared() : Gsons.reflectiveBuilder().create();
+        student = new Student(1, "张三", "M", 20, new Date());
+        students = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            students.add(new Student(i, "学生" + i, i % 2 == 0 ? "M" : "F", 18 + i % 8, new Date()));
+        }
+        studentJson = gson.toJson(student);
+        studentsJson = gson.toJson(students);
+        studentAdapter = gson.getAdapter(Student.class);
+        listAdapter = gson.getAdapter(new TypeToken<List<Student>>() { });
+        out = new PrintWriter(new OutputStreamWriter(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public String serializeEntity() {
+        return gson.toJson(student);
+    }
+
+    @Benchmark
+    public String serializeList() {
+        return gson.toJson(students);
+    }
+
+    @Benchmark
+    public void printEntity() {
+        out.print(gson.toJson(student));
+    }
+
+    @Benchmark
+    public void printList() {
+        out.print(gson.toJson(students));
+    }
+
+    @Benchmark
+    public void streamEntity() throws Exception {
+        JsonOutput.write(gson, out, studentAdapter, student);
+    }
+
+    @Benchmark
+    public void streamList() throws Exception {
+        JsonOutput.write(gson, out, listAdapter, students);
+    }
+
+    @Benchmark
+    public Student parseEntity() {
+        return gson.fromJson(studentJson, Student.class);
+    }
+
+    @Benchmark
+    public List<Student> parseList() {
+        return gson.fromJson(studentsJson, STUDENT_LIST);
+    }
+}
@@ -0,0 +1,75 @@
+package benchmark;
+
+import entity.Student;
+import mapper.StudentMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import utils.MySqlSessionFactory;
+import utils.page.PageResult;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapper代理的调用开销
+ * getMapper和hashCode只经过代理和语句计划查找，其余方法完整执行到H2内存数据库
+ * cache参数在每个fork的JVM里设置一次，对比开启和关闭二级缓存时的开销；
+ * generated参数对比编译期生成的Mapper实现类、行映射器与动态代理、EntityRowMapper
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapperBenchmark {
+    private static final int STUDENTS = 1000;
+
+    @Param({"false", "true"})
+    public String cache;
+
+    @Param({"true", "false"})
+    public String generated;
+
+    private MySqlSessionFactory factory;
+    private StudentMapper mapper;
+    private int nextId;
+
+    @Setup
+    public void setup() throws Exception {
+        System.setProperty("cache.enabled", cache);
+        System.setProperty("mapper.useGenerated", generated);
+        BenchmarkDatabase.init(STUDENTS);
+        factory = new MySqlSessionFactory();
+        mapper = factory.getMapper(StudentMapper.class);
+    }
+
+    @Benchmark
+    public StudentMapper getMapper() {
+        return factory.getMapper(StudentMapper.class);
+    }
+
+    @Benchmark
+    public int proxyDispatch() {
+        return mapper.hashCode();
+    }
+
+    @Benchmark
+    public Student selectById() {
+        nextId = nextId % STUDENTS + 1;
+        return mapper.selectById(nextId);
+    }
+
+    @Benchmark
+    public List<Student> selectList() {
+        return mapper.selectStudentsByAgeRange(0, 100);
+    }
+
+    @Benchmark
+    public PageResult<Student> selectPage() {
+        return mapper.selectStudentPage(0, 100, 100, null);
+    }
+}
@@ -0,0 +1,101 @@
+package benchmark;
+
+import entity.Student;
+import entity.StudentCourse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import utils.mapping.EntityRowMapper;
+import utils.mapping.LambdaRowMapper;
+import utils.mapping.RowMappers;
+import utils.plan.BoundRowMapper;
+import utils.plan.RowMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 结果集到实体的映射开销
+ * 查询只执行一次，每次调用把可滚动的结果集移回开头再映射，测量的是映射本身而不是数据库
+ * mapper参数对比编译期生成的行映射器、运行时由LambdaMetafactory生成访问器的LambdaRowMapper和基于MethodHandle的EntityRowMapper
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RowMappingBenchmark {
+    private static final int ROWS = 1000;
+
+    @Param({"Student", "StudentCourse"})
+    public String entity;
+
+    @Param({"generated", "lambda", "methodHandle"})
+    public String mapper;
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private ResultSet rs;
+    private RowMapper rowMapper;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkDatabase.init(ROWS);
+        Class<?> entityType = entity.equals("Student") ? Student.class : StudentCourse.class;
+        connection = BenchmarkDatabase.open();
+        statement = connection.prepareStatement(
+                entityType == Student.class ? "SELECT * FROM student" : "SELECT * FROM student_course",
+                ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        rs = statement.executeQuery();
+        switch (mapper) {
+            case "generated":
+                rowMapper = RowMappers.forEntity(entityType);
+                break;
+            case "lambda":
+                rowMapper = new LambdaRowMapper(entityType);
+                break;
+            default:
+                rowMapper = new EntityRowMapper(entityType);
+                break;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        rs.close();
+        statement.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public Object bind() throws Exception {
+        return rowMapper.bind(rs.getMetaData());
+    }
+
+    @Benchmark
+    public Object mapSingleRow() throws Exception {
+        rs.beforeFirst();
+        BoundRowMapper bound = rowMapper.bind(rs.getMetaData());
+        rs.next();
+        return bound.mapRow(rs);
+    }
+
+    @Benchmark
+    public List<Object> mapAllRows() throws Exception {
+        rs.beforeFirst();
+        BoundRowMapper bound = rowMapper.bind(rs.getMetaData());
+        List<Object> rows = new ArrayList<>();
+        while (rs.next()) {
+            rows.add(bound.mapRow(rs));
+        }
+        return rows;
+    }
+}
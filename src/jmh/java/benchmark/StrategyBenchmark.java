@@ -0,0 +1,56 @@
+package benchmark;
+
+import mapper.StudentMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import utils.SqlStrategyFactory;
+import utils.plan.StatementPlan;
+import utils.strategy.SqlExecutionStrategy;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 策略选择和SQL生成的开销
+ * 每个method参数对应一种策略：查询、插入、更新、删除、自定义SQL、批量插入、批量更新
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StrategyBenchmark {
+
+    @Param({"selectById", "insertStudent", "updateStudent", "deleteStudentById",
+            "selectStudentsByAgeRange", "insertStudents", "updateStudents"})
+    public String method;
+
+    private Method mapperMethod;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkDatabase.init(0);
+        for (Method candidate : StudentMapper.class.getMethods()) {
+            if (candidate.getName().equals(method)) {
+                mapperMethod = candidate;
+            }
+        }
+        if (mapperMethod == null) {
+            throw new IllegalArgumentException("No such mapper method: " + method);
+        }
+    }
+
+    @Benchmark
+    public SqlExecutionStrategy getStrategy() {
+        return SqlStrategyFactory.getStrategy(mapperMethod);
+    }
+
+    @Benchmark
+    public StatementPlan compile() {
+        return SqlStrategyFactory.compile(mapperMethod);
+    }
+}
@@ -0,0 +1,59 @@
+import java.util.Arrays;
+
+/**
+ * 一个压测线程上某种请求的延迟记录
+ * 每个线程只写自己的记录器，不需要同步；结束后合并排序得到精确的分位数
+ */
+final class LatencyRecorder {
+    private long[] values = new long[1024];
+    private int size;
+    private long errors;
+
+    void record(long nanos, boolean error) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = nanos;
+        if (error) {
+            errors++;
+        }
+    }
+
+    /**
+     * 合并多个线程的记录
+     */
+    static LatencyRecorder merge(Iterable<LatencyRecorder> recorders) {
+        LatencyRecorder merged = new LatencyRecorder();
+        for (LatencyRecorder recorder : recorders) {
+            if (merged.size + recorder.size > merged.values.length) {
+                merged.values = Arrays.copyOf(merged.values, merged.size + recorder.size);
+            }
+            System.arraycopy(recorder.values, 0, merged.values, merged.size, recorder.size);
+            merged.size += recorder.size;
+            merged.errors += recorder.errors;
+        }
+        Arrays.sort(merged.values, 0, merged.size);
+        return merged;
+    }
+
+    int count() {
+        return size;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    /**
+     * 排序后的分位数，只能在merge的结果上调用
+     * @param quantile 0到1之间的分位
+     * @return 延迟（毫秒）
+     */
+    double percentileMillis(double quantile) {
+        if (size == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * size) - 1;
+        return values[Math.max(0, Math.min(size - 1, index))] / 1e6;
+    }
+}
@@ -0,0 +1,308 @@
+import utils.AppConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * REST接口的端到端压测
+ * 在同一进程内以随机端口启动Application，连接按script.sql建表并扩充数据的H2内存数据库（MySQL兼容模式），
+ * 多个线程按固定比例发送增删改查请求，预热之后记录每个请求的延迟，最后把吞吐量和p50/p99/p999写入报告文件
+ *
+ * 配置项（用-D指定）：
+ * loadtest.students              扩充的学生数，默认100000
+ * loadtest.enrollmentsPerStudent 每个学生的选课数，默认10，即100万条选课记录
+ * loadtest.teachers              扩充的教师数，默认100
+ * loadtest.courses               扩充的课程数，默认1000
+ * loadtest.concurrency           并发线程数，默认32
+ * loadtest.warmupSec             预热时间，默认10
+ * loadtest.durationSec           记录时间，默认60
+ * loadtest.script                建表脚本，默认script.sql
+ * loadtest.report                报告文件，默认target/loadtest-report.txt
+ */
+public class LoadTest {
+    private static final Pattern STUDENT_ID = Pattern.compile("\"studentId\"\\s*:\\s*(\\d+)");
+
+    /**
+     * 请求类型及其在流量中所占的百分比
+     */
+    enum Operation {
+        GET_STUDENT(30),
+        PAGE_STUDENTS(10),
+        CREATE_STUDENT(10),
+        UPDATE_STUDENT(10),
+        DELETE_STUDENT(5),
+        GET_COURSE(10),
+        PAGE_TEACHERS(5),
+        GET_ENROLLMENTS(15),
+        CREATE_ENROLLMENT(5);
+
+        final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+
+        static Operation pick(int percent) {
+            for (Operation operation : values()) {
+                percent -= operation.weight;
+                if (percent < 0) {
+                    return operation;
+                }
+            }
+            return GET_STUDENT;
+        }
+    }
+
+    private final String baseUrl;
+    private final int students;
+    private final int courses;
+    private final int teachers;
+
+    private LoadTest(String baseUrl, int students, int courses, int teachers) {
+        this.baseUrl = baseUrl;
+        this.students = students;
+        this.courses = courses;
+        this.teachers = teachers;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int students = AppConfig.getInt("loadtest.students", 100_000);
+        int enrollmentsPerStudent = AppConfig.getInt("loadtest.enrollmentsPerStudent", 10);
+        int teachers = AppConfig.getInt("loadtest.teachers", 100);
+        int courses = AppConfig.getInt("loadtest.courses", 1000);
+        int concurrency = AppConfig.getInt("loadtest.concurrency", 32);
+        int warmupSec = AppConfig.getInt("loadtest.warmupSec", 10);
+        int durationSec = AppConfig.getInt("loadtest.durationSec", 60);
+        String script = AppConfig.get("loadtest.script", "script.sql");
+        Path report = Paths.get(AppConfig.get("loadtest.report", "target/loadtest-report.txt"));
+
+        // 1. 在第一次使用连接池之前指向内存数据库
+        System.setProperty("db.url", LoadTestDatabase.URL);
+        System.setProperty("db.username", LoadTestDatabase.USERNAME);
+        System.setProperty("db.password", LoadTestDatabase.PASSWORD);
+        if (System.getProperty("log.level") == null) {
+            System.setProperty("log.level", "WARN");
+        }
+
+        // 2. 建表并扩充数据
+        long seedStart = System.nanoTime();
+        LoadTestDatabase.seed(script, teachers, courses, students, Math.min(enrollmentsPerStudent, courses));
+        System.out.printf("数据准备完成，用时%d秒：学生%d，课程%d，选课%d%n",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - seedStart),
+                LoadTestDatabase.count("student"), LoadTestDatabase.count("course"),
+                LoadTestDatabase.count("student_course"));
+
+        // 3. 以系统分配的端口启动服务器
+        Application application = new Application(0);
+        application.start();
+        try {
+            LoadTest loadTest = new LoadTest("http://localhost:" + application.getPort(),
+                    (int) LoadTestDatabase.count("student"), (int) LoadTestDatabase.count("course"),
+                    (int) LoadTestDatabase.count("teacher"));
+
+            // 4. 预热，然后记录
+            System.out.printf("预热%d秒，并发%d%n", warmupSec, concurrency);
+            loadTest.drive(concurrency, warmupSec);
+            System.out.printf("压测%d秒%n", durationSec);
+            Map<Operation, List<LatencyRecorder>> results = loadTest.drive(concurrency, durationSec);
+
+            // 5. 输出报告
+            String text = format(results, durationSec, concurrency, students, enrollmentsPerStudent);
+            if (report.getParent() != null) {
+                Files.createDirectories(report.getParent());
+            }
+            Files.write(report, text.getBytes(StandardCharsets.UTF_8));
+            System.out.print(text);
+            System.out.println("报告已写入 " + report.toAbsolutePath());
+        } finally {
+            application.stop();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * 用多个线程持续发送请求
+     * @param concurrency 线程数
+     * @param seconds 持续时间
+     * @return 每种请求在每个线程上的延迟记录
+     */
+    private Map<Operation, List<LatencyRecorder>> drive(int concurrency, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        Map<Operation, List<LatencyRecorder>> results = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            results.put(operation, new ArrayList<>());
+        }
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+            for (Operation operation : Operation.values()) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                recorders.put(operation, recorder);
+                results.get(operation).add(recorder);
+            }
+            String workerId = i + "-" + System.nanoTime() % 100_000;
+            Thread thread = new Thread(() -> work(workerId, deadline, recorders), "loadtest-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return results;
+    }
+
+    /**
+     * 一个压测线程的循环：随机选择请求类型，发送请求并记录延迟
+     */
+    private void work(String workerId, long deadline, Map<Operation, LatencyRecorder> recorders) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // 本线程创建的学生，DELETE_STUDENT只删除这些学生
+        Deque<Integer> created = new ArrayDeque<>();
+        int sequence = 0;
+        while (System.nanoTime() < deadline) {
+            Operation operation = Operation.pick(random.nextInt(100));
+            if (operation == Operation.DELETE_STUDENT && created.isEmpty()) {
+                operation = Operation.CREATE_STUDENT;
+            }
+            long start = System.nanoTime();
+            int status;
+            try {
+                switch (operation) {
+                    case GET_STUDENT:
+                        status = send("GET", "/api/students/" + (random.nextInt(students) + 1), null).status;
+                        break;
+                    case PAGE_STUDENTS:
+                        status = send("GET", "/api/students?limit=50&cursor=" + random.nextInt(students), null).status;
+                        break;
+                    case CREATE_STUDENT: {
+                        Response response = send("POST", "/api/students", studentJson("压测" + workerId, random));
+                        status = response.status;
+                        Matcher matcher = STUDENT_ID.matcher(response.body);
+                        if (matcher.find()) {
+                            created.push(Integer.parseInt(matcher.group(1)));
+                        }
+                        break;
+                    }
+                    case UPDATE_STUDENT:
+                        status = send("PUT", "/api/students/" + (random.nextInt(students) + 1),
+                                studentJson("更新" + workerId, random)).status;
+                        break;
+                    case DELETE_STUDENT:
+                        status = send("DELETE", "/api/students/" + created.pop(), null).status;
+                        break;
+                    case GET_COURSE:
+                        status = send("GET", "/api/courses/" + (random.nextInt(courses) + 1), null).status;
+                        break;
+                    case PAGE_TEACHERS:
+                        status = send("GET", "/api/teachers?limit=20&cursor=" + random.nextInt(teachers), null).status;
+                        break;
+                    case GET_ENROLLMENTS:
+                        status = send("GET", "/api/student-courses?studentId=" + (random.nextInt(students) + 1), null).status;
+                        break;
+                    case CREATE_ENROLLMENT:
+                        status = send("POST", "/api/student-courses", "{\"studentId\":" + (random.nextInt(students) + 1)
+                                + ",\"courseId\":" + (random.nextInt(courses) + 1) + ",\"score\":" + (60 + random.nextInt(41))
+                                + ",\"semester\":\"LT" + workerId + "-" + sequence++ + "\"}").status;
+                        break;
+                    default:
+                        throw new IllegalStateException(operation.name());
+                }
+            } catch (IOException e) {
+                status = -1;
+            }
+            recorders.get(operation).record(System.nanoTime() - start, status < 200 || status >= 400);
+        }
+    }
+
+    private static String studentJson(String name, ThreadLocalRandom random) {
+        return "{\"name\":\"" + name + "\",\"gender\":\"" + (random.nextBoolean() ? "男" : "女")
+                + "\",\"age\":" + (18 + random.nextInt(8)) + ",\"enrollmentDate\":\"2024-09-01\"}";
+    }
+
+    /**
+     * 发送一个请求并读完响应体，让HttpURLConnection复用keep-alive连接
+     */
+    private Response send(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(5_000);
+        connection.setReadTimeout(60_000);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        if (in != null) {
+            try (InputStream stream = in) {
+                byte[] chunk = new byte[8192];
+                int n;
+                while ((n = stream.read(chunk)) > 0) {
+                    buffer.write(chunk, 0, n);
+                }
+            }
+        }
+        return new Response(status, new String(buffer.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static String format(Map<Operation, List<LatencyRecorder>> results, int durationSec, int concurrency,
+                                 int students, int enrollmentsPerStudent) {
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        out.printf("# 压测报告 %s%n", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+        out.printf("# students=%d enrollmentsPerStudent=%d concurrency=%d durationSec=%d%n",
+                students, enrollmentsPerStudent, concurrency, durationSec);
+        out.printf("%-18s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "requests", "errors", "req/s", "p50(ms)", "p99(ms)", "p999(ms)", "max(ms)");
+        List<LatencyRecorder> all = new ArrayList<>();
+        for (Map.Entry<Operation, List<LatencyRecorder>> entry : results.entrySet()) {
+            all.addAll(entry.getValue());
+            line(out, entry.getKey().name(), LatencyRecorder.merge(entry.getValue()), durationSec);
+        }
+        line(out, "TOTAL", LatencyRecorder.merge(all), durationSec);
+        out.flush();
+        return text.toString();
+    }
+
+    private static void line(PrintWriter out, String name, LatencyRecorder recorder, int durationSec) {
+        out.printf("%-18s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n", name, recorder.count(), recorder.errors(),
+                (double) recorder.count() / durationSec, recorder.percentileMillis(0.50),
+                recorder.percentileMillis(0.99), recorder.percentileMillis(0.999), recorder.percentileMillis(1));
+    }
+
+    private static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 压测使用的内存数据库
+ * H2以MySQL兼容模式运行，先执行script.sql建表和插入初始数据，再用INSERT ... SELECT批量扩充到指定规模
+ */
+final class LoadTestDatabase {
+    static final String URL = "jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    static final String USERNAME = "sa";
+    static final String PASSWORD = "";
+
+    private LoadTestDatabase() {
+    }
+
+    /**
+     * 建表并插入数据
+     * @param script script.sql的路径
+     * @param teachers 扩充的教师数
+     * @param courses 扩充的课程数
+     * @param students 扩充的学生数
+     * @param enrollmentsPerStudent 每个扩充的学生的选课数，不能超过课程总数
+     */
+    static void seed(String script, int teachers, int courses, int students, int enrollmentsPerStudent)
+            throws IOException, SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
+             Statement statement = connection.createStatement()) {
+            // 1. 执行script.sql，跳过建库和切换库的语句
+            String sql = new String(Files.readAllBytes(Paths.get(script)), StandardCharsets.UTF_8);
+            StringBuilder withoutComments = new StringBuilder();
+            for (String line : sql.split("\n")) {
+                if (!line.trim().startsWith("--")) {
+                    withoutComments.append(line).append('\n');
+                }
+            }
+            for (String part : withoutComments.toString().split(";")) {
+                String trimmed = part.trim();
+                String upper = trimmed.toUpperCase();
+                if (trimmed.isEmpty() || upper.startsWith("CREATE DATABASE") || upper.startsWith("USE ")) {
+                    continue;
+                }
+                statement.execute(trimmed);
+            }
+
+            // 2. 扩充教师、课程和学生，SYSTEM_RANGE的列名是大写的X，需要加引号
+            statement.execute("INSERT INTO teacher (name, gender, title) SELECT CONCAT('教师', \"X\"), "
+                    + "CASE WHEN MOD(\"X\", 2) = 0 THEN '男' ELSE '女' END, '讲师' FROM SYSTEM_RANGE(1, " + teachers + ")");
+            statement.execute("INSERT INTO course (course_name, credit, teacher_id) SELECT CONCAT('课程', \"X\"), "
+                    + "MOD(\"X\", 4) + 1, MOD(\"X\", (SELECT COUNT(*) FROM teacher)) + 1 FROM SYSTEM_RANGE(1, " + courses + ")");
+            statement.execute("INSERT INTO student (name, gender, age, enrollment_date) SELECT CONCAT('学生', \"X\"), "
+                    + "CASE WHEN MOD(\"X\", 2) = 0 THEN '男' ELSE '女' END, 18 + MOD(\"X\", 8), DATE '2021-09-01' "
+                    + "FROM SYSTEM_RANGE(1, " + students + ")");
+
+            // 3. 每个学生选修连续的若干门课程，同一学生的课程互不相同
+            statement.execute("INSERT INTO student_course (student_id, course_id, score, semester) "
+                    + "SELECT s.student_id, MOD(s.student_id * 7 + k.\"X\", (SELECT COUNT(*) FROM course)) + 1, "
+                    + "60 + MOD(s.student_id + k.\"X\" * 13, 41), '2023-2024-1' "
+                    + "FROM student s CROSS JOIN SYSTEM_RANGE(0, " + (enrollmentsPerStudent - 1) + ") k "
+                    + "WHERE s.student_id > (SELECT COUNT(*) FROM student) - " + students);
+        }
+    }
+
+    /**
+     * 统计表的行数
+     */
+    static long count(String table) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(URL, USERNAME, PASSWORD);
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -1,12 +1,20 @@
+import app.ConnectorConfig;
+import app.PrecompressedResources;
 import org.apache.catalina.Context;
+import org.apache.catalina.Lifecycle;
 import org.apache.catalina.LifecycleException;
 import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.Wrapper;
 import org.apache.catalina.startup.Tomcat;
 import org.apache.catalina.webresources.DirResourceSet;
 import org.apache.catalina.webresources.StandardRoot;
 import org.apache.tomcat.util.descriptor.web.FilterDef;
 import org.apache.tomcat.util.descriptor.web.FilterMap;
 import filter.CORSFilter;
+import utils.AppConfig;
+import utils.VirtualThreads;
+import utils.log.LogManager;
+import utils.log.Logger;
 
 import javax.servlet.DispatcherType;
 import javax.servlet.ServletException;
@@ -18,25 +26,35 @@ import java.nio.file.Files;
  * 应用程序主入口类，类似Spring Boot的快速启动方式
  */
 public class Application {
-    private static final int PORT = 8080;
+    private static final Logger log = LogManager.getLogger(Application.class);
     private static final String CONTEXT_PATH = "";
     private static final String WEB_APP_LOCATION = "src/main/webapp";
     private static final String WEB_APP_MOUNT = "/WEB-INF/classes";
     private static final String WEB_APP_CLASSES = "target/classes";
+    private static final String DEFAULT_SERVLET = "default";
+
+    /**
+     * 静态资源预压缩配置，连接器的配置见ConnectorConfig：
+     * server.compression.precompressStatic  启动时预压缩webapp下的静态文件，默认true
+     * server.compression.staticExtensions   预压缩的静态文件扩展名，逗号分隔
+     */
+    private static final boolean PRECOMPRESS_STATIC = AppConfig.getBoolean("server.compression.precompressStatic", true);
+    private static final String PRECOMPRESS_EXTENSIONS = AppConfig.get("server.compression.staticExtensions",
+            "html,js,css,json,txt,svg");
 
     private Tomcat tomcat;
     private Context context;
 
     /**
-     * 创建应用程序实例
+     * 创建应用程序实例，端口由server.port配置
      */
     public Application() {
-        this(PORT);
+        this(ConnectorConfig.PORT);
     }
 
     /**
      * 创建应用程序实例，指定端口
-     * @param port 服务器端口
+     * @param port 服务器端口，0表示由系统分配空闲端口
      */
     public Application(int port) {
         try {
@@ -45,10 +63,9 @@ public class Application {
             
             // 创建Tomcat实例
             tomcat = new Tomcat();
-            tomcat.setPort(port);
-            
-            // 设置主机，确保绑定到所有网络接口
-            tomcat.getConnector().setProperty("address", "0.0.0.0");
+
+            // 按配置创建HTTP连接器：协议、监听地址、线程数、keep-alive、h2c和响应压缩
+            tomcat.setConnector(ConnectorConfig.createConnector(port));
 
             // 创建临时目录
             File tempDir = Files.createTempDirectory("tomcat-temp").toFile();
@@ -65,15 +82,59 @@ public class Application {
             resources.addPreResources(new DirResourceSet(resources, WEB_APP_MOUNT,
                     new File(WEB_APP_CLASSES).getAbsolutePath(), "/"));
             context.setResources(resources);
+
+            // 预压缩静态资源
+            if (PRECOMPRESS_STATIC) {
+                mountPrecompressedResources(resources, new File(tempDir, "precompressed"));
+            }
         } catch (IOException e) {
             throw new RuntimeException("初始化应用程序失败", e);
         }
     }
 
     /**
-     * 启动应用程序
+     * 把webapp下的静态文件预压缩到输出目录，挂载到Context根路径，并让DefaultServlet优先返回.gz文件
+     * @param resources Context的资源根
+     * @param outputDir .gz文件的输出目录
+     */
+    private void mountPrecompressedResources(WebResourceRoot resources, File outputDir) {
+        // 1. 启动时压缩一次，之后的请求直接读取.gz文件；压缩失败时只是不使用预压缩文件
+        try {
+            new PrecompressedResources(PRECOMPRESS_EXTENSIONS.split(","), ConnectorConfig.getCompressionMinSize())
+                    .build(new File(WEB_APP_LOCATION), outputDir);
+        } catch (IOException e) {
+            log.warn("预压缩静态资源失败，静态文件将不使用预压缩: {}", e.getMessage());
+            return;
+        }
+        resources.addPostResources(new DirResourceSet(resources, "/", outputDir.getAbsolutePath(), "/"));
+
+        // 2. DefaultServlet在Context启动时才创建，创建之后、加载之前开启precompressed
+        context.addLifecycleListener(event -> {
+            if (Lifecycle.CONFIGURE_START_EVENT.equals(event.getType())) {
+                Wrapper defaultServlet = (Wrapper) context.findChild(DEFAULT_SERVLET);
+                if (defaultServlet != null) {
+                    defaultServlet.addInitParameter("precompressed", "true");
+                }
+            }
+        });
+    }
+
+    /**
+     * 启动应用程序并阻塞，直到服务器停止
      */
     public void run() {
+        start();
+        log.info("按Ctrl+C停止服务器");
+
+        // 等待接收请求
+        tomcat.getServer().await();
+    }
+
+    /**
+     * 启动应用程序，Tomcat开始接收请求后立即返回
+     * 供压测等需要在同一进程内启动服务器的场景使用
+     */
+    public void start() {
         try {
             // 注册Servlet
             registerServlets();
@@ -84,16 +145,33 @@ public class Application {
             // 启动Tomcat
             tomcat.start();
             
-            System.out.println("应用程序已启动，访问 http://localhost:" + tomcat.getConnector().getPort());
-            System.out.println("按Ctrl+C停止服务器");
-            
-            // 等待接收请求
-            tomcat.getServer().await();
+            log.info("应用程序已启动，访问 http://localhost:{}{}", getPort(),
+                    VirtualThreads.isEnabled() ? "（虚拟线程模式）" : "");
         } catch (LifecycleException | ServletException e) {
             throw new RuntimeException("启动应用程序失败", e);
         }
     }
 
+    /**
+     * 停止并销毁服务器
+     */
+    public void stop() {
+        try {
+            tomcat.stop();
+            tomcat.destroy();
+        } catch (LifecycleException e) {
+            throw new RuntimeException("停止应用程序失败", e);
+        }
+    }
+
+    /**
+     * 获取服务器实际监听的端口，端口为0时在启动后才能取得系统分配的端口
+     * @return 端口号
+     */
+    public int getPort() {
+        return tomcat.getConnector().getLocalPort();
+    }
+
     /**
      * 注册所有Servlet
      */
@@ -109,6 +187,7 @@ public class Application {
         FilterDef filterDef = new FilterDef();
         filterDef.setFilterName("CORSFilter");
         filterDef.setFilterClass(CORSFilter.class.getName());
+        filterDef.setAsyncSupported("true");
         context.addFilterDef(filterDef);
         
         FilterMap filterMap = new FilterMap();
@@ -0,0 +1,20 @@
+package annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记实体类的主键字段
+ * 没有标记时约定第一个声明的字段为主键
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Id {
+    /**
+     * 主键是否由数据库生成（AUTO_INCREMENT）
+     * 生成的主键在批量插入时不写入，插入后回填到实体上
+     */
+    boolean generated() default true;
+}
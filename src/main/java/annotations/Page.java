@@ -0,0 +1,27 @@
+package annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记键集分页（seek）查询
+ * 查询按键列升序排列，用上一页最后一行的键值作为游标取下一页，不使用OFFSET
+ * 方法需要返回PageResult，并带有@Param("limit")和@Param("after")两个参数，after为null时从第一页开始
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Page {
+    /**
+     * 分页使用的键，必须是数值类型且唯一
+     * 默认为实体主键；@SQL查询中为结果集的列名（例如别名teacherId）
+     */
+    String key() default "";
+
+    /** 每页行数参数的@Param名称 */
+    String limitParam() default "limit";
+
+    /** 游标参数的@Param名称 */
+    String afterParam() default "after";
+}
@@ -0,0 +1,15 @@
+package annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记在一个事务中执行的Servlet处理方法（handleInsert、handleUpdate等）
+ * 方法内的所有Mapper调用使用同一个连接，正常返回时提交，抛出异常时回滚
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Transactional {
+}
@@ -0,0 +1,481 @@
+package annotations.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mapper接口的编译期代码生成器
+ * 为使用了@SQL、@Where、@Param、@Page的Mapper接口生成实现类XxxMapperImpl，
+ * 每个方法直接执行对应的语句计划，不经过动态代理和InvocationHandler；
+ * 同时为查询结果中标记了@Table的实体生成行映射器XxxRowMapper，直接调用setter并使用类型匹配的ResultSet getter
+ *
+ * 生成的类在运行时被MySqlSessionFactory和RowMappers优先使用，不存在或无法生成时退回到反射实现。
+ * 处理器只依赖javax.lang.model，注解按名称识别，需要先于其余源码单独编译（见pom.xml）
+ */
+@SupportedAnnotationTypes({"annotations.SQL", "annotations.Where", "annotations.Param", "annotations.Page"})
+public class MapperProcessor extends AbstractProcessor {
+    private static final String TABLE = "annotations.Table";
+    private static final String PLAN = "utils.plan.StatementPlan";
+    private static final String FACTORY = "utils.MySqlSessionFactory";
+
+    // 属性类型到ResultSet getter的映射，包装类型与基本类型相同，读取后用wasNull()判断NULL
+    private static final Map<String, String[]> PRIMITIVE_GETTERS = new HashMap<>();
+    // 直接返回对象的ResultSet getter，读取结果为null表示NULL
+    private static final Map<String, String> OBJECT_GETTERS = new HashMap<>();
+
+    static {
+        primitive("int", "java.lang.Integer", "getInt");
+        primitive("long", "java.lang.Long", "getLong");
+        primitive("short", "java.lang.Short", "getShort");
+        primitive("byte", "java.lang.Byte", "getByte");
+        primitive("double", "java.lang.Double", "getDouble");
+        primitive("float", "java.lang.Float", "getFloat");
+        primitive("boolean", "java.lang.Boolean", "getBoolean");
+        OBJECT_GETTERS.put("java.lang.String", "getString");
+        OBJECT_GETTERS.put("java.math.BigDecimal", "getBigDecimal");
+        OBJECT_GETTERS.put("java.sql.Date", "getDate");
+        OBJECT_GETTERS.put("java.sql.Time", "getTime");
+        OBJECT_GETTERS.put("java.sql.Timestamp", "getTimestamp");
+    }
+
+    // 已经生成过的类，同一个实体可能出现在多个Mapper中
+    private final Set<String> generated = new HashSet<>();
+
+    private static void primitive(String primitive, String wrapper, String getter) {
+        String[] spec = {primitive, getter};
+        PRIMITIVE_GETTERS.put(primitive, spec);
+        PRIMITIVE_GETTERS.put(wrapper, spec);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        // 1. 找出使用了这些注解的接口
+        Set<TypeElement> mappers = new LinkedHashSet<>();
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                TypeElement type = enclosingType(element);
+                if (type != null && type.getKind() == ElementKind.INTERFACE) {
+                    mappers.add(type);
+                }
+            }
+        }
+
+        // 2. 生成实现类和查询结果实体的行映射器
+        for (TypeElement mapper : mappers) {
+            if (!generated.add(mapper.getQualifiedName().toString())) {
+                continue;
+            }
+            List<ExecutableElement> methods = mapperMethods(mapper);
+            String reason = unsupportedReason(mapper, methods);
+            if (reason != null) {
+                note(mapper, "Skipped generating implementation of " + mapper.getQualifiedName() + ": " + reason);
+                continue;
+            }
+            try {
+                writeMapper(mapper, methods);
+                for (ExecutableElement method : methods) {
+                    TypeElement entity = resultEntity(method);
+                    if (entity != null && generated.add(entity.getQualifiedName().toString())) {
+                        writeRowMapper(entity);
+                    }
+                }
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Failed to generate mapper implementation: " + e.getMessage(), mapper);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 接口中需要实现的方法：包括继承的抽象方法，不包括默认方法和静态方法
+     */
+    private List<ExecutableElement> mapperMethods(TypeElement mapper) {
+        List<ExecutableElement> methods = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(mapper))) {
+            if (method.getEnclosingElement().getKind() == ElementKind.INTERFACE
+                    && method.getModifiers().contains(Modifier.ABSTRACT)) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * 判断接口能否生成实现类
+     * @return 不能生成的原因，可以生成时返回null
+     */
+    private static String unsupportedReason(TypeElement mapper, List<ExecutableElement> methods) {
+        if (mapper.getNestingKind() != NestingKind.TOP_LEVEL) {
+            return "nested interface";
+        }
+        if (!mapper.getTypeParameters().isEmpty()) {
+            return "generic interface";
+        }
+        for (ExecutableElement method : methods) {
+            if (!method.getTypeParameters().isEmpty()) {
+                return "generic method " + method.getSimpleName();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 生成Mapper实现类
+     */
+    private void writeMapper(TypeElement mapper, List<ExecutableElement> methods) throws IOException {
+        String packageName = packageOf(mapper);
+        String simpleName = mapper.getSimpleName() + "Impl";
+        String mapperName = mapper.getQualifiedName().toString();
+
+        StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("/**\n")
+                .append(" * 由MapperProcessor根据").append(mapper.getSimpleName()).append("生成，不要手工修改\n")
+                .append(" * 每个方法直接执行对应的语句计划，不经过动态代理\n")
+                .append(" */\n")
+                .append("@SuppressWarnings(\"unchecked\")\n")
+                .append("public final class ").append(simpleName).append(" implements ").append(mapperName).append(" {\n");
+
+        // 1. 每个方法一个语句计划字段
+        for (int i = 0; i < methods.size(); i++) {
+            out.append("    private final ").append(PLAN).append(" plan").append(i).append(";\n");
+        }
+
+        // 2. 构造器从编译好的语句计划中按方法签名取出
+        out.append("\n    public ").append(simpleName)
+                .append("(java.util.Map<java.lang.reflect.Method, ").append(PLAN).append("> plans) {\n");
+        for (int i = 0; i < methods.size(); i++) {
+            ExecutableElement method = methods.get(i);
+            out.append("        this.plan").append(i).append(" = ").append(FACTORY).append(".plan(plans, ")
+                    .append(mapperName).append(".class, \"").append(method.getSimpleName()).append('"');
+            for (VariableElement parameter : method.getParameters()) {
+                out.append(", ").append(processingEnv.getTypeUtils().erasure(parameter.asType())).append(".class");
+            }
+            out.append(");\n");
+        }
+        out.append("    }\n");
+
+        // 3. 实现每个方法
+        for (int i = 0; i < methods.size(); i++) {
+            writeMethod(out, methods.get(i), "this.plan" + i);
+        }
+        out.append("}\n");
+
+        try (PrintWriter writer = new PrintWriter(
+                processingEnv.getFiler().createSourceFile(qualified(packageName, simpleName), mapper).openWriter())) {
+            writer.print(out);
+        }
+    }
+
+    private void writeMethod(StringBuilder out, ExecutableElement method, String plan) {
+        TypeMirror returnType = method.getReturnType();
+        List<? extends VariableElement> parameters = method.getParameters();
+
+        // 1. 方法签名
+        out.append("\n    @Override\n    public ").append(returnType).append(' ').append(method.getSimpleName()).append('(');
+        for (int i = 0; i < parameters.size(); i++) {
+            out.append(i > 0 ? ", " : "").append(parameters.get(i).asType()).append(' ').append(parameters.get(i).getSimpleName());
+        }
+        out.append(')');
+        List<? extends TypeMirror> thrown = method.getThrownTypes();
+        for (int i = 0; i < thrown.size(); i++) {
+            out.append(i == 0 ? " throws " : ", ").append(thrown.get(i));
+        }
+        out.append(" {\n");
+
+        // 2. 执行语句计划，基本类型的返回值先转成包装类型
+        StringBuilder call = new StringBuilder(FACTORY).append(".execute(").append(plan).append(", ");
+        if (parameters.isEmpty()) {
+            call.append("null");
+        } else {
+            call.append("new Object[]{");
+            for (int i = 0; i < parameters.size(); i++) {
+                call.append(i > 0 ? ", " : "").append(parameters.get(i).getSimpleName());
+            }
+            call.append('}');
+        }
+        call.append(')');
+        out.append("        try {\n            ");
+        if (returnType.getKind() == TypeKind.VOID) {
+            out.append(call).append(";\n");
+        } else {
+            String castType = returnType.getKind().isPrimitive()
+                    ? processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) returnType).getQualifiedName().toString()
+                    : returnType.toString();
+            out.append("return (").append(castType).append(") ").append(call).append(";\n");
+        }
+
+        // 3. 与动态代理一致：声明的异常原样抛出，其余受检异常包装成UndeclaredThrowableException
+        out.append("        } catch (RuntimeException | Error e) {\n            throw e;\n");
+        boolean catchesAll = false;
+        for (TypeMirror type : thrown) {
+            String name = type.toString();
+            catchesAll |= name.equals("java.lang.Exception") || name.equals("java.lang.Throwable");
+            out.append("        } catch (").append(name).append(" e) {\n            throw e;\n");
+        }
+        if (!catchesAll) {
+            out.append("        } catch (Exception e) {\n")
+                    .append("            throw new java.lang.reflect.UndeclaredThrowableException(e);\n");
+        }
+        out.append("        }\n    }\n");
+    }
+
+    /**
+     * 查询结果的实体类型：Consumer参数、List或PageResult的泛型类型，或返回类型，只处理标记了@Table的类
+     */
+    private TypeElement resultEntity(ExecutableElement method) {
+        TypeMirror resultType = method.getReturnType();
+        for (VariableElement parameter : method.getParameters()) {
+            if (rawName(parameter.asType()).equals("java.util.function.Consumer")) {
+                resultType = parameter.asType();
+            }
+        }
+        String raw = rawName(resultType);
+        if ((raw.equals("java.util.List") || raw.equals("utils.page.PageResult")
+                || raw.equals("java.util.function.Consumer"))
+                && !((DeclaredType) resultType).getTypeArguments().isEmpty()) {
+            resultType = ((DeclaredType) resultType).getTypeArguments().get(0);
+        }
+        if (resultType.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement type = (TypeElement) ((DeclaredType) resultType).asElement();
+        return hasAnnotation(type, TABLE) ? type : null;
+    }
+
+    /**
+     * 生成实体的行映射器
+     * 每个结果集绑定时按列名确定每个属性所在的列，逐行映射时直接调用setter
+     */
+    private void writeRowMapper(TypeElement entity) throws IOException {
+        // 1. 收集可以写入的属性，与EntityMetadata一致：非静态字段，归一化名称相同时后声明的生效
+        if (!hasNoArgConstructor(entity)) {
+            note(entity, "Skipped generating row mapper for " + entity.getQualifiedName() + ": no public no-arg constructor");
+            return;
+        }
+        Map<String, VariableElement> byKey = new LinkedHashMap<>();
+        for (VariableElement field : ElementFilter.fieldsIn(entity.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            if (!hasSetter(entity, field) && (field.getModifiers().contains(Modifier.PRIVATE)
+                    || field.getModifiers().contains(Modifier.FINAL))) {
+                note(entity, "Skipped generating row mapper for " + entity.getQualifiedName()
+                        + ": no setter for " + field.getSimpleName());
+                return;
+            }
+            String key = normalize(field.getSimpleName().toString());
+            byKey.remove(key);
+            byKey.put(key, field);
+        }
+        List<VariableElement> fields = new ArrayList<>(byKey.values());
+        List<String> keys = new ArrayList<>(byKey.keySet());
+
+        String packageName = packageOf(entity);
+        String simpleName = entity.getSimpleName() + "RowMapper";
+        String entityName = entity.getQualifiedName().toString();
+
+        StringBuilder out = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            out.append("package ").append(packageName).append(";\n\n");
+        }
+        out.append("/**\n")
+                .append(" * 由MapperProcessor根据").append(entity.getSimpleName()).append("生成的行映射器，不要手工修改\n")
+                .append(" * 列名按EntityMetadata的规则匹配属性（忽略大小写和下划线），没有对应属性的列被忽略，SQL NULL不写入属性\n")
+                .append(" */\n")
+                .append("public final class ").append(simpleName).append(" implements utils.plan.RowMapper {\n\n");
+
+        // 2. bind：确定每个属性所在的列，0表示结果集中没有这一列
+        out.append("    @Override\n")
+                .append("    public utils.plan.BoundRowMapper bind(java.sql.ResultSetMetaData metaData) throws java.sql.SQLException {\n")
+                .append("        int[] columns = new int[").append(fields.size()).append("];\n")
+                .append("        utils.mapping.ColumnReader[] readers = new utils.mapping.ColumnReader[").append(fields.size()).append("];\n")
+                .append("        for (int i = 1; i <= metaData.getColumnCount(); i++) {\n")
+                .append("            switch (utils.mapping.EntityMetadata.normalize(metaData.getColumnLabel(i))) {\n");
+        for (int k = 0; k < fields.size(); k++) {
+            String type = processingEnv.getTypeUtils().erasure(fields.get(k).asType()).toString();
+            out.append("                case \"").append(keys.get(k)).append("\":\n")
+                    .append("                    columns[").append(k).append("] = i;\n");
+            if (!PRIMITIVE_GETTERS.containsKey(type) && !OBJECT_GETTERS.containsKey(type)) {
+                out.append("                    readers[").append(k).append("] = utils.mapping.ColumnReaders.forColumn(metaData.getColumnType(i), ")
+                        .append(type).append(".class);\n");
+            }
+            out.append("                    break;\n");
+        }
+        out.append("                default:\n")
+                .append("                    break;\n")
+                .append("            }\n")
+                .append("        }\n")
+                .append("        return rs -> {\n")
+                .append("            ").append(entityName).append(" row = new ").append(entityName).append("();\n");
+
+        // 3. mapRow：按属性类型选择getter，直接写入属性
+        for (int k = 0; k < fields.size(); k++) {
+            VariableElement field = fields.get(k);
+            String type = processingEnv.getTypeUtils().erasure(field.asType()).toString();
+            String column = "columns[" + k + "]";
+            String assign = hasSetter(entity, field)
+                    ? "row." + setterName(field) + "(%s);"
+                    : "row." + field.getSimpleName() + " = %s;";
+            out.append("            if (").append(column).append(" > 0) {\n");
+            if (PRIMITIVE_GETTERS.containsKey(type)) {
+                String[] spec = PRIMITIVE_GETTERS.get(type);
+                out.append("                ").append(spec[0]).append(" value = rs.").append(spec[1]).append('(').append(column).append(");\n")
+                        .append("                if (!rs.wasNull()) {\n")
+                        .append("                    ").append(String.format(assign, "value")).append('\n')
+                        .append("                }\n");
+            } else if (OBJECT_GETTERS.containsKey(type)) {
+                out.append("                ").append(type).append(" value = rs.").append(OBJECT_GETTERS.get(type)).append('(').append(column).append(");\n")
+                        .append("                if (value != null) {\n")
+                        .append("                    ").append(String.format(assign, "value")).append('\n')
+                        .append("                }\n");
+            } else {
+                out.append("                Object value = readers[").append(k).append("].read(rs, ").append(column).append(");\n")
+                        .append("                if (value != null) {\n")
+                        .append("                    ").append(String.format(assign, "(" + field.asType() + ") value")).append('\n')
+                        .append("                }\n");
+            }
+            out.append("            }\n");
+        }
+        out.append("            return row;\n")
+                .append("        };\n")
+                .append("    }\n")
+                .append("}\n");
+
+        try (PrintWriter writer = new PrintWriter(
+                processingEnv.getFiler().createSourceFile(qualified(packageName, simpleName), entity).openWriter())) {
+            writer.print(out);
+        }
+    }
+
+    /**
+     * 是否有public的无参构造器：显式声明的、Lombok生成的，或者没有声明任何构造器
+     */
+    private static boolean hasNoArgConstructor(TypeElement entity) {
+        if (!entity.getModifiers().contains(Modifier.PUBLIC) || entity.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        if (hasAnnotation(entity, "lombok.NoArgsConstructor") || hasAnnotation(entity, "lombok.Data")) {
+            return true;
+        }
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(entity.getEnclosedElements());
+        for (ExecutableElement constructor : constructors) {
+            if (constructor.getParameters().isEmpty()) {
+                return constructor.getModifiers().contains(Modifier.PUBLIC);
+            }
+        }
+        return constructors.isEmpty() && !hasAnnotation(entity, "lombok.AllArgsConstructor")
+                && !hasAnnotation(entity, "lombok.RequiredArgsConstructor");
+    }
+
+    /**
+     * 是否有setter：显式声明的，或者类、字段上有Lombok的@Setter/@Data
+     */
+    private static boolean hasSetter(TypeElement entity, VariableElement field) {
+        if (field.getModifiers().contains(Modifier.FINAL)) {
+            return false;
+        }
+        if (hasAnnotation(field, "lombok.Setter") || hasAnnotation(entity, "lombok.Setter")
+                || hasAnnotation(entity, "lombok.Data")) {
+            return true;
+        }
+        String name = setterName(field);
+        for (ExecutableElement method : ElementFilter.methodsIn(entity.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals(name) && method.getParameters().size() == 1
+                    && method.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String setterName(VariableElement field) {
+        String name = field.getSimpleName().toString();
+        return "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static boolean hasAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String rawName(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                ? ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString() : "";
+    }
+
+    private static TypeElement enclosingType(Element element) {
+        while (element != null && !(element instanceof TypeElement)) {
+            element = element.getEnclosingElement();
+        }
+        return (TypeElement) element;
+    }
+
+    private static String packageOf(TypeElement type) {
+        Element element = type;
+        while (!(element instanceof PackageElement)) {
+            element = element.getEnclosingElement();
+        }
+        return ((PackageElement) element).getQualifiedName().toString();
+    }
+
+    private static String qualified(String packageName, String simpleName) {
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    /**
+     * 与EntityMetadata.normalize相同：去掉下划线并转为小写
+     */
+    private static String normalize(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '_') {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    private void note(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, element);
+    }
+}
@@ -1,6 +1,7 @@
 package app;
 
 import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
 import org.apache.catalina.startup.Tomcat;
 import servlet.*;
 
@@ -19,10 +20,13 @@ public class ApplicationRegistration {
         registerServlet(context, "teacherServlet", "/api/teachers/*", new TeacherServlet());
         registerServlet(context, "courseServlet", "/api/courses/*", new CourseServlet());
         registerServlet(context, "studentCourseServlet", "/api/student-courses/*", new StudentCourseServlet());
+        registerServlet(context, "metricsServlet", "/metrics", new MetricsServlet());
     }
     
     private static void registerServlet(Context context, String servletName, String urlPattern, HttpServlet servlet) {
-        Tomcat.addServlet(context, servletName, servlet);
+        Wrapper wrapper = Tomcat.addServlet(context, servletName, servlet);
+        // 允许Servlet把请求交给数据库线程池异步处理
+        wrapper.setAsyncSupported(true);
         context.addServletMappingDecoded(urlPattern, servletName);
     }
 } 
\ No newline at end of file
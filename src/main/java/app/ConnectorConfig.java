@@ -0,0 +1,161 @@
+package app;
+
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.http2.Http2Protocol;
+import utils.AppConfig;
+import utils.VirtualThreads;
+import utils.log.LogManager;
+import utils.log.Logger;
+
+import java.util.Properties;
+
+/**
+ * HTTP连接器配置
+ * 按application.properties或JVM系统属性创建Tomcat连接器，不同主机可以不改代码调整吞吐量相关的参数
+ *
+ * 配置项：
+ * server.port                  监听端口，默认8080
+ * server.address               绑定的地址，默认0.0.0.0
+ * server.protocol              nio或nio2，默认nio
+ * server.maxThreads            请求线程数上限，默认200，虚拟线程模式下不使用
+ * server.minSpareThreads       保持的最少空闲线程数，默认10
+ * server.acceptCount           连接数达到maxConnections后操作系统排队的连接数，默认100
+ * server.maxConnections        同时保持的连接数上限，默认8192
+ * server.connectionTimeoutMs   建立连接后等待请求行的时间，默认20000
+ * server.keepAliveTimeoutMs    keep-alive连接两次请求之间的最长空闲时间，默认等于connectionTimeoutMs
+ * server.maxKeepAliveRequests  一个keep-alive连接上最多处理的请求数，-1表示不限制，默认100
+ * server.http2.enabled         是否支持h2c（HTTP/1.1升级或直接以HTTP/2发起的明文连接），默认true
+ * server.http2.maxConcurrentStreams         一个HTTP/2连接上同时打开的流数，默认100
+ * server.http2.maxConcurrentStreamExecution 一个HTTP/2连接上同时处理的流数，默认20
+ * server.compression.enabled   是否对动态响应做gzip压缩，默认true，HTTP/1.1和HTTP/2使用相同的配置
+ * server.compression.minSize   响应体小于这个字节数时不压缩，默认1024
+ * server.compression.mimeTypes 压缩的响应类型，逗号分隔，参数（如charset）不参与匹配
+ * server.socket.*              套接字属性，前缀换成socket.后传给连接器，例如 server.socket.rxBufSize
+ * server.connector.*           其他连接器属性，去掉前缀后原样传给连接器
+ */
+public final class ConnectorConfig {
+    private static final Logger log = LogManager.getLogger(ConnectorConfig.class);
+
+    public static final int PORT = AppConfig.getInt("server.port", 8080);
+    private static final String ADDRESS = AppConfig.get("server.address", "0.0.0.0");
+    private static final String PROTOCOL = AppConfig.get("server.protocol", "nio");
+    private static final int MAX_THREADS = AppConfig.getInt("server.maxThreads", 200);
+    private static final int MIN_SPARE_THREADS = AppConfig.getInt("server.minSpareThreads", 10);
+    private static final int ACCEPT_COUNT = AppConfig.getInt("server.acceptCount", 100);
+    private static final int MAX_CONNECTIONS = AppConfig.getInt("server.maxConnections", 8192);
+    private static final int CONNECTION_TIMEOUT_MS = AppConfig.getInt("server.connectionTimeoutMs", 20_000);
+    private static final int KEEP_ALIVE_TIMEOUT_MS = AppConfig.getInt("server.keepAliveTimeoutMs", CONNECTION_TIMEOUT_MS);
+    private static final int MAX_KEEP_ALIVE_REQUESTS = AppConfig.getInt("server.maxKeepAliveRequests", 100);
+    private static final boolean HTTP2_ENABLED = AppConfig.getBoolean("server.http2.enabled", true);
+    private static final int HTTP2_MAX_CONCURRENT_STREAMS = AppConfig.getInt("server.http2.maxConcurrentStreams", 100);
+    private static final int HTTP2_MAX_CONCURRENT_STREAM_EXECUTION =
+            AppConfig.getInt("server.http2.maxConcurrentStreamExecution", 20);
+    private static final boolean COMPRESSION_ENABLED = AppConfig.getBoolean("server.compression.enabled", true);
+    private static final int COMPRESSION_MIN_SIZE = AppConfig.getInt("server.compression.minSize", 1024);
+    private static final String COMPRESSION_MIME_TYPES = AppConfig.get("server.compression.mimeTypes",
+            "application/json,text/html,text/css,text/plain,text/javascript,application/javascript");
+
+    private static final String NIO_PROTOCOL = "org.apache.coyote.http11.Http11NioProtocol";
+    private static final String NIO2_PROTOCOL = "org.apache.coyote.http11.Http11Nio2Protocol";
+
+    private ConnectorConfig() {
+    }
+
+    /**
+     * 响应压缩的最小字节数，预压缩静态资源时使用相同的阈值
+     */
+    public static int getCompressionMinSize() {
+        return COMPRESSION_MIN_SIZE;
+    }
+
+    /**
+     * 按配置创建HTTP连接器
+     * @param port 监听端口，0表示由系统分配空闲端口
+     * @return 连接器
+     */
+    public static Connector createConnector(int port) {
+        // 1. 协议和监听地址
+        Connector connector = new Connector(protocolClassName(PROTOCOL));
+        connector.setPort(port);
+        setProperty(connector, "address", ADDRESS);
+
+        // 2. 线程和连接数；虚拟线程模式下每个请求使用一个虚拟线程，并发请求数由maxConnections而不是线程数限制
+        setProperty(connector, "maxThreads", String.valueOf(MAX_THREADS));
+        setProperty(connector, "minSpareThreads", String.valueOf(MIN_SPARE_THREADS));
+        setProperty(connector, "acceptCount", String.valueOf(ACCEPT_COUNT));
+        setProperty(connector, "maxConnections", String.valueOf(MAX_CONNECTIONS));
+        if (VirtualThreads.isEnabled()) {
+            connector.getProtocolHandler().setExecutor(VirtualThreads.newExecutor("http-vt-"));
+        }
+
+        // 3. keep-alive：页面并发发出的多个小请求复用同一批连接
+        setProperty(connector, "connectionTimeout", String.valueOf(CONNECTION_TIMEOUT_MS));
+        setProperty(connector, "keepAliveTimeout", String.valueOf(KEEP_ALIVE_TIMEOUT_MS));
+        setProperty(connector, "maxKeepAliveRequests", String.valueOf(MAX_KEEP_ALIVE_REQUESTS));
+
+        // 4. 响应压缩
+        if (COMPRESSION_ENABLED) {
+            setProperty(connector, "compression", "on");
+            setProperty(connector, "compressionMinSize", String.valueOf(COMPRESSION_MIN_SIZE));
+            setProperty(connector, "compressibleMimeType", COMPRESSION_MIME_TYPES);
+        }
+
+        // 5. 套接字属性和其他连接器属性
+        Properties socketProperties = AppConfig.getWithPrefix("server.socket.");
+        for (String name : socketProperties.stringPropertyNames()) {
+            setProperty(connector, "socket." + name, socketProperties.getProperty(name));
+        }
+        Properties connectorProperties = AppConfig.getWithPrefix("server.connector.");
+        for (String name : connectorProperties.stringPropertyNames()) {
+            setProperty(connector, name, connectorProperties.getProperty(name));
+        }
+
+        // 6. h2c
+        if (HTTP2_ENABLED) {
+            connector.addUpgradeProtocol(createHttp2Protocol());
+        }
+
+        log.info("HTTP连接器: {}，HTTP/2(h2c) {}", connector.getProtocolHandlerClassName(),
+                HTTP2_ENABLED ? "开启" : "关闭");
+        return connector;
+    }
+
+    /**
+     * 创建HTTP/2升级协议
+     * HTTP/2的流不经过HTTP/1.1连接器的压缩和keep-alive配置，需要单独设置
+     */
+    private static Http2Protocol createHttp2Protocol() {
+        Http2Protocol http2 = new Http2Protocol();
+        http2.setMaxConcurrentStreams(HTTP2_MAX_CONCURRENT_STREAMS);
+        http2.setMaxConcurrentStreamExecution(HTTP2_MAX_CONCURRENT_STREAM_EXECUTION);
+        http2.setKeepAliveTimeout(KEEP_ALIVE_TIMEOUT_MS);
+        if (COMPRESSION_ENABLED) {
+            http2.setCompression("on");
+            http2.setCompressionMinSize(COMPRESSION_MIN_SIZE);
+            http2.setCompressibleMimeType(COMPRESSION_MIME_TYPES);
+        }
+        return http2;
+    }
+
+    /**
+     * 协议名称对应的ProtocolHandler类名，nio和nio2之外的值按类名处理
+     */
+    private static String protocolClassName(String protocol) {
+        if ("nio".equalsIgnoreCase(protocol)) {
+            return NIO_PROTOCOL;
+        }
+        if ("nio2".equalsIgnoreCase(protocol)) {
+            return NIO2_PROTOCOL;
+        }
+        return protocol;
+    }
+
+    /**
+     * 设置连接器属性，属性名不存在时只输出警告
+     */
+    private static void setProperty(Connector connector, String name, String value) {
+        if (!connector.setProperty(name, value)) {
+            log.warn("未知的连接器属性: {}={}", name, value);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package app;
+
+import utils.log.LogManager;
+import utils.log.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 静态资源预压缩
+ * 启动时把webapp目录下可压缩的静态文件（html、js、css等）以最高压缩级别压缩成.gz文件，
+ * 写入单独的输出目录并保持相同的相对路径，不改动源目录；
+ * 输出目录作为资源集挂载到Context根路径后，DefaultServlet开启precompressed时
+ * 对声明Accept-Encoding: gzip的请求直接返回.gz文件，不必每次请求都压缩
+ */
+public final class PrecompressedResources {
+    private static final Logger log = LogManager.getLogger(PrecompressedResources.class);
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String WEB_INF = "WEB-INF";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Set<String> extensions;
+    private final int minSize;
+
+    /**
+     * @param extensions 需要预压缩的文件扩展名，不含点，例如 "js"
+     * @param minSize 小于这个字节数的文件不压缩
+     */
+    public PrecompressedResources(String[] extensions, int minSize) {
+        this.extensions = new HashSet<>();
+        for (String extension : extensions) {
+            if (!extension.trim().isEmpty()) {
+                this.extensions.add(extension.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        this.minSize = minSize;
+    }
+
+    /**
+     * 压缩webapp目录下的静态文件
+     * @param webAppDir webapp源目录
+     * @param outputDir .gz文件的输出目录
+     * @return 生成的.gz文件数
+     * @throws IOException 读写文件失败
+     */
+    public int build(File webAppDir, File outputDir) throws IOException {
+        Path source = webAppDir.toPath();
+        Path target = outputDir.toPath();
+        int count = 0;
+        long originalBytes = 0;
+        long compressedBytes = 0;
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Path relative = source.relativize(file);
+                // 1. 跳过目录、WEB-INF下的文件、已经压缩过的文件和太小的文件
+                if (!Files.isRegularFile(file) || relative.startsWith(WEB_INF) || !isCompressible(file)) {
+                    continue;
+                }
+                long size = Files.size(file);
+                if (size < minSize) {
+                    continue;
+                }
+                // 2. 压缩到输出目录的相同相对路径下
+                byte[] compressed = gzip(file);
+                if (compressed.length >= size) {
+                    continue;
+                }
+                Path output = target.resolve(relative.toString() + GZIP_SUFFIX);
+                Files.createDirectories(output.getParent());
+                Files.write(output, compressed);
+                // 3. 和源文件使用相同的修改时间，避免.gz文件的Last-Modified比源文件新
+                Files.setLastModifiedTime(output, Files.getLastModifiedTime(file));
+                count++;
+                originalBytes += size;
+                compressedBytes += compressed.length;
+            }
+        }
+        log.info("预压缩静态资源 {} 个，节省 {} 字节", count, originalBytes - compressedBytes);
+        return count;
+    }
+
+    private boolean isCompressible(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && extensions.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private static byte[] gzip(Path file) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (OutputStream out = new BestCompressionGzipStream(buffer)) {
+            Files.copy(file, out);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 以最高压缩级别输出的GZIPOutputStream，压缩只在启动时做一次，不必在意压缩耗时
+     */
+    private static final class BestCompressionGzipStream extends GZIPOutputStream {
+        BestCompressionGzipStream(OutputStream out) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package entity;
 
+import annotations.Id;
 import annotations.Table;
 import com.google.gson.annotations.SerializedName;
 import lombok.AllArgsConstructor;
@@ -13,6 +14,7 @@ import lombok.Setter;
 @AllArgsConstructor
 @NoArgsConstructor
 public class Course {
+    @Id
     @SerializedName("courseId")
     private Integer courseId;
     
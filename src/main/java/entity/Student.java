@@ -1,5 +1,6 @@
 package entity;
 
+import annotations.Id;
 import annotations.Table;
 import com.google.gson.annotations.SerializedName;
 import lombok.AllArgsConstructor;
@@ -16,6 +17,7 @@ import java.util.Date;
 @AllArgsConstructor
 @NoArgsConstructor
 public class Student {
+    @Id
     @SerializedName("studentId")
     private Integer studentId;
 
@@ -2,8 +2,11 @@
 package mapper;
 
 import entity.Course;
+import annotations.Page;
 import annotations.Param;
 import annotations.SQL;
+import utils.page.PageResult;
+
 import java.util.List;
 
 public interface CourseMapper {
@@ -35,6 +38,15 @@ public interface CourseMapper {
         @Param("courseId") Integer courseId
     );
     
+    /**
+     * 按courseId分页查询课程
+     * @param limit 每页行数
+     * @param after 上一页的游标，为null时查询第一页
+     */
+    @Page(key = "courseId")
+    @SQL("SELECT course_id AS courseId, course_name AS courseName, credit, teacher_id AS teacherId FROM course")
+    PageResult<Course> selectCoursePage(@Param("limit") Integer limit, @Param("after") Integer after);
+
     @SQL("DELETE FROM course WHERE course_id = #{courseId}")
     boolean deleteCourseById(@Param("courseId") Integer courseId);
 }                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                                           
\ No newline at end of file
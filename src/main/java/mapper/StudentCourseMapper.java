@@ -1,12 +1,15 @@
 // StudentCourseMapper.java
 package mapper;
 
+import annotations.Page;
 import annotations.Param;
 import annotations.SQL;
 import annotations.Where;
 import entity.StudentCourse;
+import utils.page.PageResult;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface StudentCourseMapper {
     @Where("id = #{id}")
@@ -27,6 +30,17 @@ public interface StudentCourseMapper {
                                     @Param("score") double score, 
                                     @Param("semester") String semester);
 
+    /**
+     * 批量插入选课记录，插入后记录上的id会被回填
+     */
+    List<StudentCourse> insertStudentCourses(List<StudentCourse> studentCourses);
+
+    /**
+     * 按id批量更新选课记录
+     * @return 更新的行数
+     */
+    int updateStudentCourses(List<StudentCourse> studentCourses);
+
     @SQL("SELECT * FROM student_course WHERE student_id = #{studentId}")
     List<StudentCourse> selectByStudentId(@Param("studentId") int studentId);
 
@@ -36,4 +50,21 @@ public interface StudentCourseMapper {
     @SQL("SELECT * FROM student_course")
     List<StudentCourse> selectAll();
 
+    /**
+     * 流式读取所有选课记录，每读到一行就交给consumer处理
+     * consumer在持有数据库连接的情况下被调用，处理过程应尽量快
+     * @return 读取的行数
+     */
+    @SQL("SELECT * FROM student_course")
+    int selectAll(Consumer<StudentCourse> consumer);
+
+    /**
+     * 按id分页查询选课记录
+     * @param limit 每页行数
+     * @param after 上一页的游标，为null时查询第一页
+     */
+    @Page
+    @SQL("SELECT * FROM student_course")
+    PageResult<StudentCourse> selectPage(@Param("limit") Integer limit, @Param("after") Integer after);
+
 }
\ No newline at end of file
@@ -1,10 +1,12 @@
 // StudentMapper.java
 package mapper;
 
+import annotations.Page;
 import annotations.Param;
 import annotations.SQL;
 import annotations.Where;
 import entity.Student;
+import utils.page.PageResult;
 
 import java.util.Date;
 import java.util.List;
@@ -28,6 +30,27 @@ public interface StudentMapper {
                          @Param("age") int age,
                          @Param("enrollmentDate") Date enrollmentDate);
 
+    /**
+     * 批量插入学生，插入后学生对象上的studentId会被回填
+     */
+    List<Student> insertStudents(List<Student> students);
+
+    /**
+     * 按studentId批量更新学生
+     * @return 更新的行数
+     */
+    int updateStudents(List<Student> students);
+
     @SQL("SELECT * FROM student WHERE age BETWEEN #{minAge} AND #{maxAge}")
     List<Student> selectStudentsByAgeRange(@Param("minAge") int minAge, @Param("maxAge") int maxAge);
+
+    /**
+     * 按年龄范围分页查询学生，按studentId排序
+     * @param limit 每页行数
+     * @param after 上一页的游标，为null时查询第一页
+     */
+    @Page
+    @Where("age BETWEEN #{minAge} AND #{maxAge}")
+    PageResult<Student> selectStudentPage(@Param("minAge") int minAge, @Param("maxAge") int maxAge,
+                                          @Param("limit") Integer limit, @Param("after") Integer after);
 }
\ No newline at end of file
@@ -1,10 +1,12 @@
 // TeacherMapper.java
 package mapper;
 
+import annotations.Page;
 import annotations.Param;
 import annotations.SQL;
 import annotations.Where;
 import entity.Teacher;
+import utils.page.PageResult;
 
 import java.util.List;
 
@@ -12,13 +14,12 @@ public interface TeacherMapper {
     @SQL("SELECT teacher_id AS teacherId, name, gender, title FROM teacher WHERE teacher_id = #{teacherId}")
     Teacher selectById(@Param("teacherId") int teacherId);
 
-    @SQL("INSERT INTO teacher (name, gender, title) VALUES (#{name}, #{gender}, #{title})")
-    Boolean insertTeacher(@Param("name") String name, 
-                         @Param("gender") String gender, 
+    /**
+     * 插入教师，返回的对象带有数据库生成的teacherId，插入失败时返回null
+     */
+    Teacher insertTeacher(@Param("name") String name,
+                         @Param("gender") String gender,
                          @Param("title") String title);
-                         
-    @SQL("SELECT teacher_id AS teacherId, name, gender, title FROM teacher ORDER BY teacher_id DESC LIMIT 1")
-    Teacher selectLastInsertedTeacher();
 
     @SQL("DELETE FROM teacher WHERE teacher_id = #{teacherId}")
     Boolean deleteTeacherById(@Param("teacherId") int teacherId);
@@ -31,4 +32,13 @@ public interface TeacherMapper {
 
     @SQL("SELECT teacher_id AS teacherId, name, gender, title FROM teacher")
     List<Teacher> selectAllTeachers();
+
+    /**
+     * 按teacherId分页查询教师
+     * @param limit 每页行数
+     * @param after 上一页的游标，为null时查询第一页
+     */
+    @Page(key = "teacherId")
+    @SQL("SELECT teacher_id AS teacherId, name, gender, title FROM teacher")
+    PageResult<Teacher> selectTeacherPage(@Param("limit") Integer limit, @Param("after") Integer after);
 }
\ No newline at end of file
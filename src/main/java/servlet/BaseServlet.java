@@ -1,9 +1,26 @@
 package servlet;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import annotations.Table;
+import annotations.Transactional;
+import servlet.async.AsyncExchange;
+import servlet.json.Gsons;
+import servlet.json.JsonOutput;
+import utils.AppConfig;
+import utils.DbExecutor;
 import utils.MySqlSessionFactory;
+import utils.TransactionManager;
+import utils.VirtualThreads;
+import utils.cache.CacheManager;
+import utils.log.LogManager;
+import utils.log.Logger;
+import utils.page.PageResult;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -11,28 +28,262 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
-
-import static com.google.gson.FieldNamingPolicy.IDENTITY;
-import static com.google.gson.FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 public abstract class BaseServlet<T, M> extends HttpServlet {
+    // 是否把请求交给数据库线程池异步处理，关闭时在Tomcat请求线程上直接处理
+    // 虚拟线程模式下请求线程本身就是虚拟线程，阻塞的代价很低，直接在请求线程上处理；
+    // 但旧版MySQL驱动会在JDBC调用期间钉住载体线程，此时仍交给有界的数据库线程池
+    private static final boolean ASYNC_ENABLED = AppConfig.getBoolean("async.enabled", true)
+            && !VirtualThreads.isJdbcUnpinned();
+    // 异步请求的超时时间，超时后返回503
+    private static final long ASYNC_TIMEOUT_MS = AppConfig.getLong("async.timeoutMs", 30_000);
+    // 是否按表的版本号为GET响应生成ETag，并对If-None-Match匹配的请求返回304
+    private static final boolean ETAG_ENABLED = AppConfig.getBoolean("server.etag.enabled", true);
+    // 进程启动时间，作为ETag的前缀；表的版本号重启后从0开始，重启前的ETag不会被误认为匹配
+    private static final String ETAG_EPOCH = Long.toString(System.currentTimeMillis(), 36);
+    // 请求属性：已生成、等待响应以2xx开始输出时再设置的ETag
+    private static final String PENDING_ETAG_ATTRIBUTE = BaseServlet.class.getName() + ".pendingETag";
+
+    // 以具体Servlet类命名的日志记录器，请求和实体的调试信息以DEBUG级别输出
+    protected final transient Logger log = LogManager.getLogger(getClass());
     protected M mapper;
     protected Gson gson;
     protected final Class<M> mapperClass;
+    // 标记了@Transactional的处理方法名
+    private final Set<String> transactionalHandlers = new HashSet<>();
+    // 实体和实体列表的TypeAdapter，在init()中取得一次，输出响应时不再按类型查找
+    private transient TypeAdapter<T> entityAdapter;
+    private transient TypeAdapter<List<T>> listAdapter;
+    // 异步请求超时时返回的响应体，分别用于可以安全重试和不幂等的请求
+    private String timeoutMessage;
+    private String unsafeTimeoutMessage;
+    // GET响应依赖的表，生成ETag时读取它们的版本号
+    private String[] dependentTables;
 
     public BaseServlet(Class<M> mapperClass) {
         this.mapperClass = mapperClass;
-        this.gson = new GsonBuilder()
-                .setFieldNamingPolicy(LOWER_CASE_WITH_UNDERSCORES)
-                .setDateFormat("yyyy-MM-dd")
-                .serializeNulls()
-                .create();
+        this.gson = Gsons.shared();
     }
 
     @Override
     public void init() throws ServletException {
         MySqlSessionFactory mySqlSessionFactory = new MySqlSessionFactory();
         mapper = mySqlSessionFactory.getMapper(mapperClass);
+        entityAdapter = gson.getAdapter(getEntityClass());
+        listAdapter = listAdapter(gson, getEntityClass());
+        timeoutMessage = gson.toJson("请求处理超时，请稍后重试");
+        unsafeTimeoutMessage = gson.toJson("请求处理超时，操作可能未完成，请确认结果后再重试");
+        dependentTables = getDependentTables();
+
+        // 找出子类中标记了@Transactional的处理方法
+        for (Class<?> type = getClass(); type != BaseServlet.class; type = type.getSuperclass()) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.isAnnotationPresent(Transactional.class)) {
+                    transactionalHandlers.add(method.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * 调用处理方法，方法标记了@Transactional时在事务中执行
+     * 异步请求在提交前已经超时时回滚事务：客户端已收到超时响应，提交会让客户端重试时重复写入
+     * @param req HTTP请求
+     * @param handlerName 处理方法名
+     * @param handler 处理逻辑
+     * @return 处理方法的返回值
+     * @throws Exception 处理方法抛出的异常，事务已回滚
+     */
+    protected <R> R invokeHandler(HttpServletRequest req, String handlerName,
+                                  TransactionManager.TransactionCallback<R> handler) throws Exception {
+        if (!transactionalHandlers.contains(handlerName)) {
+            return handler.doInTransaction();
+        }
+        AsyncExchange exchange = AsyncExchange.of(req);
+        return exchange != null ? executeAttached(exchange, handler) : TransactionManager.execute(handler);
+    }
+
+    /**
+     * 在事务中执行异步请求的处理方法，只在请求尚未超时时提交
+     * 提交期间超时处理等待提交结束，因此超时响应要么发生在回滚之后，要么发生在提交之后
+     * @param exchange 异步请求
+     * @param handler 处理逻辑
+     * @return 处理方法的返回值
+     * @throws Exception 处理方法抛出的异常或请求已超时，事务已回滚
+     */
+    private static <R> R executeAttached(AsyncExchange exchange, TransactionManager.TransactionCallback<R> handler)
+            throws Exception {
+        // 1. 执行处理方法，出错时回滚
+        TransactionManager.begin();
+        R result;
+        try {
+            result = handler.doInTransaction();
+        } catch (Throwable t) {
+            try {
+                TransactionManager.rollback();
+            } catch (SQLException e) {
+                t.addSuppressed(e);
+            }
+            throw t;
+        }
+        // 2. 请求仍未结束时提交，已经超时时回滚
+        if (!exchange.runIfAttached(TransactionManager::commit)) {
+            TransactionManager.rollback();
+            throw new IllegalStateException("请求已超时，事务已回滚");
+        }
+        return result;
+    }
+
+    /**
+     * 异步处理请求
+     * 请求线程只调用startAsync()并把请求交给数据库线程池，随即返回容器处理其他请求（包括静态资源）；
+     * 工作线程执行doGet/doPost等方法并结束请求
+     * 线程池队列已满时立即返回503，处理超过超时时间时返回503并丢弃工作线程之后的输出
+     */
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        // 工作线程在响应提交后处理失败，派发回容器线程抛出异常，由容器关闭连接
+        Throwable aborted = AsyncExchange.getAbortError(req);
+        if (aborted != null) {
+            throw new ServletException("响应已开始输出后处理失败", aborted);
+        }
+        // 数据没有变化的GET请求在请求线程上直接返回304，不进入数据库线程池
+        if (checkNotModified(req, resp)) {
+            return;
+        }
+        if (!ASYNC_ENABLED || !req.isAsyncSupported() || req.getDispatcherType() == DispatcherType.ASYNC) {
+            super.service(req, resp);
+            return;
+        }
+        AsyncContext asyncContext = req.startAsync(req, resp);
+        AsyncExchange exchange = new AsyncExchange(asyncContext, getAsyncTimeout(req), timeoutMessage,
+                unsafeTimeoutMessage);
+        try {
+            DbExecutor.submit(() -> {
+                // 排队期间已经超时的请求不再处理
+                if (exchange.isFinished()) {
+                    return;
+                }
+                try {
+                    super.service(exchange.request(), exchange.response());
+                } catch (Exception e) {
+                    if (exchange.isFinished()) {
+                        return;
+                    }
+                    log.error("处理请求失败: " + req.getMethod() + " " + req.getRequestURI(), e);
+                    if (exchange.response().isCommitted()) {
+                        exchange.abort(e);
+                    } else {
+                        exchange.fail(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                                gson.toJson("服务器内部错误: " + e.getMessage()));
+                    }
+                } finally {
+                    exchange.complete();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            exchange.fail(HttpServletResponse.SC_SERVICE_UNAVAILABLE, gson.toJson("服务器繁忙，请稍后重试"));
+        }
+    }
+
+    /**
+     * 条件GET
+     * 按GET响应依赖的表的当前版本号生成弱ETag，请求的If-None-Match与之匹配时直接返回304，
+     * 不查询数据库、不序列化JSON；不匹配时记下ETag继续处理，由getResponseWriter()只在2xx响应上设置
+     * 版本号在查询之前读取，查询期间表被写入时ETag对应旧版本，客户端下次请求会重新取得数据
+     * 版本号只记录本进程通过Mapper执行的写操作，直接修改数据库不会使ETag变化
+     * @param req HTTP请求
+     * @param resp HTTP响应
+     * @return 已返回304时为true
+     */
+    private boolean checkNotModified(HttpServletRequest req, HttpServletResponse resp) {
+        if (!ETAG_ENABLED || dependentTables.length == 0
+                || !("GET".equals(req.getMethod()) || "HEAD".equals(req.getMethod()))) {
+            return false;
+        }
+        // 1. 由启动时间和各表的版本号组成ETag
+        StringBuilder builder = new StringBuilder("W/\"").append(ETAG_EPOCH);
+        for (String table : dependentTables) {
+            builder.append('-').append(Long.toString(CacheManager.tableVersion(table), 36));
+        }
+        String etag = builder.append('"').toString();
+
+        // 2. 不匹配时继续处理，处理结果可能是404、500等错误响应，此时还不能设置ETag
+        if (!matchesETag(req.getHeader("If-None-Match"), etag)) {
+            req.setAttribute(PENDING_ETAG_ATTRIBUTE, etag);
+            return false;
+        }
+        setValidators(resp, etag);
+        resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        return true;
+    }
+
+    /**
+     * 设置ETag，浏览器每次使用缓存前都带上If-None-Match重新验证
+     */
+    private static void setValidators(HttpServletResponse resp, String etag) {
+        resp.setHeader("ETag", etag);
+        resp.setHeader("Cache-Control", "no-cache");
+    }
+
+    /**
+     * GET响应的输出流
+     * 有待设置的ETag时，在第一次写入响应体时检查状态码，只有2xx响应带上ETag和Cache-Control；
+     * 错误响应先设置状态码再输出，因此404、500等响应不带验证器，客户端不会用错误响应的ETag换取304
+     * @param req HTTP请求
+     * @param resp HTTP响应
+     * @return 响应输出流
+     * @throws IOException 如果取得输出流失败
+     */
+    private PrintWriter getResponseWriter(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        PrintWriter writer = resp.getWriter();
+        Object etag = req.getAttribute(PENDING_ETAG_ATTRIBUTE);
+        return etag == null ? writer : new ValidatingWriter(writer, resp, (String) etag);
+    }
+
+    /**
+     * If-None-Match中是否有与当前ETag弱匹配的值
+     * @param ifNoneMatch If-None-Match请求头，可以是逗号分隔的多个ETag或*
+     * @param etag 当前的弱ETag
+     */
+    private static boolean matchesETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = etag.substring(2);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * GET响应依赖的表，默认为实体类@Table注解中的表名
+     * 子类的查询还读取其他表时需要覆盖，返回空数组表示不生成ETag
+     * @return 表名
+     */
+    protected String[] getDependentTables() {
+        Table table = getEntityClass().getAnnotation(Table.class);
+        return table != null ? new String[]{table.tableName()} : new String[0];
+    }
+
+    /**
+     * 异步请求的超时时间，子类可以为耗时较长的请求（如批量导入）放宽
+     * @param req HTTP请求
+     * @return 超时时间（毫秒），0表示不超时
+     */
+    protected long getAsyncTimeout(HttpServletRequest req) {
+        return ASYNC_TIMEOUT_MS;
     }
 
     @Override
@@ -40,16 +291,22 @@ public abstract class BaseServlet<T, M> extends HttpServlet {
         req.setCharacterEncoding("UTF-8");
         resp.setCharacterEncoding("UTF-8");
         setupResponse(resp);
-        PrintWriter out = resp.getWriter();
+        PrintWriter out = getResponseWriter(req, resp);
         
         try {
             String pathInfo = req.getPathInfo();
             
             if (pathInfo == null || pathInfo.equals("/")) {
-                handleGetAll(req, resp, out);
+                invokeHandler(req, "handleGetAll", () -> {
+                    handleGetAll(req, resp, out);
+                    return null;
+                });
             } else {
                 int id = extractIdFromPath(pathInfo);
-                handleGetById(id, req, resp, out);
+                invokeHandler(req, "handleGetById", () -> {
+                    handleGetById(id, req, resp, out);
+                    return null;
+                });
             }
         } catch (NumberFormatException e) {
             sendErrorResponse(resp, out, HttpServletResponse.SC_BAD_REQUEST, "无效的ID或参数格式");
@@ -69,8 +326,7 @@ public abstract class BaseServlet<T, M> extends HttpServlet {
             // 使用工具方法读取请求体，确保只读取一次
             String requestBody = getRequestBody(req);
 
-            // 调试信息
-            System.out.println("接收到的请求体: " + requestBody);
+            log.debug("接收到的请求体: {}", requestBody);
 
             if (requestBody == null || requestBody.isEmpty()) {
                 sendErrorResponse(resp, out, HttpServletResponse.SC_BAD_REQUEST, "请求体不能为空");
@@ -79,25 +335,14 @@ public abstract class BaseServlet<T, M> extends HttpServlet {
 
             // 解析JSON并传递给子类处理
             T entity = gson.fromJson(requestBody, getEntityClass());
-            System.out.println("接收到的实体: " + entity);
-            
-            // 打印实体类的所有字段值
-            System.out.println("实体类字段值:");
-            for (java.lang.reflect.Field field : entity.getClass().getDeclaredFields()) {
-                field.setAccessible(true);
-                try {
-                    System.out.println(field.getName() + " = " + field.get(entity));
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                }
-            }
-            
-            T insertedEntity = handleInsert(entity, req);
+            log.debug("接收到的实体: {}", entity);
+
+            T insertedEntity = invokeHandler(req, "handleInsert", () -> handleInsert(entity, req));
 
             resp.setStatus(HttpServletResponse.SC_CREATED);
-            out.print(gson.toJson(insertedEntity));
+            writeJson(out, insertedEntity);
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("添加记录失败", e);
             sendErrorResponse(resp, out, HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
                     "服务器内部错误: " + e.getMessage());
         }
@@ -118,17 +363,17 @@ public abstract class BaseServlet<T, M> extends HttpServlet {
             String requestBody = getRequestBody(req);
             T entity = gson.fromJson(requestBody, getEntityClass());
 
-            T updatedEntity = handleUpdate(id, entity, req);
+            T updatedEntity = invokeHandler(req, "handleUpdate", () -> handleUpdate(id, entity, req));
 
             if (updatedEntity != null) {
-                out.print(gson.toJson(updatedEntity));
+                writeJson(out, updatedEntity);
             } else {
                 sendErrorResponse(resp, out, HttpServletResponse.SC_NOT_FOUND, "未找到ID为" + id + "的记录");
             }
         } catch (NumberFormatException e) {
             sendErrorResponse(resp, out, HttpServletResponse.SC_BAD_REQUEST, "无效的ID格式");
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("更新记录失败", e);
             sendErrorResponse(resp, out, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "服务器内部错误: " + e.getMessage());
         }
     }
@@ -157,10 +402,10 @@ public abstract class BaseServlet<T, M> extends HttpServlet {
             String pathInfo = req.getPathInfo();
             int id = extractIdFromPath(pathInfo);
             
-            T deletedEntity = handleDelete(id);
+            T deletedEntity = invokeHandler(req, "handleDelete", () -> handleDelete(id));
             
             if (deletedEntity != null) {
-                out.print(gson.toJson(deletedEntity));
+                writeJson(out, deletedEntity);
             } else {
                 sendErrorResponse(resp, out, HttpServletResponse.SC_NOT_FOUND, "未找到ID为" + id + "的记录");
             }
@@ -183,11 +428,184 @@ public abstract class BaseServlet<T, M> extends HttpServlet {
         resp.setContentType("application/json;charset=UTF-8");
     }
     
+    /**
+     * 是否为分页请求，带有limit或cursor参数时按页返回
+     * 不带这两个参数时保持原来返回完整数组的行为
+     */
+    protected boolean isPageRequest(HttpServletRequest req) {
+        return req.getParameter("limit") != null || req.getParameter("cursor") != null;
+    }
+
+    /**
+     * 读取整数查询参数
+     * @return 参数值，未提供或为空时返回null
+     * @throws NumberFormatException 如果参数不是整数
+     */
+    protected Integer getIntParameter(HttpServletRequest req, String name) {
+        String value = req.getParameter(name);
+        return value == null || value.isEmpty() ? null : Integer.parseInt(value);
+    }
+
+    /**
+     * 输出一个实体
+     * @param out 响应输出流
+     * @param entity 实体
+     * @throws IOException 如果输出失败
+     */
+    protected void writeJson(PrintWriter out, T entity) throws IOException {
+        JsonOutput.write(gson, out, entityAdapter, entity);
+    }
+
+    /**
+     * 输出实体列表
+     * @param out 响应输出流
+     * @param entities 实体列表
+     * @throws IOException 如果输出失败
+     */
+    protected void writeJsonList(PrintWriter out, List<T> entities) throws IOException {
+        JsonOutput.write(gson, out, listAdapter, entities);
+    }
+
+    /**
+     * 用指定的TypeAdapter输出其他类型的对象
+     * @param out 响应输出流
+     * @param adapter 对象类型的TypeAdapter，应当预先取得并保存
+     * @param value 要输出的对象
+     * @throws IOException 如果输出失败
+     */
+    protected <V> void writeJson(PrintWriter out, TypeAdapter<V> adapter, V value) throws IOException {
+        JsonOutput.write(gson, out, adapter, value);
+    }
+
+    /**
+     * 获取实体列表的TypeAdapter
+     * @param gson Gson实例
+     * @param entityClass 实体类
+     * @return List&lt;实体&gt;的TypeAdapter
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> TypeAdapter<List<E>> listAdapter(Gson gson, Class<E> entityClass) {
+        return (TypeAdapter<List<E>>) gson.getAdapter(TypeToken.getParameterized(List.class, entityClass));
+    }
+
+    /**
+     * 输出一页数据：{"items": [...], "nextCursor": 下一页游标或null}
+     * @param out 响应输出流
+     * @param page 分页结果
+     * @throws IOException 如果输出失败
+     */
+    protected void writePage(PrintWriter out, PageResult<T> page) throws IOException {
+        JsonOutput.write(gson, out, writer -> {
+            writer.beginObject();
+            writer.name("items").beginArray();
+            for (T item : page.getItems()) {
+                entityAdapter.write(writer, item);
+            }
+            writer.endArray();
+            writer.name("nextCursor");
+            if (page.getNextCursor() == null) {
+                writer.nullValue();
+            } else {
+                writer.value((Number) page.getNextCursor());
+            }
+            writer.endObject();
+        });
+    }
+
+    /**
+     * 流式输出JSON数组
+     * 查询每读到一行就序列化写入响应，不在内存中保留完整的列表和JSON字符串
+     * 响应开始输出后出错只能中断输出，无法再返回错误状态码
+     * @param out 响应输出流
+     * @param query 流式查询，把每一行交给传入的Consumer
+     * @throws Exception 如果查询或输出失败
+     */
+    protected void writeJsonArray(PrintWriter out, StreamingQuery<T> query) throws Exception {
+        JsonOutput.write(gson, out, writer -> {
+            writer.beginArray();
+            query.run(row -> {
+                try {
+                    entityAdapter.write(writer, row);
+                } catch (IOException e) {
+                    throw new JsonIOException(e);
+                }
+            });
+            writer.endArray();
+        });
+    }
+
+    /**
+     * 第一次写入时按状态码决定是否设置ETag的输出流
+     * 响应体在提交前写入，此时仍可以设置响应头；流式输出的大响应也能带上ETag
+     */
+    private static final class ValidatingWriter extends PrintWriter {
+        private final HttpServletResponse resp;
+        private String etag;
+
+        ValidatingWriter(PrintWriter writer, HttpServletResponse resp, String etag) {
+            super(writer);
+            this.resp = resp;
+            this.etag = etag;
+        }
+
+        @Override
+        public void write(int c) {
+            applyValidators();
+            super.write(c);
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            applyValidators();
+            super.write(buf, off, len);
+        }
+
+        @Override
+        public void write(String s, int off, int len) {
+            applyValidators();
+            super.write(s, off, len);
+        }
+
+        private void applyValidators() {
+            if (etag == null) {
+                return;
+            }
+            int status = resp.getStatus();
+            if (status >= 200 && status < 300) {
+                setValidators(resp, etag);
+            }
+            etag = null;
+        }
+    }
+
+    /**
+     * 流式查询，例如 mapper::selectAll(Consumer)
+     */
+    @FunctionalInterface
+    protected interface StreamingQuery<E> {
+        void run(Consumer<E> consumer) throws Exception;
+    }
+
     protected void sendErrorResponse(HttpServletResponse resp, PrintWriter out, int statusCode, String message) {
+        abortIfCommitted(resp, message);
         resp.setStatus(statusCode);
         out.print(gson.toJson(message));
     }
     
+    /**
+     * 响应已开始输出时中断响应
+     * 流式输出超过一个缓冲区后响应已经提交，不能再修改状态码，继续写入会把错误信息拼接在已输出的内容后面，
+     * 客户端收到一个内容错乱的200响应；这里改为抛出异常，由容器关闭连接，客户端能发现响应不完整
+     * @param resp HTTP响应
+     * @param message 错误信息
+     * @throws IllegalStateException 如果响应已经提交
+     */
+    protected static void abortIfCommitted(HttpServletResponse resp, String message) {
+        if (resp.isCommitted()) {
+            throw new IllegalStateException("响应已开始输出，中断响应: " + message);
+        }
+    }
+
     // Abstract methods to be implemented by subclasses
     protected abstract Class<T> getEntityClass();
     protected abstract void handleGetAll(HttpServletRequest req, HttpServletResponse resp, PrintWriter out) throws Exception;
@@ -1,8 +1,6 @@
 package servlet;
 
-import com.google.gson.FieldNamingPolicy;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import annotations.Transactional;
 import entity.Course;
 import mapper.CourseMapper;
 import javax.servlet.annotation.WebServlet;
@@ -13,16 +11,10 @@ import java.io.PrintWriter;
 import java.util.List;
 import java.io.IOException;
 
-@WebServlet("/api/courses/*")
+@WebServlet(urlPatterns = "/api/courses/*", asyncSupported = true)
 public class CourseServlet extends BaseServlet<Course, CourseMapper> {
-    private final Gson gson;
-
     public CourseServlet() {
         super(CourseMapper.class);
-        // 配置Gson使用驼峰命名
-        this.gson = new GsonBuilder()
-            .setFieldNamingPolicy(FieldNamingPolicy.IDENTITY)
-            .create();
     }
 
     @Override
@@ -39,46 +31,38 @@ public class CourseServlet extends BaseServlet<Course, CourseMapper> {
             try {
                 int teacherId = Integer.parseInt(teacherIdStr);
                 courses = mapper.selectCoursesByTeacher(teacherId);
-                System.out.println("按教师ID查询课程结果: " + courses);
+                log.debug("按教师ID查询课程结果: {}", courses);
             } catch (NumberFormatException e) {
                 sendErrorResponse(resp, out, HttpServletResponse.SC_BAD_REQUEST, "教师ID格式不正确");
                 return;
             }
+        } else if (isPageRequest(req)) {
+            writePage(out, mapper.selectCoursePage(getIntParameter(req, "limit"), getIntParameter(req, "cursor")));
+            return;
         } else {
             courses = mapper.selectAllCourses();
-            System.out.println("查询所有课程结果: " + courses);
+            log.debug("查询所有课程结果: {}", courses);
         }
-        
-        // 验证每个课程对象的完整性
-        if (courses != null) {
-            for (Course course : courses) {
-                System.out.println("课程详情 - ID: " + course.getCourseId() 
-                    + ", 名称: " + course.getCourseName() 
-                    + ", 学分: " + course.getCredit() 
-                    + ", 教师ID: " + course.getTeacherId());
-            }
-        }
-        
-        String jsonResponse = gson.toJson(courses);
-        System.out.println("发送到前端的JSON响应: " + jsonResponse);
-        out.print(jsonResponse);
+
+        writeJsonList(out, courses);
     }
 
     @Override
     protected void handleGetById(int id, HttpServletRequest req, HttpServletResponse resp, PrintWriter out) throws Exception {
         Course course = mapper.selectById(id);
-        System.out.println("按ID查询课程结果 - ID: " + id + ", 课程: " + course);
+        if (log.isDebugEnabled()) {
+            log.debug("按ID查询课程结果 - ID: {}, 课程: {}", id, course);
+        }
 
         if (course != null) {
-            String jsonResponse = gson.toJson(course);
-            System.out.println("发送到前端的JSON响应: " + jsonResponse);
-            out.print(jsonResponse);
+            writeJson(out, course);
         } else {
             sendErrorResponse(resp, out, HttpServletResponse.SC_NOT_FOUND, "未找到ID为" + id + "的课程");
         }
     }
 
     @Override
+    @Transactional
     protected Course handleInsert(Course course, HttpServletRequest req) throws Exception {
         try {
             // 验证课程数据
@@ -114,16 +98,18 @@ public class CourseServlet extends BaseServlet<Course, CourseMapper> {
             
             return course;
         } catch (Exception e) {
-            System.out.println("添加课程失败: " + e.getMessage());
+            log.warn("添加课程失败: {}", e.getMessage());
             throw e;
         }
     }
 
     @Override
+    @Transactional
     protected Course handleUpdate(int id, Course course, HttpServletRequest req) throws Exception {
         try {
-            System.out.println("更新操作解析后的课程数据: " + course);
-            System.out.println("要更新的课程ID: " + id);
+            if (log.isDebugEnabled()) {
+                log.debug("更新课程 - ID: {}, 解析后的课程数据: {}", id, course);
+            }
 
             // 检查课程是否存在
             Course existingCourse = mapper.selectById(id);
@@ -159,15 +145,7 @@ public class CourseServlet extends BaseServlet<Course, CourseMapper> {
                 }
             }
 
-            // 打印更新前的数据
-            System.out.println("更新前的课程数据: " + existingCourse);
-            System.out.println("准备更新的课程数据: " + course);
-
-            // 打印SQL参数
-            System.out.println("SQL参数 - courseId: " + id);
-            System.out.println("SQL参数 - courseName: " + course.getCourseName());
-            System.out.println("SQL参数 - credit: " + course.getCredit());
-            System.out.println("SQL参数 - teacherId: " + course.getTeacherId());
+            log.debug("更新前的课程数据: {}, 准备更新的课程数据: {}", existingCourse, course);
 
             // 确保teacherId不为null
             Integer teacherId = course.getTeacherId();
@@ -192,18 +170,18 @@ public class CourseServlet extends BaseServlet<Course, CourseMapper> {
                 throw new Exception("无法获取更新后的课程信息");
             }
 
-            System.out.println("更新后的课程数据: " + updatedCourse);
+            log.debug("更新后的课程数据: {}", updatedCourse);
             return updatedCourse;
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("数据验证失败: " + e.getMessage());
         } catch (Exception e) {
-            System.out.println("更新课程时发生错误: " + e.getMessage());
-            e.printStackTrace();
+            log.error("更新课程时发生错误", e);
             throw new Exception("更新课程时发生错误: " + e.getMessage());
         }
     }
 
     @Override
+    @Transactional
     protected Course handleDelete(int id) throws Exception {
         Course course = mapper.selectById(id);
         if (course == null) {
@@ -2,20 +2,112 @@ package servlet;
 
 import entity.StudentCourse;
 import mapper.StudentCourseMapper;
+import servlet.async.AsyncExchange;
+import servlet.bulk.BulkImportResult;
+import servlet.bulk.BulkImporter;
+import servlet.bulk.CsvRowSource;
+import servlet.bulk.JsonArrayRowSource;
+import servlet.bulk.RowSource;
+import utils.AppConfig;
 
+import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.Collections;
 import java.util.List;
 
-@WebServlet("/api/student-courses/*")
+@WebServlet(urlPatterns = "/api/student-courses/*", asyncSupported = true)
 public class StudentCourseServlet extends BaseServlet<StudentCourse, StudentCourseMapper> {
+    private static final String BULK_PATH = "/bulk";
+    // 批量导入时每个事务提交的行数
+    private static final int BULK_CHUNK_SIZE = AppConfig.getInt("bulk.chunkSize", 1000);
+    // 批量导入请求的异步超时时间
+    private static final long BULK_TIMEOUT_MS = AppConfig.getLong("bulk.timeoutMs", 600_000);
 
     public StudentCourseServlet() {
         super(StudentCourseMapper.class);
     }
 
+    /**
+     * 批量导入按导入数据量耗时，使用单独的超时时间
+     */
+    @Override
+    protected long getAsyncTimeout(HttpServletRequest req) {
+        return BULK_PATH.equals(req.getPathInfo()) ? BULK_TIMEOUT_MS : super.getAsyncTimeout(req);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        if (BULK_PATH.equals(req.getPathInfo())) {
+            handleBulkImport(req, resp);
+            return;
+        }
+        super.doPost(req, resp);
+    }
+
+    /**
+     * 批量导入选课记录：POST /api/student-courses/bulk
+     * 请求体为JSON数组，或Content-Type为text/csv（也可以用?format=csv指定）的CSV
+     * 请求体流式解析，每BULK_CHUNK_SIZE行在一个事务中批量插入，返回成功数和每行的失败原因
+     */
+    private void handleBulkImport(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        req.setCharacterEncoding("UTF-8");
+        resp.setCharacterEncoding("UTF-8");
+        setupResponse(resp);
+        PrintWriter out = resp.getWriter();
+
+        // 1. 根据请求类型选择解析方式
+        BufferedReader reader = req.getReader();
+        String contentType = req.getContentType();
+        boolean csv = "csv".equalsIgnoreCase(req.getParameter("format"))
+                || (contentType != null && contentType.toLowerCase().startsWith("text/csv"));
+        RowSource<StudentCourse> source = csv
+                ? new CsvRowSource<>(reader, gson, StudentCourse.class)
+                : new JsonArrayRowSource<>(reader, gson, StudentCourse.class);
+
+        // 2. 分段批量插入，整段失败时逐行插入找出失败的行
+        BulkImporter<StudentCourse> importer = new BulkImporter<>(BULK_CHUNK_SIZE,
+                mapper::insertStudentCourses,
+                this::insertRow,
+                this::validate,
+                () -> AsyncExchange.isFinished(req));
+        BulkImportResult result = importer.run(source);
+
+        // 3. 请求体格式错误时返回400，已导入的数据仍然保留
+        if (result.getError() != null) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        }
+        writeJson(out, gson.getAdapter(BulkImportResult.class), result);
+    }
+
+    /**
+     * 整段插入失败后逐行插入一条选课记录
+     * 使用与批量插入相同的语句，score为null的行与批量插入一样按NULL绑定
+     * @return 插入后回填了id的记录，没有插入时返回null
+     */
+    private StudentCourse insertRow(StudentCourse row) throws Exception {
+        List<StudentCourse> inserted = mapper.insertStudentCourses(Collections.singletonList(row));
+        return inserted.isEmpty() ? null : inserted.get(0);
+    }
+
+    /**
+     * 校验一条选课记录的必填字段
+     * @return 校验失败的原因，通过时返回null
+     */
+    private String validate(StudentCourse studentCourse) {
+        if (studentCourse.getStudentId() == null) {
+            return "studentId不能为空";
+        }
+        if (studentCourse.getCourseId() == null) {
+            return "courseId不能为空";
+        }
+        return null;
+    }
+
     @Override
     protected Class<StudentCourse> getEntityClass() {
         return StudentCourse.class;
@@ -28,15 +120,16 @@ public class StudentCourseServlet extends BaseServlet<StudentCourse, StudentCour
         if (studentIdStr != null) {
             int studentId = Integer.parseInt(studentIdStr);
             List<StudentCourse> studentCourses = mapper.selectByStudentId(studentId);
-            out.print(gson.toJson(studentCourses));
+            writeJsonList(out, studentCourses);
         } else if (courseIdStr != null) {
             int courseId = Integer.parseInt(courseIdStr);
             List<StudentCourse> studentCourses = mapper.selectByCourseId(courseId);
-            out.print(gson.toJson(studentCourses));
+            writeJsonList(out, studentCourses);
+        } else if (isPageRequest(req)) {
+            writePage(out, mapper.selectPage(getIntParameter(req, "limit"), getIntParameter(req, "cursor")));
         } else {
-            // 如果没有提供参数，返回所有选课记录
-            List<StudentCourse> studentCourses = mapper.selectAll();
-            out.print(gson.toJson(studentCourses));
+            // 如果没有提供参数，流式返回所有选课记录
+            writeJsonArray(out, mapper::selectAll);
         }
     }
 
@@ -44,7 +137,7 @@ public class StudentCourseServlet extends BaseServlet<StudentCourse, StudentCour
     protected void handleGetById(int id, HttpServletRequest req, HttpServletResponse resp, PrintWriter out) throws Exception {
         StudentCourse studentCourse = mapper.selectById(id);
         if (studentCourse != null) {
-            out.print(gson.toJson(studentCourse));
+            writeJson(out, studentCourse);
         } else {
             sendErrorResponse(resp, out, HttpServletResponse.SC_NOT_FOUND, "未找到ID为" + id + "的学生课程记录");
         }
@@ -12,7 +12,7 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 
-@WebServlet("/api/students/*")
+@WebServlet(urlPatterns = "/api/students/*", asyncSupported = true)
 public class StudentServlet extends BaseServlet<Student, StudentMapper> {
 
     public StudentServlet() {
@@ -30,22 +30,28 @@ public class StudentServlet extends BaseServlet<Student, StudentMapper> {
         String minAgeStr = req.getParameter("minAge");
         String maxAgeStr = req.getParameter("maxAge");
 
+        if (isPageRequest(req)) {
+            // 分页查询，年龄范围可选
+            int minAge = minAgeStr != null ? Integer.parseInt(minAgeStr) : 0;
+            int maxAge = maxAgeStr != null ? Integer.parseInt(maxAgeStr) : Integer.MAX_VALUE;
+            writePage(out, mapper.selectStudentPage(minAge, maxAge,
+                    getIntParameter(req, "limit"), getIntParameter(req, "cursor")));
+            return;
+        }
+
         if (minAgeStr != null && maxAgeStr != null) {
             try {
                 int minAge = Integer.parseInt(minAgeStr);
                 int maxAge = Integer.parseInt(maxAgeStr);
                 List<Student> students = mapper.selectStudentsByAgeRange(minAge, maxAge);
-                out.print(gson.toJson(students));
+                writeJsonList(out, students);
             } catch (NumberFormatException e) {
                 sendErrorResponse(resp, out, HttpServletResponse.SC_BAD_REQUEST, "年龄参数格式不正确");
             }
         } else {
             // 如果没有提供年龄参数，返回所有学生
             List<Student> students = mapper.selectStudentsByAgeRange(0, Integer.MAX_VALUE);
-            for(Student student : students){
-                System.out.println(student.toString());
-            }
-            out.print(gson.toJson(students));
+            writeJsonList(out, students);
         }
     }
 
@@ -54,7 +60,7 @@ public class StudentServlet extends BaseServlet<Student, StudentMapper> {
         Student student = mapper.selectById(id);
 
         if (student != null) {
-            out.print(gson.toJson(student));
+            writeJson(out, student);
         } else {
             sendErrorResponse(resp, out, HttpServletResponse.SC_NOT_FOUND, "未找到ID为" + id + "的学生");
         }
@@ -64,7 +70,7 @@ public class StudentServlet extends BaseServlet<Student, StudentMapper> {
     protected Student handleInsert(Student student, HttpServletRequest req) throws Exception {
         try {
             // 不再尝试重新读取请求体，只使用已解析的 student 对象
-            System.out.println("解析后的 Student: " + student);
+            log.debug("解析后的 Student: {}", student);
 
             if (student.getEnrollmentDate() == null) {
                 throw new IllegalArgumentException("入学日期不能为空");
@@ -77,7 +83,7 @@ public class StudentServlet extends BaseServlet<Student, StudentMapper> {
                     student.getEnrollmentDate()
             );
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("添加学生失败", e);
             throw e;
         }
     }
@@ -86,7 +92,7 @@ public class StudentServlet extends BaseServlet<Student, StudentMapper> {
     protected Student handleUpdate(int id, Student student, HttpServletRequest req) throws Exception {
         try {
             // 使用已经解析好的student对象，不再重新读取请求体
-            System.out.println("更新操作解析后的学生数据: " + student);
+            log.debug("更新操作解析后的学生数据: {}", student);
 
             // 验证必要字段
             if (student.getName() == null || student.getName().isEmpty()) {
@@ -107,7 +113,7 @@ public class StudentServlet extends BaseServlet<Student, StudentMapper> {
                     student.getEnrollmentDate()
             );
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("更新学生失败", e);
             throw e;
         }
     }
@@ -1,5 +1,6 @@
 package servlet;
 
+import annotations.Transactional;
 import entity.Teacher;
 import mapper.TeacherMapper;
 
@@ -9,7 +10,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.PrintWriter;
 import java.util.List;
 
-@WebServlet("/api/teachers/*")
+@WebServlet(urlPatterns = "/api/teachers/*", asyncSupported = true)
 public class TeacherServlet extends BaseServlet<Teacher, TeacherMapper> {
 
     public TeacherServlet() {
@@ -25,8 +26,12 @@ public class TeacherServlet extends BaseServlet<Teacher, TeacherMapper> {
     protected void handleGetAll(HttpServletRequest req, HttpServletResponse resp, PrintWriter out) throws Exception {
         // 获取所有教师
         try {
+            if (isPageRequest(req)) {
+                writePage(out, mapper.selectTeacherPage(getIntParameter(req, "limit"), getIntParameter(req, "cursor")));
+                return;
+            }
             List<Teacher> teachers = mapper.selectAllTeachers();
-            out.print(gson.toJson(teachers));
+            writeJsonList(out, teachers);
         } catch (Exception e) {
             sendErrorResponse(resp, out, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "获取教师列表失败：" + e.getMessage());
         }
@@ -37,7 +42,7 @@ public class TeacherServlet extends BaseServlet<Teacher, TeacherMapper> {
         try {
             Teacher teacher = mapper.selectById(id);
             if (teacher != null) {
-                out.print(gson.toJson(teacher));
+                writeJson(out, teacher);
             } else {
                 sendErrorResponse(resp, out, HttpServletResponse.SC_NOT_FOUND, "未找到ID为" + id + "的教师");
             }
@@ -47,48 +52,43 @@ public class TeacherServlet extends BaseServlet<Teacher, TeacherMapper> {
     }
 
     @Override
+    @Transactional
     protected Teacher handleInsert(Teacher teacher, HttpServletRequest req) throws Exception {
         try {
-            // 打印实体类字段值
-            System.out.println("添加教师: ");
-            System.out.println("teacherId = " + teacher.getTeacherId());
-            System.out.println("name = " + teacher.getName());
-            System.out.println("gender = " + teacher.getGender());
-            System.out.println("title = " + teacher.getTitle());
+            log.debug("添加教师: {}", teacher);
             
-            Boolean success = mapper.insertTeacher(
+            Teacher inserted = mapper.insertTeacher(
                     teacher.getName(),
                     teacher.getGender(),
                     teacher.getTitle()
             );
             
-            System.out.println("插入结果: " + success);
+            log.debug("插入结果: {}", inserted);
             
-            if (success == null || !success) {
+            if (inserted == null || inserted.getTeacherId() == null) {
                 throw new Exception("添加教师失败：操作未成功完成");
             }
             
-            // 获取刚插入的教师记录
-            Teacher insertedTeacher = mapper.selectLastInsertedTeacher();
+            // 按生成的主键获取刚插入的教师记录
+            Teacher insertedTeacher = mapper.selectById(inserted.getTeacherId());
             if (insertedTeacher == null) {
                 throw new Exception("无法获取新添加的教师信息");
             }
             
             return insertedTeacher;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("添加教师失败", e);
             throw new Exception("添加教师失败: " + e.getMessage());
         }
     }
 
     @Override
+    @Transactional
     protected Teacher handleUpdate(int id, Teacher teacher, HttpServletRequest req) throws Exception {
         try {
-            // 打印更新参数
-            System.out.println("更新教师 - ID: " + id);
-            System.out.println("name = " + teacher.getName());
-            System.out.println("gender = " + teacher.getGender());
-            System.out.println("title = " + teacher.getTitle());
+            if (log.isDebugEnabled()) {
+                log.debug("更新教师 - ID: {}, 数据: {}", id, teacher);
+            }
             
             Boolean success = mapper.updateTeacher(
                     id,
@@ -97,7 +97,7 @@ public class TeacherServlet extends BaseServlet<Teacher, TeacherMapper> {
                     teacher.getTitle()
             );
             
-            System.out.println("更新结果: " + success);
+            log.debug("更新结果: {}", success);
             
             if (success == null || !success) {
                 throw new Exception("更新教师失败：操作未成功完成");
@@ -111,12 +111,13 @@ public class TeacherServlet extends BaseServlet<Teacher, TeacherMapper> {
             
             return updatedTeacher;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("更新教师失败", e);
             throw new Exception("更新教师失败: " + e.getMessage());
         }
     }
 
     @Override
+    @Transactional
     protected Teacher handleDelete(int id) throws Exception {
         try {
             // 先获取要删除的教师，用于返回
@@ -125,9 +126,10 @@ public class TeacherServlet extends BaseServlet<Teacher, TeacherMapper> {
                 throw new Exception("未找到ID为" + id + "的教师");
             }
             
-            System.out.println("删除教师 - ID: " + id);
             Boolean success = mapper.deleteTeacherById(id);
-            System.out.println("删除结果: " + success);
+            if (log.isDebugEnabled()) {
+                log.debug("删除教师 - ID: {}, 结果: {}", id, success);
+            }
             
             if (success == null || !success) {
                 throw new Exception("删除教师失败：操作未成功完成");
@@ -135,13 +137,14 @@ public class TeacherServlet extends BaseServlet<Teacher, TeacherMapper> {
             
             return teacherToDelete;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("删除教师失败", e);
             throw new Exception("删除教师失败: " + e.getMessage());
         }
     }
 
     // 发送错误响应
     protected void sendErrorResponse(HttpServletResponse resp, PrintWriter out, int statusCode, String message) {
+        abortIfCommitted(resp, message);
         resp.setStatus(statusCode);
         resp.setContentType("application/json;charset=UTF-8");
         out.print(gson.toJson(new ErrorResponse(statusCode, message)));
@@ -0,0 +1,652 @@
+package servlet.async;
+
+import utils.log.LogManager;
+import utils.log.Logger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 一次异步请求的处理过程
+ * 工作线程通过request()和response()返回的请求和响应处理请求，处理结束后调用complete()
+ * 超时或出错时由容器线程写出错误响应并结束请求，此后工作线程对响应的所有写操作都被丢弃，
+ * 对请求的读取（参数、请求头、请求体等）抛出异常，
+ * 避免读写已被容器回收、可能正在服务其他请求的请求和响应对象
+ *
+ * 超时响应按请求方法区分：可以安全重试的方法（GET、HEAD、OPTIONS、PUT、DELETE）返回503和Retry-After；
+ * POST等不幂等的方法返回504且不带Retry-After，客户端应先确认操作结果再决定是否重试
+ */
+public class AsyncExchange implements AsyncListener {
+    private static final Logger log = LogManager.getLogger(AsyncExchange.class);
+    // 请求属性：响应提交后工作线程处理失败的异常，派发回容器后由Servlet抛出
+    private static final String ABORT_ATTRIBUTE = AsyncExchange.class.getName() + ".abortError";
+    private final AsyncContext asyncContext;
+    private final HttpServletResponse response;
+    private final GuardedRequest guardedRequest;
+    private final GuardedResponse guardedResponse;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private final String timeoutBody;
+    private final String unsafeTimeoutBody;
+    private final boolean idempotent;
+    private volatile boolean detached;
+
+    /**
+     * @param asyncContext startAsync()返回的异步上下文
+     * @param timeoutMillis 超时时间，0表示不超时
+     * @param timeoutBody 可以安全重试的请求超时时返回的响应体
+     * @param unsafeTimeoutBody 不幂等的请求超时时返回的响应体
+     */
+    public AsyncExchange(AsyncContext asyncContext, long timeoutMillis, String timeoutBody, String unsafeTimeoutBody) {
+        this.asyncContext = asyncContext;
+        this.response = (HttpServletResponse) asyncContext.getResponse();
+        this.guardedRequest = new GuardedRequest((HttpServletRequest) asyncContext.getRequest());
+        this.guardedResponse = new GuardedResponse(response);
+        this.timeoutBody = timeoutBody;
+        this.unsafeTimeoutBody = unsafeTimeoutBody;
+        this.idempotent = isIdempotent(((HttpServletRequest) asyncContext.getRequest()).getMethod());
+        asyncContext.setTimeout(timeoutMillis);
+        asyncContext.addListener(this);
+    }
+
+    /**
+     * 工作线程使用的请求
+     */
+    public HttpServletRequest request() {
+        return guardedRequest;
+    }
+
+    /**
+     * 工作线程使用的响应
+     */
+    public HttpServletResponse response() {
+        return guardedResponse;
+    }
+
+    /**
+     * 请求是否已经结束（超时、出错或已完成），结束后不应再处理
+     */
+    public boolean isFinished() {
+        return detached;
+    }
+
+    /**
+     * 工作线程使用的请求所属的异步请求是否已经结束
+     * 供批量导入等长时间读取请求体的处理过程在读取每行、每段之前检查
+     * @param request 工作线程拿到的请求，可以是再次包装过的请求
+     * @return 请求来自request()且已经结束时返回true，其他请求返回false
+     */
+    public static boolean isFinished(ServletRequest request) {
+        AsyncExchange exchange = of(request);
+        return exchange != null && exchange.isFinished();
+    }
+
+    /**
+     * 取得工作线程使用的请求所属的异步请求
+     * @param request 工作线程拿到的请求，可以是再次包装过的请求
+     * @return 请求来自request()时返回对应的AsyncExchange，同步处理的请求返回null
+     */
+    public static AsyncExchange of(ServletRequest request) {
+        while (request instanceof ServletRequestWrapper) {
+            if (request instanceof GuardedRequest) {
+                return ((GuardedRequest) request).exchange();
+            }
+            request = ((ServletRequestWrapper) request).getRequest();
+        }
+        return null;
+    }
+
+    /**
+     * 在请求尚未结束时执行操作，用于提交事务
+     * 操作执行期间超时处理等待操作结束：请求在操作之前超时时操作不执行，
+     * 操作执行期间或之后超时时，超时响应一定在操作完成之后发出
+     * @param action 要执行的操作
+     * @return 操作已执行时返回true，请求已经结束、操作未执行时返回false
+     * @throws Exception 操作抛出的异常
+     */
+    public boolean runIfAttached(AttachedAction action) throws Exception {
+        lock.lock();
+        try {
+            if (detached) {
+                return false;
+            }
+            action.run();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 请求尚未结束时执行的操作
+     */
+    @FunctionalInterface
+    public interface AttachedAction {
+        void run() throws Exception;
+    }
+
+    /**
+     * 处理结束，结束异步请求，重复调用无效果
+     */
+    public void complete() {
+        lock.lock();
+        try {
+            if (!detached && completed.compareAndSet(false, true)) {
+                guardedResponse.flushWriter();
+                asyncContext.complete();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 不进入工作线程，直接返回错误响应并结束请求
+     * @param statusCode 状态码
+     * @param body 响应体
+     */
+    public void fail(int statusCode, String body) {
+        fail(statusCode, body, true);
+    }
+
+    private void fail(int statusCode, String body, boolean retryable) {
+        lock.lock();
+        try {
+            detached = true;
+            if (completed.compareAndSet(false, true)) {
+                writeError(statusCode, body, retryable);
+                asyncContext.complete();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 响应已开始输出后处理失败，中断响应
+     * 已提交的响应不能再修改状态码，正常结束会让客户端把截断的响应体当作完整的响应；
+     * 这里把请求派发回容器，由Servlet在容器线程上抛出getAbortError()返回的异常，容器对已提交的响应直接关闭连接
+     * @param error 处理失败的异常
+     */
+    public void abort(Throwable error) {
+        lock.lock();
+        try {
+            detached = true;
+            if (completed.compareAndSet(false, true)) {
+                asyncContext.getRequest().setAttribute(ABORT_ATTRIBUTE, error);
+                asyncContext.dispatch();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取得abort()派发回容器的请求上的异常
+     * @param request 容器传给Servlet的请求
+     * @return 异常，不是abort()派发的请求时返回null
+     */
+    public static Throwable getAbortError(HttpServletRequest request) {
+        if (request.getDispatcherType() != DispatcherType.ASYNC) {
+            return null;
+        }
+        return (Throwable) request.getAttribute(ABORT_ATTRIBUTE);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        if (idempotent) {
+            fail(HttpServletResponse.SC_SERVICE_UNAVAILABLE, timeoutBody, true);
+        } else {
+            fail(HttpServletResponse.SC_GATEWAY_TIMEOUT, unsafeTimeoutBody, false);
+        }
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        lock.lock();
+        try {
+            detached = true;
+            if (completed.compareAndSet(false, true)) {
+                asyncContext.complete();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        detached = true;
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+
+    /**
+     * 写出错误响应，响应已开始输出时只能截断
+     * @param retryable 是否带上Retry-After让客户端稍后重试
+     */
+    private void writeError(int statusCode, String body, boolean retryable) {
+        if (response.isCommitted()) {
+            return;
+        }
+        try {
+            response.reset();
+            response.setStatus(statusCode);
+            if (retryable) {
+                response.setHeader("Retry-After", "1");
+            }
+            response.setContentType("application/json;charset=UTF-8");
+            response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | IllegalStateException e) {
+            log.warn("Failed to write async error response: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 重复执行与执行一次效果相同、超时后可以直接重试的请求方法
+     */
+    private static boolean isIdempotent(String method) {
+        switch (method) {
+            case "GET":
+            case "HEAD":
+            case "OPTIONS":
+            case "PUT":
+            case "DELETE":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 请求已经结束时抛出异常，不再读取可能已被容器回收的请求对象
+     */
+    private void checkAttached() {
+        if (detached) {
+            throw new IllegalStateException("请求已结束，不能再读取请求");
+        }
+    }
+
+    /**
+     * 工作线程使用的请求包装
+     * 请求结束后读取参数、请求头、属性和请求体都抛出异常；
+     * 请求体的读取器和输入流在每次读取前检查，结束前取得的读取器在结束后也不能继续读取
+     */
+    private class GuardedRequest extends HttpServletRequestWrapper {
+        private BufferedReader reader;
+        private ServletInputStream inputStream;
+
+        GuardedRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        AsyncExchange exchange() {
+            return AsyncExchange.this;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            checkAttached();
+            if (reader == null) {
+                reader = new BufferedReader(new GuardedReader(super.getReader()));
+            }
+            return reader;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            checkAttached();
+            if (inputStream == null) {
+                inputStream = new GuardedInputStream(super.getInputStream());
+            }
+            return inputStream;
+        }
+
+        @Override
+        public String getParameter(String name) {
+            checkAttached();
+            return super.getParameter(name);
+        }
+
+        @Override
+        public Map<String, String[]> getParameterMap() {
+            checkAttached();
+            return super.getParameterMap();
+        }
+
+        @Override
+        public Enumeration<String> getParameterNames() {
+            checkAttached();
+            return super.getParameterNames();
+        }
+
+        @Override
+        public String[] getParameterValues(String name) {
+            checkAttached();
+            return super.getParameterValues(name);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            checkAttached();
+            return super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            checkAttached();
+            return super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            checkAttached();
+            return super.getHeaderNames();
+        }
+
+        @Override
+        public String getContentType() {
+            checkAttached();
+            return super.getContentType();
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            checkAttached();
+            return super.getCharacterEncoding();
+        }
+
+        @Override
+        public void setCharacterEncoding(String enc) throws UnsupportedEncodingException {
+            checkAttached();
+            super.setCharacterEncoding(enc);
+        }
+
+        @Override
+        public String getPathInfo() {
+            checkAttached();
+            return super.getPathInfo();
+        }
+
+        @Override
+        public String getRequestURI() {
+            checkAttached();
+            return super.getRequestURI();
+        }
+
+        @Override
+        public String getQueryString() {
+            checkAttached();
+            return super.getQueryString();
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            checkAttached();
+            return super.getAttribute(name);
+        }
+
+        @Override
+        public void setAttribute(String name, Object o) {
+            checkAttached();
+            super.setAttribute(name, o);
+        }
+    }
+
+    /**
+     * 受保护的请求体读取器，请求结束后读取抛出IOException
+     */
+    private class GuardedReader extends Reader {
+        private final Reader target;
+
+        GuardedReader(Reader target) {
+            this.target = target;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            checkReadable();
+            return target.read(cbuf, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!detached) {
+                target.close();
+            }
+        }
+    }
+
+    /**
+     * 受保护的请求体输入流，请求结束后读取抛出IOException
+     */
+    private class GuardedInputStream extends ServletInputStream {
+        private final ServletInputStream target;
+
+        GuardedInputStream(ServletInputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkReadable();
+            return target.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkReadable();
+            return target.read(b, off, len);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return detached || target.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return !detached && target.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            target.setReadListener(readListener);
+        }
+    }
+
+    /**
+     * 读取请求体之前检查请求是否已经结束
+     */
+    private void checkReadable() throws IOException {
+        if (detached) {
+            throw new IOException("请求已结束，停止读取请求体");
+        }
+    }
+
+    /**
+     * 工作线程使用的响应包装
+     * 每次写操作都在锁内检查请求是否已被超时处理接管，接管后的写操作直接丢弃
+     */
+    private class GuardedResponse extends HttpServletResponseWrapper {
+        private PrintWriter writer;
+        private ServletOutputStream outputStream;
+
+        GuardedResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                Charset charset = Charset.forName(getCharacterEncoding());
+                // PrintWriter的flush只把字符编码后写入响应缓冲区，不提交响应；
+                // 响应体在complete()时整体不超过缓冲区的，容器仍能设置Content-Length并按压缩阈值判断
+                OutputStream out = new GuardedOutputStream(response.getOutputStream(), false);
+                Writer target = new OutputStreamWriter(out, charset);
+                writer = new PrintWriter(target, false);
+            }
+            return writer;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new GuardedOutputStream(response.getOutputStream(), true);
+            }
+            return outputStream;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            flushWriter();
+            guarded(() -> response.flushBuffer());
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            if (!detached) {
+                super.setStatus(sc);
+            }
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!detached) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!detached) {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setContentType(String type) {
+            if (!detached) {
+                super.setContentType(type);
+            }
+        }
+
+        @Override
+        public void setCharacterEncoding(String charset) {
+            if (!detached) {
+                super.setCharacterEncoding(charset);
+            }
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            guarded(() -> response.sendError(sc, msg));
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            guarded(() -> response.sendError(sc));
+        }
+
+        /**
+         * 把PrintWriter中缓冲的字符写到底层输出流
+         */
+        void flushWriter() {
+            if (writer != null) {
+                writer.flush();
+            }
+        }
+    }
+
+    /**
+     * 在锁内执行一次写操作，请求已被接管时丢弃
+     */
+    private void guarded(IoAction action) throws IOException {
+        lock.lock();
+        try {
+            if (!detached) {
+                action.run();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    /**
+     * 受保护的输出流
+     */
+    private class GuardedOutputStream extends ServletOutputStream {
+        private final ServletOutputStream target;
+        private final boolean flushTarget;
+
+        /**
+         * @param target 响应的输出流
+         * @param flushTarget flush()时是否提交响应，PrintWriter使用的输出流为false
+         */
+        GuardedOutputStream(ServletOutputStream target, boolean flushTarget) {
+            this.target = target;
+            this.flushTarget = flushTarget;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            guarded(() -> target.write(b));
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            guarded(() -> target.write(b, off, len));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (flushTarget) {
+                guarded(target::flush);
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return target.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            target.setWriteListener(writeListener);
+        }
+    }
+}
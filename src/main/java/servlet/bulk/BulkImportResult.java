@@ -0,0 +1,65 @@
+package servlet.bulk;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量导入结果
+ * 失败明细最多保留MAX_REPORTED_FAILURES条，超出部分只计数，保证大请求的内存占用不随失败行数增长
+ */
+@Getter
+public class BulkImportResult {
+    public static final int MAX_REPORTED_FAILURES = 1000;
+
+    /** 读取到的数据行数 */
+    private int total;
+    /** 成功插入的行数 */
+    private int inserted;
+    /** 失败的行数 */
+    private int failed;
+    /** 失败明细，按行号排列 */
+    private final List<Failure> failures = new ArrayList<>();
+    /** 失败明细是否因超出上限被截断 */
+    private boolean truncated;
+    /** 导致导入中止的错误，正常结束时为null */
+    private String error;
+
+    void addRow() {
+        total++;
+    }
+
+    void addInserted(int count) {
+        inserted += count;
+    }
+
+    void addFailure(int row, String message) {
+        failed++;
+        if (failures.size() < MAX_REPORTED_FAILURES) {
+            failures.add(new Failure(row, message));
+        } else {
+            truncated = true;
+        }
+    }
+
+    void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * 单行失败明细
+     */
+    @Getter
+    public static class Failure {
+        /** 行号，从1开始，CSV不计表头 */
+        private final int row;
+        /** 失败原因 */
+        private final String error;
+
+        Failure(int row, String error) {
+            this.row = row;
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package servlet.bulk;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 批量导入执行器
+ * 从RowSource逐行读取实体，攒够chunkSize行后整段批量插入，内存中最多只保留一段数据
+ * 1. 每段通过批量插入在一个事务中提交
+ * 2. 整段插入失败时事务回滚，再逐行插入这一段，找出失败的行并记录原因
+ * 3. 单行解析或校验失败时跳过该行，记录原因后继续
+ * 4. 请求被取消（例如异步请求超时）后不再读取和提交，已提交的段不会回滚
+ * @param <T> 实体类型
+ */
+public class BulkImporter<T> {
+    /**
+     * 批量插入一段数据，要求在一个事务中完成
+     */
+    @FunctionalInterface
+    public interface BatchInserter<T> {
+        List<T> insert(List<T> rows) throws Exception;
+    }
+
+    /**
+     * 插入单行数据，返回null表示没有插入
+     */
+    @FunctionalInterface
+    public interface RowInserter<T> {
+        T insert(T row) throws Exception;
+    }
+
+    /**
+     * 校验单行数据
+     */
+    @FunctionalInterface
+    public interface RowValidator<T> {
+        /**
+         * @param row 实体对象
+         * @return 校验失败的原因，通过时返回null
+         */
+        String validate(T row);
+    }
+
+    private final int chunkSize;
+    private final BatchInserter<T> batchInserter;
+    private final RowInserter<T> rowInserter;
+    private final RowValidator<T> validator;
+    private final BooleanSupplier cancelled;
+
+    /**
+     * @param chunkSize 每段的行数
+     * @param batchInserter 批量插入一段数据
+     * @param rowInserter 整段失败时逐行插入
+     * @param validator 单行校验，可以为null
+     * @param cancelled 导入是否已被取消，每读取一行、提交一段之前检查
+     */
+    public BulkImporter(int chunkSize, BatchInserter<T> batchInserter, RowInserter<T> rowInserter,
+                        RowValidator<T> validator, BooleanSupplier cancelled) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        this.batchInserter = batchInserter;
+        this.rowInserter = rowInserter;
+        this.validator = validator;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * 执行导入
+     * 请求体格式错误或导入被取消时停止读取，已提交的段不会回滚，错误原因记录在结果的error中
+     * @param source 数据行来源
+     * @return 导入结果
+     */
+    public BulkImportResult run(RowSource<T> source) {
+        BulkImportResult result = new BulkImportResult();
+        List<T> chunk = new ArrayList<>(chunkSize);
+        List<Integer> rowNumbers = new ArrayList<>(chunkSize);
+        try {
+            while (!isCancelled(result) && source.hasNext()) {
+                // 1. 读取并校验一行
+                result.addRow();
+                int rowNumber = result.getTotal();
+                T row;
+                try {
+                    row = source.next();
+                } catch (RowParseException e) {
+                    result.addFailure(rowNumber, e.getMessage());
+                    continue;
+                }
+                String invalid = validator != null ? validator.validate(row) : null;
+                if (invalid != null) {
+                    result.addFailure(rowNumber, invalid);
+                    continue;
+                }
+
+                // 2. 攒够一段后提交
+                chunk.add(row);
+                rowNumbers.add(rowNumber);
+                if (chunk.size() >= chunkSize) {
+                    flush(chunk, rowNumbers, result);
+                }
+            }
+        } catch (IOException e) {
+            if (!isCancelled(result)) {
+                result.setError(e.getMessage());
+            }
+        }
+        // 3. 提交最后不足一段的数据，已取消时丢弃
+        if (!isCancelled(result)) {
+            flush(chunk, rowNumbers, result);
+        }
+        return result;
+    }
+
+    /**
+     * 提交一段数据，整段失败时逐行重试
+     */
+    private void flush(List<T> chunk, List<Integer> rowNumbers, BulkImportResult result) {
+        if (chunk.isEmpty() || isCancelled(result)) {
+            return;
+        }
+        try {
+            batchInserter.insert(chunk);
+            result.addInserted(chunk.size());
+        } catch (Exception batchError) {
+            for (int i = 0; i < chunk.size() && !isCancelled(result); i++) {
+                try {
+                    if (rowInserter.insert(chunk.get(i)) != null) {
+                        result.addInserted(1);
+                    } else {
+                        result.addFailure(rowNumbers.get(i), "插入失败");
+                    }
+                } catch (Exception e) {
+                    result.addFailure(rowNumbers.get(i), rootMessage(e));
+                }
+            }
+        }
+        chunk.clear();
+        rowNumbers.clear();
+    }
+
+    /**
+     * 导入是否已被取消，取消时在结果中记录原因
+     */
+    private boolean isCancelled(BulkImportResult result) {
+        if (cancelled == null || !cancelled.getAsBoolean()) {
+            return false;
+        }
+        if (result.getError() == null) {
+            result.setError("导入已取消");
+        }
+        return true;
+    }
+
+    /**
+     * 取出Mapper代理包装的原始异常信息
+     */
+    private static String rootMessage(Throwable e) {
+        while ((e instanceof UndeclaredThrowableException || e instanceof InvocationTargetException)
+                && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,134 @@
+package servlet.bulk;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 从CSV中逐行读取实体
+ * 第一行为表头，列名与实体JSON字段名一致（例如studentId,courseId,score,semester）
+ * 每行先转换为JsonObject，再交给Gson转换为实体，类型转换规则与JSON导入一致
+ * 支持双引号包裹的字段和""转义，空字段视为null
+ * @param <T> 实体类型
+ */
+public class CsvRowSource<T> implements RowSource<T> {
+    private final BufferedReader reader;
+    private final Gson gson;
+    private final Class<T> entityClass;
+    private List<String> header;
+    private List<String> nextRecord;
+
+    public CsvRowSource(Reader reader, Gson gson, Class<T> entityClass) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        this.gson = gson;
+        this.entityClass = entityClass;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        // 1. 第一次调用时读取表头
+        if (header == null) {
+            header = readRecord();
+            if (header == null) {
+                header = new ArrayList<>();
+                return false;
+            }
+        }
+        // 2. 预读下一行
+        if (nextRecord == null) {
+            nextRecord = readRecord();
+        }
+        return nextRecord != null;
+    }
+
+    @Override
+    public T next() throws RowParseException, IOException {
+        if (!hasNext()) {
+            throw new IOException("CSV没有更多数据");
+        }
+        List<String> record = nextRecord;
+        nextRecord = null;
+        if (record.size() > header.size()) {
+            throw new RowParseException("列数(" + record.size() + ")多于表头列数(" + header.size() + ")");
+        }
+
+        // 1. 按表头把每列转换为JSON字段
+        JsonObject object = new JsonObject();
+        for (int i = 0; i < record.size(); i++) {
+            String value = record.get(i);
+            object.add(header.get(i), value.isEmpty() ? JsonNull.INSTANCE : new JsonPrimitive(value));
+        }
+        // 2. 交给Gson转换为实体
+        try {
+            return gson.fromJson(object, entityClass);
+        } catch (JsonParseException | NumberFormatException e) {
+            throw new RowParseException("字段格式错误: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 读取一条CSV记录，跳过空行
+     * @return 字段列表，读到末尾时返回null
+     * @throws IOException 如果读取失败或引号没有闭合
+     */
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean empty = true;
+        int c;
+        while ((c = reader.read()) != -1) {
+            if (quoted) {
+                if (c != '"') {
+                    field.append((char) c);
+                    continue;
+                }
+                // 引号内的""表示一个引号，单个引号结束引用
+                reader.mark(1);
+                if (reader.read() == '"') {
+                    field.append('"');
+                } else {
+                    reader.reset();
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+                empty = false;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+                empty = false;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                if (!empty || field.length() > 0) {
+                    fields.add(field.toString().trim());
+                    return fields;
+                }
+            } else {
+                field.append((char) c);
+                empty = false;
+            }
+        }
+        if (quoted) {
+            throw new IOException("CSV引号没有闭合");
+        }
+        if (empty && field.length() == 0) {
+            return null;
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+}
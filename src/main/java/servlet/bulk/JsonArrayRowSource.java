@@ -0,0 +1,65 @@
+package servlet.bulk;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * 从JSON数组中逐个读取实体
+ * 用JsonReader流式解析，每次只把一个数组元素解析为JsonElement，再转换为实体
+ * 单个元素的字段类型错误只影响这一行，JSON语法错误会终止导入
+ * @param <T> 实体类型
+ */
+public class JsonArrayRowSource<T> implements RowSource<T> {
+    private final JsonReader reader;
+    private final Gson gson;
+    private final Class<T> entityClass;
+    private boolean started;
+
+    public JsonArrayRowSource(Reader reader, Gson gson, Class<T> entityClass) {
+        this.reader = new JsonReader(reader);
+        this.gson = gson;
+        this.entityClass = entityClass;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        // 1. 第一次调用时进入数组
+        if (!started) {
+            started = true;
+            if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                throw new IOException("请求体必须是JSON数组");
+            }
+            reader.beginArray();
+        }
+        // 2. 数组结束后不再有数据
+        if (reader.peek() == JsonToken.END_ARRAY) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public T next() throws RowParseException, IOException {
+        JsonElement element;
+        try {
+            element = JsonParser.parseReader(reader);
+        } catch (JsonParseException e) {
+            throw new IOException("JSON格式错误: " + e.getMessage(), e);
+        }
+        if (!element.isJsonObject()) {
+            throw new RowParseException("数组元素必须是JSON对象");
+        }
+        try {
+            return gson.fromJson(element, entityClass);
+        } catch (JsonParseException | NumberFormatException e) {
+            throw new RowParseException("字段格式错误: " + e.getMessage(), e);
+        }
+    }
+}
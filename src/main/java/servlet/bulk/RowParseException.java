@@ -0,0 +1,15 @@
+package servlet.bulk;
+
+/**
+ * 单行数据解析或校验失败
+ * 只影响当前行，导入会跳过该行继续进行
+ */
+public class RowParseException extends Exception {
+    public RowParseException(String message) {
+        super(message);
+    }
+
+    public RowParseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
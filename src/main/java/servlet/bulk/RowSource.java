@@ -0,0 +1,25 @@
+package servlet.bulk;
+
+import java.io.IOException;
+
+/**
+ * 批量导入的数据行来源
+ * 从请求体中逐行读取实体，不会把整个请求体读入内存
+ * @param <T> 实体类型
+ */
+public interface RowSource<T> {
+    /**
+     * 是否还有下一行
+     * @return 还有数据时返回true
+     * @throws IOException 如果读取失败或请求体格式错误，导入无法继续
+     */
+    boolean hasNext() throws IOException;
+
+    /**
+     * 读取下一行
+     * @return 实体对象
+     * @throws RowParseException 如果这一行无法转换为实体，跳过该行后可以继续读取
+     * @throws IOException 如果读取失败或请求体格式错误，导入无法继续
+     */
+    T next() throws RowParseException, IOException;
+}
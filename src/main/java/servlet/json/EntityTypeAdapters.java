@@ -0,0 +1,325 @@
+package servlet.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import entity.Course;
+import entity.Student;
+import entity.StudentCourse;
+import entity.Teacher;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * entity包中实体的TypeAdapter
+ * 直接调用getter/setter读写属性，属性名使用预先定义的常量，不经过Gson的ReflectiveTypeAdapterFactory；
+ * 输出的属性名、顺序和格式与反射方式相同（属性名为@SerializedName或字段名），读取时忽略未知属性
+ *
+ * 新增实体或修改实体字段时需要同步修改这里的适配器
+ */
+public final class EntityTypeAdapters implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType == Student.class) {
+            return (TypeAdapter<T>) new StudentAdapter(gson.getAdapter(Date.class)).nullSafe();
+        } else if (rawType == Teacher.class) {
+            return (TypeAdapter<T>) new TeacherAdapter().nullSafe();
+        } else if (rawType == Course.class) {
+            return (TypeAdapter<T>) new CourseAdapter().nullSafe();
+        } else if (rawType == StudentCourse.class) {
+            return (TypeAdapter<T>) new StudentCourseAdapter().nullSafe();
+        }
+        return null;
+    }
+
+    /**
+     * 学生
+     */
+    private static final class StudentAdapter extends TypeAdapter<Student> {
+        private static final String STUDENT_ID = "studentId";
+        private static final String NAME = "name";
+        private static final String GENDER = "gender";
+        private static final String AGE = "age";
+        private static final String ENROLLMENT_DATE = "enrollmentDate";
+
+        // 不是yyyy-MM-dd格式的日期交给Gson配置的日期适配器解析，保持原来的兼容性
+        private final TypeAdapter<Date> dateAdapter;
+
+        StudentAdapter(TypeAdapter<Date> dateAdapter) {
+            this.dateAdapter = dateAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, Student value) throws IOException {
+            out.beginObject();
+            out.name(STUDENT_ID).value(value.getStudentId());
+            out.name(NAME).value(value.getName());
+            out.name(GENDER).value(value.getGender());
+            out.name(AGE).value(value.getAge());
+            out.name(ENROLLMENT_DATE);
+            writeDate(out, value.getEnrollmentDate());
+            out.endObject();
+        }
+
+        @Override
+        public Student read(JsonReader in) throws IOException {
+            Student student = new Student();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case STUDENT_ID:
+                        student.setStudentId(readInteger(in));
+                        break;
+                    case NAME:
+                        student.setName(readString(in));
+                        break;
+                    case GENDER:
+                        student.setGender(readString(in));
+                        break;
+                    case AGE:
+                        student.setAge(readInteger(in));
+                        break;
+                    case ENROLLMENT_DATE:
+                        student.setEnrollmentDate(readDate(in, dateAdapter));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return student;
+        }
+    }
+
+    /**
+     * 教师
+     */
+    private static final class TeacherAdapter extends TypeAdapter<Teacher> {
+        private static final String TEACHER_ID = "teacherId";
+        private static final String NAME = "name";
+        private static final String GENDER = "gender";
+        private static final String TITLE = "title";
+
+        @Override
+        public void write(JsonWriter out, Teacher value) throws IOException {
+            out.beginObject();
+            out.name(TEACHER_ID).value(value.getTeacherId());
+            out.name(NAME).value(value.getName());
+            out.name(GENDER).value(value.getGender());
+            out.name(TITLE).value(value.getTitle());
+            out.endObject();
+        }
+
+        @Override
+        public Teacher read(JsonReader in) throws IOException {
+            Teacher teacher = new Teacher();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case TEACHER_ID:
+                        teacher.setTeacherId(readInteger(in));
+                        break;
+                    case NAME:
+                        teacher.setName(readString(in));
+                        break;
+                    case GENDER:
+                        teacher.setGender(readString(in));
+                        break;
+                    case TITLE:
+                        teacher.setTitle(readString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return teacher;
+        }
+    }
+
+    /**
+     * 课程
+     */
+    private static final class CourseAdapter extends TypeAdapter<Course> {
+        private static final String COURSE_ID = "courseId";
+        private static final String COURSE_NAME = "courseName";
+        private static final String CREDIT = "credit";
+        private static final String TEACHER_ID = "teacherId";
+
+        @Override
+        public void write(JsonWriter out, Course value) throws IOException {
+            out.beginObject();
+            out.name(COURSE_ID).value(value.getCourseId());
+            out.name(COURSE_NAME).value(value.getCourseName());
+            out.name(CREDIT).value(value.getCredit());
+            out.name(TEACHER_ID).value(value.getTeacherId());
+            out.endObject();
+        }
+
+        @Override
+        public Course read(JsonReader in) throws IOException {
+            Course course = new Course();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case COURSE_ID:
+                        course.setCourseId(readInteger(in));
+                        break;
+                    case COURSE_NAME:
+                        course.setCourseName(readString(in));
+                        break;
+                    case CREDIT:
+                        course.setCredit(readInteger(in));
+                        break;
+                    case TEACHER_ID:
+                        course.setTeacherId(readInteger(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return course;
+        }
+    }
+
+    /**
+     * 选课记录
+     */
+    private static final class StudentCourseAdapter extends TypeAdapter<StudentCourse> {
+        private static final String ID = "id";
+        private static final String STUDENT_ID = "studentId";
+        private static final String COURSE_ID = "courseId";
+        private static final String SCORE = "score";
+        private static final String SEMESTER = "semester";
+
+        @Override
+        public void write(JsonWriter out, StudentCourse value) throws IOException {
+            out.beginObject();
+            out.name(ID).value(value.getId());
+            out.name(STUDENT_ID).value(value.getStudentId());
+            out.name(COURSE_ID).value(value.getCourseId());
+            out.name(SCORE).value(value.getScore());
+            out.name(SEMESTER).value(value.getSemester());
+            out.endObject();
+        }
+
+        @Override
+        public StudentCourse read(JsonReader in) throws IOException {
+            StudentCourse studentCourse = new StudentCourse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case ID:
+                        studentCourse.setId(readInteger(in));
+                        break;
+                    case STUDENT_ID:
+                        studentCourse.setStudentId(readInteger(in));
+                        break;
+                    case COURSE_ID:
+                        studentCourse.setCourseId(readInteger(in));
+                        break;
+                    case SCORE:
+                        studentCourse.setScore(readInteger(in));
+                        break;
+                    case SEMESTER:
+                        studentCourse.setSemester(readString(in));
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return studentCourse;
+        }
+    }
+
+    /**
+     * 读取整数，与Gson内置的Integer适配器相同：接受数字和数字字符串，格式错误时抛出JsonSyntaxException
+     */
+    private static Integer readInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * 读取字符串，与Gson内置的String适配器相同：布尔值转换为"true"/"false"，数字按原文读取
+     */
+    private static String readString(JsonReader in) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return token == JsonToken.BOOLEAN ? Boolean.toString(in.nextBoolean()) : in.nextString();
+    }
+
+    /**
+     * 按yyyy-MM-dd输出日期，使用系统默认时区，与Gson的setDateFormat("yyyy-MM-dd")相同，
+     * 但不经过加锁的SimpleDateFormat；java.sql.Date也按毫秒数换算
+     */
+    private static void writeDate(JsonWriter out, Date date) throws IOException {
+        if (date == null) {
+            out.nullValue();
+            return;
+        }
+        out.value(Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDate().toString());
+    }
+
+    /**
+     * 读取日期，yyyy-MM-dd格式直接解析为当天零点，其余格式交给Gson配置的日期适配器
+     */
+    private static Date readDate(JsonReader in, TypeAdapter<Date> dateAdapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String text = in.nextString();
+        if (isIsoDate(text)) {
+            try {
+                return Date.from(LocalDate.parse(text).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            } catch (DateTimeException e) {
+                // 例如2月30日，交给宽松解析的日期适配器
+            }
+        }
+        return dateAdapter.fromJsonTree(new JsonPrimitive(text));
+    }
+
+    private static boolean isIsoDate(String text) {
+        if (text.length() != 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return false;
+        }
+        for (int i = 0; i < 10; i++) {
+            char c = text.charAt(i);
+            if (i != 4 && i != 7 && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,42 @@
+package servlet.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import static com.google.gson.FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES;
+
+/**
+ * 所有Servlet共用的Gson实例
+ * 请求解析和响应输出使用同一份配置；entity包中的实体使用EntityTypeAdapters中预先写好的适配器，
+ * 其余类型（错误信息、批量导入结果等）仍由Gson按反射处理
+ */
+public final class Gsons {
+    // 日期的输出格式，EntityTypeAdapters按同样的格式输出
+    public static final String DATE_PATTERN = "yyyy-MM-dd";
+
+    private static final Gson SHARED = reflectiveBuilder()
+            .registerTypeAdapterFactory(new EntityTypeAdapters())
+            .create();
+
+    private Gsons() {
+    }
+
+    /**
+     * 获取共用的Gson实例，Gson是线程安全的
+     * @return Gson实例
+     */
+    public static Gson shared() {
+        return SHARED;
+    }
+
+    /**
+     * 共用配置但不注册实体适配器的GsonBuilder，用于对比反射方式的基准测试
+     * @return GsonBuilder
+     */
+    public static GsonBuilder reflectiveBuilder() {
+        return new GsonBuilder()
+                .setFieldNamingPolicy(LOWER_CASE_WITH_UNDERSCORES)
+                .setDateFormat(DATE_PATTERN)
+                .serializeNulls();
+    }
+}
@@ -0,0 +1,192 @@
+package servlet.json;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import utils.AppConfig;
+import utils.VirtualThreads;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 响应JSON的输出管道
+ * 用预先取得的TypeAdapter把对象直接序列化到JsonWriter，不生成中间的JSON字符串；
+ * JsonWriter写入复用的字符缓冲区，缓冲区满或序列化结束时整块写入响应
+ *
+ * 平台线程模式下每个线程复用一个缓冲区（ThreadLocal），线程数固定，缓冲区总量为线程数乘以缓冲区大小；
+ * 虚拟线程模式下每个请求一个新线程，ThreadLocal中的缓冲区只用一次就随线程丢弃，
+ * 因此改为从容量为json.bufferPoolSize的共享池中借用：池空时临时分配，归还时池满则丢弃，
+ * 保留的缓冲区总量不超过池容量，代价是每次借还经过一次并发队列操作
+ *
+ * 序列化失败时尚未写入响应的内容被丢弃，调用方仍可以输出错误响应；
+ * 输出超过一个缓冲区（例如流式查询的大数组）后出错只能中断输出
+ */
+public final class JsonOutput {
+    // 每次写入响应的字符数
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private static final ThreadLocal<BufferedJsonTarget> BUFFERS = ThreadLocal.withInitial(BufferedJsonTarget::new);
+    // 虚拟线程模式下共享的缓冲区池，平台线程模式下为null
+    private static final BlockingQueue<BufferedJsonTarget> POOL = VirtualThreads.isEnabled()
+            ? new ArrayBlockingQueue<>(Math.max(AppConfig.getInt("json.bufferPoolSize",
+                    Runtime.getRuntime().availableProcessors() * 2), 1))
+            : null;
+
+    private JsonOutput() {
+    }
+
+    /**
+     * 序列化一个对象并写入响应
+     * @param gson 提供输出格式（是否输出null、HTML转义等）的Gson实例
+     * @param out 响应输出流
+     * @param adapter 对象类型的TypeAdapter
+     * @param value 要输出的对象
+     * @param <V> 对象类型
+     * @throws IOException 如果序列化或输出失败
+     */
+    public static <V> void write(Gson gson, Writer out, TypeAdapter<V> adapter, V value) throws IOException {
+        write(gson, out, writer -> adapter.write(writer, value));
+    }
+
+    /**
+     * 在同一个JsonWriter上执行一组写操作并写入响应，用于分页对象、流式数组等需要逐项输出的结构
+     * @param gson 提供输出格式的Gson实例
+     * @param out 响应输出流
+     * @param body 写操作
+     * @throws IOException 如果序列化或输出失败
+     */
+    public static void write(Gson gson, Writer out, JsonBody body) throws IOException {
+        BufferedJsonTarget buffer = acquire();
+        buffer.target = out;
+        boolean completed = false;
+        try {
+            // 与gson.toJson()的输出一致：newJsonWriter()不设置HTML转义和宽松模式，需要单独设置
+            JsonWriter writer = gson.newJsonWriter(buffer);
+            writer.setHtmlSafe(gson.htmlSafe());
+            writer.setLenient(true);
+            body.write(writer);
+            buffer.flush();
+            completed = true;
+        } catch (Exception e) {
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new IOException(e);
+        } finally {
+            if (!completed) {
+                buffer.discard();
+            }
+            buffer.target = null;
+            release(buffer);
+        }
+    }
+
+    /**
+     * 取得一个空闲的缓冲区
+     */
+    private static BufferedJsonTarget acquire() {
+        // 1. 虚拟线程模式：从共享池借用，池空时临时分配
+        if (POOL != null) {
+            BufferedJsonTarget buffer = POOL.poll();
+            return buffer != null ? buffer : new BufferedJsonTarget();
+        }
+        // 2. 平台线程模式：使用线程自己的缓冲区，嵌套调用（例如在写操作中再次输出）时不能复用同一个缓冲区
+        BufferedJsonTarget buffer = BUFFERS.get();
+        return buffer.target == null ? buffer : new BufferedJsonTarget();
+    }
+
+    /**
+     * 归还缓冲区，只有虚拟线程模式下需要放回共享池，池满时丢弃
+     */
+    private static void release(BufferedJsonTarget buffer) {
+        if (POOL != null) {
+            POOL.offer(buffer);
+        }
+    }
+
+    /**
+     * JsonWriter上的一组写操作
+     */
+    @FunctionalInterface
+    public interface JsonBody {
+        void write(JsonWriter writer) throws Exception;
+    }
+
+    /**
+     * JsonWriter的写入目标
+     * 字符先写入缓冲区，满了以后整块写到响应，避免JsonWriter的每个小写入都经过PrintWriter的同步和检查
+     */
+    private static final class BufferedJsonTarget extends Writer {
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int count;
+        private Writer target;
+
+        @Override
+        public void write(int c) throws IOException {
+            if (count == buffer.length) {
+                flushBuffer();
+            }
+            buffer[count++] = (char) c;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            if (length >= buffer.length) {
+                flushBuffer();
+                target.write(chars, offset, length);
+                return;
+            }
+            if (length > buffer.length - count) {
+                flushBuffer();
+            }
+            System.arraycopy(chars, offset, buffer, count, length);
+            count += length;
+        }
+
+        @Override
+        public void write(String str, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (count == buffer.length) {
+                    flushBuffer();
+                }
+                int n = Math.min(length, buffer.length - count);
+                str.getChars(offset, offset + n, buffer, count);
+                count += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        /**
+         * 只把缓冲区写到响应，不刷新响应本身：响应在请求结束时由容器提交，小响应仍然可以带Content-Length
+         */
+        @Override
+        public void flush() throws IOException {
+            flushBuffer();
+        }
+
+        /**
+         * JsonWriter.close()不关闭响应输出流
+         */
+        @Override
+        public void close() {
+        }
+
+        private void flushBuffer() throws IOException {
+            if (count > 0) {
+                target.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+
+        private void discard() {
+            count = 0;
+        }
+    }
+}
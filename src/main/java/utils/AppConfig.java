@@ -0,0 +1,87 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * 应用配置读取类
+ * 按以下优先级查找配置项：
+ * 1. JVM系统属性（-Dkey=value）
+ * 2. classpath下的application.properties
+ * 3. 调用方给出的默认值
+ */
+public final class AppConfig {
+    private static final String CONFIG_FILE = "application.properties";
+    private static final Properties FILE_PROPERTIES = loadFileProperties();
+
+    private AppConfig() {
+    }
+
+    /**
+     * 加载classpath下的配置文件，文件不存在时返回空配置
+     * @return 配置文件中的属性
+     */
+    private static Properties loadFileProperties() {
+        Properties properties = new Properties();
+        try (InputStream in = AppConfig.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            // 日志级别本身由配置决定，加载配置时日志系统还不可用
+            System.err.println("Warning: Failed to load " + CONFIG_FILE + ": " + e.getMessage());
+        }
+        return properties;
+    }
+
+    /**
+     * 获取字符串配置
+     * @param key 配置项名称
+     * @param defaultValue 默认值
+     * @return 配置值
+     */
+    public static String get(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = FILE_PROPERTIES.getProperty(key);
+        }
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = get(key, null);
+        return value != null ? Long.parseLong(value) : defaultValue;
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+
+    /**
+     * 获取指定前缀下的所有配置项（去掉前缀后返回）
+     * @param prefix 配置项前缀，例如 "db.property."
+     * @return 去掉前缀后的属性集合
+     */
+    public static Properties getWithPrefix(String prefix) {
+        Properties result = new Properties();
+        for (String name : FILE_PROPERTIES.stringPropertyNames()) {
+            if (name.startsWith(prefix)) {
+                result.setProperty(name.substring(prefix.length()), FILE_PROPERTIES.getProperty(name).trim());
+            }
+        }
+        // 系统属性覆盖配置文件中的同名项
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(prefix)) {
+                result.setProperty(name.substring(prefix.length()), System.getProperty(name).trim());
+            }
+        }
+        return result;
+    }
+}
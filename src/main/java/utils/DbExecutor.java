@@ -0,0 +1,71 @@
+package utils;
+
+import utils.strategy.AbstractSqlStrategy;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 执行数据库操作的专用线程池
+ * 异步Servlet把Mapper调用交给这里执行，Tomcat的请求线程不会被慢查询阻塞
+ * 线程数默认等于连接池的最大连接数，工作线程借连接时不会再排队；
+ * 等待队列有上限，队列满时拒绝任务，由调用方返回503
+ *
+ * 配置项：
+ * async.threads         工作线程数，默认为db.pool.maxPoolSize
+ * async.queueCapacity   等待队列长度，默认100
+ */
+public final class DbExecutor {
+    private DbExecutor() {
+    }
+
+    /**
+     * 线程池持有类，第一次提交任务时才创建线程池
+     */
+    private static class ExecutorHolder {
+        private static final ThreadPoolExecutor INSTANCE = create();
+    }
+
+    private static ThreadPoolExecutor create() {
+        int threads = AppConfig.getInt("async.threads",
+                AbstractSqlStrategy.getDataSource().getConfig().getMaxPoolSize());
+        int queueCapacity = AppConfig.getInt("async.queueCapacity", 100);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+                r -> {
+                    Thread thread = new Thread(r, "db-worker-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 提交任务
+     * @param task 要执行的任务
+     * @throws RejectedExecutionException 如果等待队列已满
+     */
+    public static void submit(Runnable task) {
+        ExecutorHolder.INSTANCE.execute(task);
+    }
+
+    /**
+     * 正在执行任务的线程数
+     */
+    public static int getActiveCount() {
+        return ExecutorHolder.INSTANCE.getActiveCount();
+    }
+
+    /**
+     * 等待执行的任务数
+     */
+    public static int getQueueSize() {
+        return ExecutorHolder.INSTANCE.getQueue().size();
+    }
+}
@@ -1,17 +1,35 @@
 package utils;
 
-import utils.strategy.SqlExecutionStrategy;
+import utils.mapping.RowMappers;
+import utils.metrics.Metrics;
+import utils.plan.StatementPlan;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * MySQL会话工厂类
  * 负责创建Mapper接口的代理实例，实现动态SQL执行
  * 使用JDK动态代理技术，在运行时生成Mapper接口的实现类
+ * 每个Mapper方法在第一次创建代理时编译成语句计划并缓存，之后的调用直接执行计划
+ * 编译期由MapperProcessor生成了XxxMapperImpl时优先使用生成的实现类，方法调用不经过代理
  */
 public class MySqlSessionFactory {
+    private static final Object[] NO_ARGS = new Object[0];
+
+    /**
+     * 所有Mapper方法的语句计划缓存
+     */
+    private static final ConcurrentMap<Method, StatementPlan> PLAN_CACHE = new ConcurrentHashMap<>();
+
     /**
      * 静态初始化块
      * 加载MySQL JDBC驱动
@@ -26,23 +44,134 @@ public class MySqlSessionFactory {
     }
 
     /**
-     * 获取Mapper接口的代理实例
+     * 获取Mapper接口的实例
+     * 有编译期生成的实现类时返回生成类的实例，否则返回动态代理
      * @param mapperClass Mapper接口的Class对象
      * @param <T> Mapper接口的类型
-     * @return Mapper接口的代理实例
+     * @return Mapper接口的实例
      */
     public <T> T getMapper(Class<T> mapperClass) {
+        Map<Method, StatementPlan> plans = compilePlans(mapperClass);
+        T generated = newGeneratedMapper(mapperClass, plans);
+        if (generated != null) {
+            return generated;
+        }
         return (T) Proxy.newProxyInstance(
                 this.getClass().getClassLoader(),
                 new Class[]{mapperClass},
-                new MapperInvocationHandler());
+                new MapperInvocationHandler(plans));
+    }
+
+    /**
+     * 从编译好的语句计划中取出一个方法的计划，供生成的Mapper实现类在构造时调用
+     * @param plans 方法到语句计划的映射
+     * @param mapperClass Mapper接口的Class对象
+     * @param name 方法名
+     * @param parameterTypes 方法参数类型
+     * @return 语句计划
+     */
+    public static StatementPlan plan(Map<Method, StatementPlan> plans, Class<?> mapperClass,
+                                     String name, Class<?>... parameterTypes) {
+        try {
+            StatementPlan plan = plans.get(mapperClass.getMethod(name, parameterTypes));
+            if (plan == null) {
+                throw new IllegalStateException("No statement plan for method: " + mapperClass.getName() + "." + name);
+            }
+            return plan;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Generated mapper is out of date: " + mapperClass.getName(), e);
+        }
+    }
+
+    /**
+     * 执行语句计划，开启指标时记录调用耗时和是否失败
+     * 动态代理和生成的Mapper实现类共用这一入口
+     * @param plan 语句计划
+     * @param args 方法参数，没有参数时可以为null
+     * @return 方法执行结果
+     * @throws Exception 如果执行过程出错
+     */
+    public static Object execute(StatementPlan plan, Object[] args) throws Exception {
+        // 1. 不记录指标时直接执行
+        if (!Metrics.isEnabled()) {
+            return plan.execute(args != null ? args : NO_ARGS);
+        }
+        // 2. 记录调用耗时和是否失败
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = plan.execute(args != null ? args : NO_ARGS);
+            failed = false;
+            return result;
+        } finally {
+            plan.getMetrics().recordCall(System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * 创建编译期生成的Mapper实现类的实例
+     * @return 实例，没有生成的实现类或已关闭mapper.useGenerated时返回null
+     */
+    private static <T> T newGeneratedMapper(Class<T> mapperClass, Map<Method, StatementPlan> plans) {
+        if (!RowMappers.useGenerated()) {
+            return null;
+        }
+        try {
+            Class<?> implClass = Class.forName(mapperClass.getName() + "Impl", true, mapperClass.getClassLoader());
+            if (!mapperClass.isAssignableFrom(implClass)) {
+                return null;
+            }
+            Constructor<?> constructor = implClass.getConstructor(Map.class);
+            return mapperClass.cast(constructor.newInstance(plans));
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Failed to create generated mapper for " + mapperClass.getName(), e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create generated mapper for " + mapperClass.getName(), e);
+        }
+    }
+
+    /**
+     * 在事务中执行一组Mapper调用，所有调用使用同一个连接
+     * 正常返回时提交，抛出异常时回滚；已有事务时加入该事务
+     * @param callback 要执行的操作
+     * @param <R> 返回值类型
+     * @return 操作的返回值
+     * @throws Exception 操作抛出的异常
+     */
+    public <R> R inTransaction(TransactionManager.TransactionCallback<R> callback) throws Exception {
+        return TransactionManager.execute(callback);
+    }
+
+    /**
+     * 编译Mapper接口中所有方法的语句计划
+     * @param mapperClass Mapper接口的Class对象
+     * @return 方法到语句计划的映射
+     */
+    private static Map<Method, StatementPlan> compilePlans(Class<?> mapperClass) {
+        Map<Method, StatementPlan> plans = new HashMap<>();
+        for (Method method : mapperClass.getMethods()) {
+            // 默认方法和静态方法不需要生成SQL
+            if (method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            plans.put(method, PLAN_CACHE.computeIfAbsent(method, SqlStrategyFactory::compile));
+        }
+        return plans;
     }
 
     /**
      * Mapper接口的代理处理器
-     * 负责拦截Mapper接口方法的调用，并根据方法名选择合适的SQL执行策略
+     * 负责拦截Mapper接口方法的调用，并执行预先编译好的语句计划
      */
     static class MapperInvocationHandler implements InvocationHandler {
+        private final Map<Method, StatementPlan> plans;
+
+        MapperInvocationHandler(Map<Method, StatementPlan> plans) {
+            this.plans = plans;
+        }
+
         /**
          * 处理代理对象的方法调用
          * @param proxy 代理对象
@@ -53,10 +182,34 @@ public class MySqlSessionFactory {
          */
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-            // 1. 获取适合的SQL执行策略
-            SqlExecutionStrategy strategy = SqlStrategyFactory.getStrategy(method);
-            // 2. 执行SQL并返回结果
-            return strategy.execute(method, args);
+            // 1. 查找方法对应的语句计划
+            StatementPlan plan = plans.get(method);
+            if (plan == null) {
+                // Object类的方法不经过SQL执行
+                if (method.getDeclaringClass() == Object.class) {
+                    return invokeObjectMethod(proxy, method, args);
+                }
+                throw new UnsupportedOperationException("No statement plan for method: " + method);
+            }
+            // 2. 执行语句计划并返回结果
+            return execute(plan, args);
+        }
+
+        /**
+         * 处理toString、hashCode、equals等Object方法
+         */
+        private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return proxy.getClass().getInterfaces()[0].getName() + "Proxy@"
+                            + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
         }
     }
 }
@@ -1,22 +1,34 @@
 package utils;
 
 import annotations.SQL;
+import utils.plan.StatementPlan;
 import utils.strategy.*;
 import utils.strategy.impl.*;
 
 import java.lang.reflect.Method;
+import java.util.List;
 
 /**
  * SQL策略工厂类
- * 根据Mapper接口方法的特点，创建合适的SQL执行策略
+ * 根据Mapper接口方法的特点，选择合适的SQL执行策略
+ * 策略本身无状态，每种策略只创建一个实例
  * 支持以下策略：
  * 1. 自定义SQL策略：当方法有@SQL注解时使用
  * 2. 查询策略：方法名以select开头
  * 3. 插入策略：方法名以insert开头
  * 4. 更新策略：方法名以update开头
  * 5. 删除策略：方法名以delete开头
+ * 6. 批量插入/更新策略：方法名以insert/update开头，且唯一的参数是实体列表
  */
 public class SqlStrategyFactory {
+    private static final SqlExecutionStrategy CUSTOM_SQL_STRATEGY = new CustomSqlStrategy();
+    private static final SqlExecutionStrategy SELECT_STRATEGY = new SelectStrategy();
+    private static final SqlExecutionStrategy INSERT_STRATEGY = new InsertStrategy();
+    private static final SqlExecutionStrategy UPDATE_STRATEGY = new UpdateStrategy();
+    private static final SqlExecutionStrategy DELETE_STRATEGY = new DeleteStrategy();
+    private static final SqlExecutionStrategy BATCH_INSERT_STRATEGY = new BatchInsertStrategy();
+    private static final SqlExecutionStrategy BATCH_UPDATE_STRATEGY = new BatchUpdateStrategy();
+
     /**
      * 获取适合的SQL执行策略
      * @param method Mapper接口的方法
@@ -26,22 +38,46 @@ public class SqlStrategyFactory {
     public static SqlExecutionStrategy getStrategy(Method method) {
         // 1. 检查是否有@SQL注解，有则使用自定义SQL策略
         if (method.isAnnotationPresent(SQL.class)) {
-            return new CustomSqlStrategy();
+            return CUSTOM_SQL_STRATEGY;
         }
         
-        // 2. 根据方法名选择对应的策略
+        // 2. 根据方法名选择对应的策略，参数为实体列表时使用批量策略
         String methodName = method.getName().toLowerCase();
-        if (methodName.startsWith("select")) {
-            return new SelectStrategy();
+        boolean batch = isBatchMethod(method);
+        if (batch && methodName.startsWith("insert")) {
+            return BATCH_INSERT_STRATEGY;
+        } else if (batch && methodName.startsWith("update")) {
+            return BATCH_UPDATE_STRATEGY;
+        } else if (methodName.startsWith("select")) {
+            return SELECT_STRATEGY;
         } else if (methodName.startsWith("insert")) {
-            return new InsertStrategy();
+            return INSERT_STRATEGY;
         } else if (methodName.startsWith("update")) {
-            return new UpdateStrategy();
+            return UPDATE_STRATEGY;
         } else if (methodName.startsWith("delete")) {
-            return new DeleteStrategy();
+            return DELETE_STRATEGY;
         }
         
         // 3. 如果没有匹配的策略，抛出异常
         throw new IllegalArgumentException("Unsupported method: " + methodName);
     }
+
+    /**
+     * 判断是否为批量方法：只有一个参数，且参数类型为List
+     * @param method Mapper接口的方法
+     * @return 批量方法返回true
+     */
+    private static boolean isBatchMethod(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        return parameterTypes.length == 1 && List.class.isAssignableFrom(parameterTypes[0]);
+    }
+
+    /**
+     * 为Mapper方法编译语句计划
+     * @param method Mapper接口的方法
+     * @return 语句计划
+     */
+    public static StatementPlan compile(Method method) {
+        return getStrategy(method).compile(method);
+    }
 }
@@ -0,0 +1,210 @@
+package utils;
+
+import utils.strategy.AbstractSqlStrategy;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 事务管理器
+ * 开启事务时从连接池借出一个连接并绑定到当前线程，事务内的所有Mapper调用都使用这个连接
+ * 嵌套调用会加入外层事务，只有最外层提交或回滚时才真正结束事务：
+ * 内层回滚会把事务标记为只能回滚，外层提交时改为回滚并抛出异常
+ *
+ * 编程式用法：
+ * <pre>
+ * TransactionManager.execute(() -> {
+ *     Teacher teacher = mapper.insertTeacher(...);
+ *     courseMapper.insertCourse(..., teacher.getTeacherId());
+ * });
+ * </pre>
+ * 也可以在Servlet的处理方法上使用@Transactional
+ */
+public final class TransactionManager {
+    private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+    private TransactionManager() {
+    }
+
+    /**
+     * 事务中执行的操作
+     * @param <R> 返回值类型
+     */
+    @FunctionalInterface
+    public interface TransactionCallback<R> {
+        R doInTransaction() throws Exception;
+    }
+
+    /**
+     * 在事务中执行操作，已有事务时加入该事务
+     * @param callback 要执行的操作
+     * @param <R> 返回值类型
+     * @return 操作的返回值
+     * @throws Exception 操作抛出的异常，此时事务已回滚
+     */
+    public static <R> R execute(TransactionCallback<R> callback) throws Exception {
+        begin();
+        R result;
+        try {
+            result = callback.doInTransaction();
+        } catch (Throwable t) {
+            try {
+                rollback();
+            } catch (SQLException e) {
+                t.addSuppressed(e);
+            }
+            throw t;
+        }
+        commit();
+        return result;
+    }
+
+    /**
+     * 开启事务，已有事务时加入该事务
+     * @throws SQLException 如果借出连接失败
+     */
+    public static void begin() throws SQLException {
+        Transaction transaction = CURRENT.get();
+        if (transaction != null) {
+            transaction.depth++;
+            return;
+        }
+        Connection connection = AbstractSqlStrategy.getDataSource().getConnection();
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        CURRENT.set(new Transaction(connection));
+    }
+
+    /**
+     * 提交事务，嵌套的内层提交只减少层数
+     * @throws SQLException 如果没有事务、事务已被标记为只能回滚或提交失败
+     */
+    public static void commit() throws SQLException {
+        Transaction transaction = requireTransaction();
+        if (--transaction.depth > 0) {
+            return;
+        }
+        try {
+            if (transaction.rollbackOnly) {
+                transaction.connection.rollback();
+                throw new SQLException("Transaction has been marked as rollback-only");
+            }
+            transaction.connection.commit();
+        } finally {
+            end(transaction);
+        }
+    }
+
+    /**
+     * 回滚事务，嵌套的内层回滚把事务标记为只能回滚
+     * @throws SQLException 如果没有事务或回滚失败
+     */
+    public static void rollback() throws SQLException {
+        Transaction transaction = requireTransaction();
+        if (--transaction.depth > 0) {
+            transaction.rollbackOnly = true;
+            return;
+        }
+        try {
+            transaction.connection.rollback();
+        } finally {
+            end(transaction);
+        }
+    }
+
+    /**
+     * 当前线程是否在事务中
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * 获取当前事务绑定的连接
+     * 返回的连接调用close()不会归还连接池，连接在事务结束时归还
+     * @return 事务连接，不在事务中时返回null
+     */
+    public static Connection currentConnection() {
+        Transaction transaction = CURRENT.get();
+        return transaction != null ? transaction.handle : null;
+    }
+
+    /**
+     * 注册在事务结束（提交或回滚）后执行的操作，例如使缓存失效
+     * 事务结束后其他线程才能读到提交的数据，在此之前放入缓存的旧数据需要再清理一次
+     * @param action 要执行的操作，不在事务中时立即执行
+     */
+    public static void afterCompletion(Runnable action) {
+        Transaction transaction = CURRENT.get();
+        if (transaction == null) {
+            action.run();
+            return;
+        }
+        transaction.completionActions.add(action);
+    }
+
+    private static Transaction requireTransaction() throws SQLException {
+        Transaction transaction = CURRENT.get();
+        if (transaction == null) {
+            throw new SQLException("No transaction is active on the current thread");
+        }
+        return transaction;
+    }
+
+    /**
+     * 结束事务，解除绑定并把连接归还连接池，然后执行事务结束后的操作
+     */
+    private static void end(Transaction transaction) throws SQLException {
+        CURRENT.remove();
+        try {
+            transaction.connection.close();
+        } finally {
+            for (Runnable action : transaction.completionActions) {
+                action.run();
+            }
+        }
+    }
+
+    /**
+     * 绑定到线程的事务
+     */
+    private static class Transaction {
+        private final Connection connection;
+        private final Connection handle;
+        private final List<Runnable> completionActions = new ArrayList<>();
+        private int depth = 1;
+        private boolean rollbackOnly;
+
+        Transaction(Connection connection) {
+            this.connection = connection;
+            // 事务内的Mapper调用会关闭拿到的连接，这里忽略close()，由事务结束时统一归还
+            this.handle = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                return null;
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            default:
+                                try {
+                                    return method.invoke(connection, args);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getTargetException();
+                                }
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package utils;
+
+import utils.log.LogManager;
+import utils.log.Logger;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 虚拟线程支持
+ * 项目按Java 8编译，虚拟线程相关的API（Java 21）通过MethodHandle调用，在旧版本JVM上自动不可用
+ * 开启server.virtualThreads=true并运行在Java 21及以上时，Tomcat的每个请求在一个虚拟线程上处理，
+ * 等待数据库时只挂起虚拟线程，不占用平台线程
+ *
+ * 虚拟线程在synchronized块内阻塞时会钉住（pin）所在的平台线程，
+ * 因此连接池、语句缓存和二级缓存都只使用信号量、并发容器和ReentrantLock；
+ * MySQL驱动8.0.33之前在套接字读写外加synchronized，使用这样的驱动时数据库操作仍交给有界的数据库线程池
+ */
+public final class VirtualThreads {
+    private static final Logger log = LogManager.getLogger(VirtualThreads.class);
+    private static final boolean REQUESTED = AppConfig.getBoolean("server.virtualThreads", false);
+    // Thread.ofVirtual()
+    private static final MethodHandle OF_VIRTUAL;
+    // Thread.Builder.name(String, long)
+    private static final MethodHandle BUILDER_NAME;
+    // Thread.Builder.factory()
+    private static final MethodHandle BUILDER_FACTORY;
+    // Executors.newThreadPerTaskExecutor(ThreadFactory)
+    private static final MethodHandle NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle builderName = null;
+        MethodHandle builderFactory = null;
+        MethodHandle newExecutor = null;
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual",
+                    MethodType.methodType(Class.forName("java.lang.Thread$Builder$OfVirtual")));
+            builderName = lookup.findVirtual(builderType, "name",
+                    MethodType.methodType(builderType, String.class, long.class));
+            builderFactory = lookup.findVirtual(builderType, "factory", MethodType.methodType(ThreadFactory.class));
+            newExecutor = lookup.findStatic(java.util.concurrent.Executors.class, "newThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newExecutor;
+        if (REQUESTED && ofVirtual == null) {
+            log.warn("server.virtualThreads requires Java 21+, running on {} with platform threads",
+                    System.getProperty("java.version"));
+        }
+    }
+
+    // 不再用synchronized保护套接字读写的第一个MySQL驱动版本
+    private static final int[] UNPINNED_DRIVER_VERSION = {8, 0, 33};
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * 驱动检测结果的持有类，第一次使用时才检测
+     */
+    private static class DriverHolder {
+        private static final boolean PINNING = detectPinningDriver();
+    }
+
+    /**
+     * 当前JVM是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 是否开启了虚拟线程模式，需要配置server.virtualThreads=true且JVM支持
+     */
+    public static boolean isEnabled() {
+        return REQUESTED && isSupported();
+    }
+
+    /**
+     * JDBC调用能否直接在虚拟线程上执行而不钉住载体线程
+     * 旧版MySQL驱动每次JDBC调用都钉住一个载体线程，并发的数据库操作数被限制在CPU核数左右，
+     * 此时请求仍应交给有界的数据库线程池（DbExecutor）执行
+     * @return 开启了虚拟线程模式且驱动不会钉住载体线程时返回true
+     */
+    public static boolean isJdbcUnpinned() {
+        return isEnabled() && !DriverHolder.PINNING;
+    }
+
+    /**
+     * 类路径上的MySQL驱动是否早于8.0.33，无法确定版本时按旧版处理
+     */
+    private static boolean detectPinningDriver() {
+        Package driverPackage;
+        try {
+            driverPackage = Class.forName("com.mysql.cj.jdbc.Driver", false,
+                    VirtualThreads.class.getClassLoader()).getPackage();
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+        String version = driverPackage != null ? driverPackage.getImplementationVersion() : null;
+        boolean pinning = version == null || compareVersion(version, UNPINNED_DRIVER_VERSION) < 0;
+        if (pinning && isEnabled()) {
+            log.warn("MySQL driver {} pins virtual threads during JDBC calls, database work stays on the "
+                    + "bounded db-worker pool; build with -Pjava21 to use mysql-connector-j", version);
+        }
+        return pinning;
+    }
+
+    /**
+     * 比较点分隔的版本号，非数字的部分（如 -SNAPSHOT）忽略
+     */
+    private static int compareVersion(String version, int[] other) {
+        String[] parts = version.split("\\.");
+        for (int i = 0; i < other.length; i++) {
+            int value = 0;
+            if (i < parts.length) {
+                String digits = parts[i].replaceAll("\\D.*", "");
+                value = digits.isEmpty() ? 0 : Integer.parseInt(digits);
+            }
+            if (value != other[i]) {
+                return Integer.compare(value, other[i]);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 创建虚拟线程工厂，线程名为prefix加序号
+     * @param prefix 线程名前缀
+     * @return 线程工厂
+     * @throws UnsupportedOperationException 如果JVM不支持虚拟线程
+     */
+    public static ThreadFactory newThreadFactory(String prefix) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21+");
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke();
+            builder = BUILDER_NAME.invoke(builder, prefix, 0L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to create virtual thread factory", t);
+        }
+    }
+
+    /**
+     * 创建每个任务一个虚拟线程的执行器
+     * @param prefix 线程名前缀
+     * @return 执行器
+     * @throws UnsupportedOperationException 如果JVM不支持虚拟线程
+     */
+    public static ExecutorService newExecutor(String prefix) {
+        ThreadFactory factory = newThreadFactory(prefix);
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(factory);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to create virtual thread executor", t);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package utils.cache;
+
+import utils.AppConfig;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mapper框架的二级缓存
+ * 实体缓存按表分区，以主键为键缓存selectById这类按主键查询的结果
+ * 同一张表上的INSERT、UPDATE、DELETE和写类型的@SQL语句执行后自动失效：
+ * 能确定主键的写操作只移除对应条目，否则清空整张表的分区
+ *
+ * 查询缓存以SQL文本和参数值为键缓存其余查询的结果，每个结果记录它依赖的表在查询前的版本号，
+ * 任何一张表被写入后版本号增加，读取时版本号不一致的结果视为失效；容量按缓存的总行数限制
+ *
+ * 配置项：
+ * cache.enabled            是否开启缓存，默认true
+ * cache.entity.maxSize     每张表最多缓存的实体数，默认10000
+ * cache.entity.ttlMs       实体的存活时间，默认300000，0表示不过期
+ * cache.query.enabled      是否开启查询缓存，默认true
+ * cache.query.maxRows      查询缓存最多缓存的总行数，默认50000
+ * cache.query.ttlMs        查询结果的存活时间，默认60000，0表示不过期
+ */
+public final class CacheManager {
+    private static final boolean ENABLED = AppConfig.getBoolean("cache.enabled", true);
+    private static final int ENTITY_MAX_SIZE = AppConfig.getInt("cache.entity.maxSize", 10_000);
+    private static final long ENTITY_TTL_MS = AppConfig.getLong("cache.entity.ttlMs", 300_000);
+    private static final boolean QUERY_ENABLED = AppConfig.getBoolean("cache.query.enabled", true);
+    private static final long QUERY_MAX_ROWS = AppConfig.getLong("cache.query.maxRows", 50_000);
+    private static final long QUERY_TTL_MS = AppConfig.getLong("cache.query.ttlMs", 60_000);
+
+    // 表名到实体缓存分区的映射
+    private static final ConcurrentMap<String, LruCache<Object, Object>> ENTITY_REGIONS = new ConcurrentHashMap<>();
+    // 表名到实体缓存主键列名的映射
+    private static final ConcurrentMap<String, String> KEY_COLUMNS = new ConcurrentHashMap<>();
+    // 表名到版本号的映射，表每被写入一次版本号加一
+    private static final ConcurrentMap<String, AtomicLong> TABLE_VERSIONS = new ConcurrentHashMap<>();
+    // 查询缓存，权重为结果的行数
+    private static final LruCache<QueryKey, CachedQuery> QUERY_CACHE =
+            new LruCache<>("query", QUERY_MAX_ROWS, QUERY_TTL_MS, CachedQuery::getWeight);
+
+    private CacheManager() {
+    }
+
+    /**
+     * 缓存是否开启
+     */
+    public static boolean isEnabled() {
+        return ENABLED && ENTITY_MAX_SIZE > 0;
+    }
+
+    /**
+     * 查询缓存是否开启
+     */
+    public static boolean isQueryCacheEnabled() {
+        return ENABLED && QUERY_ENABLED && QUERY_MAX_ROWS > 0;
+    }
+
+    /**
+     * 获取一张表当前的版本号
+     * @param table 表名
+     * @return 版本号
+     */
+    public static long tableVersion(String table) {
+        return TABLE_VERSIONS.computeIfAbsent(table.toLowerCase(), name -> new AtomicLong()).get();
+    }
+
+    /**
+     * 获取多张表当前的版本号，在查询数据库之前调用
+     * @param tables 表名
+     * @return 与表名一一对应的版本号
+     */
+    public static long[] tableVersions(String[] tables) {
+        long[] versions = new long[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            versions[i] = tableVersion(tables[i]);
+        }
+        return versions;
+    }
+
+    /**
+     * 读取查询缓存
+     * @param key 查询键
+     * @return 缓存的结果，没有或依赖的表已被写入时返回null
+     */
+    public static Object getQuery(QueryKey key) {
+        CachedQuery cached = QUERY_CACHE.get(key, CachedQuery::isCurrent);
+        return cached != null ? cached.value : null;
+    }
+
+    /**
+     * 写入查询缓存，查询期间依赖的表已被写入时放弃写入
+     * @param key 查询键
+     * @param value 查询结果
+     * @param rows 结果的行数，作为缓存的权重
+     * @param tables 查询依赖的表
+     * @param versions 查询数据库之前取得的表版本号
+     */
+    public static void putQuery(QueryKey key, Object value, int rows, String[] tables, long[] versions) {
+        CachedQuery cached = new CachedQuery(value, rows + 1, tables, versions);
+        if (cached.isCurrent()) {
+            QUERY_CACHE.put(key, cached);
+        }
+    }
+
+    /**
+     * 获取一张表的实体缓存分区
+     * @param table 表名
+     * @param keyColumn 主键列名
+     * @return 实体缓存分区
+     */
+    public static LruCache<Object, Object> entityRegion(String table, String keyColumn) {
+        return ENTITY_REGIONS.computeIfAbsent(table.toLowerCase(), name -> {
+            KEY_COLUMNS.put(name, keyColumn.toLowerCase());
+            return new LruCache<>(name, ENTITY_MAX_SIZE, ENTITY_TTL_MS);
+        });
+    }
+
+    /**
+     * 主键归一化，Integer和Long形式的同一个主键使用同一个缓存条目
+     * @param id 主键值
+     * @return 缓存键
+     */
+    public static Object entityKey(Object id) {
+        return id instanceof Number ? (Object) ((Number) id).longValue() : id;
+    }
+
+    /**
+     * 写操作之后使缓存失效
+     * @param table 被写入的表
+     * @param keyColumn 写条件使用的列名，不是缓存的主键列时清空整张表的分区
+     * @param id 被写入行的主键，为null时清空整张表的分区
+     * @param insert 是否为插入，插入的新行不可能已经在实体缓存中
+     */
+    public static void onWrite(String table, String keyColumn, Object id, boolean insert) {
+        String name = table.toLowerCase();
+        // 1. 增加表的版本号，依赖这张表的查询结果全部失效
+        TABLE_VERSIONS.computeIfAbsent(name, n -> new AtomicLong()).incrementAndGet();
+        if (!isEnabled() || insert) {
+            return;
+        }
+        // 2. 移除实体缓存中被写入的行
+        LruCache<Object, Object> region = ENTITY_REGIONS.get(name);
+        if (region == null) {
+            return;
+        }
+        if (id != null && keyColumn != null && keyColumn.equalsIgnoreCase(KEY_COLUMNS.get(name))) {
+            region.invalidate(entityKey(id));
+        } else {
+            region.invalidateAll();
+        }
+    }
+
+    /**
+     * 清空所有缓存
+     */
+    public static void clear() {
+        QUERY_CACHE.invalidateAll();
+        for (LruCache<Object, Object> region : ENTITY_REGIONS.values()) {
+            region.invalidateAll();
+        }
+    }
+
+    /**
+     * 获取实体缓存的统计信息，所有表的分区合计
+     * @return 统计信息
+     */
+    public static CacheStatistics getEntityStatistics() {
+        int size = 0;
+        long hits = 0;
+        long misses = 0;
+        long evictions = 0;
+        long invalidations = 0;
+        for (LruCache<Object, Object> region : ENTITY_REGIONS.values()) {
+            CacheStatistics statistics = region.getStatistics();
+            size += statistics.getSize();
+            hits += statistics.getHits();
+            misses += statistics.getMisses();
+            evictions += statistics.getEvictions();
+            invalidations += statistics.getInvalidations();
+        }
+        return new CacheStatistics("entity", size, size, (long) ENTITY_MAX_SIZE * Math.max(ENTITY_REGIONS.size(), 1),
+                hits, misses, evictions, invalidations);
+    }
+
+    /**
+     * 获取查询缓存的统计信息
+     * @return 统计信息，权重为缓存的总行数
+     */
+    public static CacheStatistics getQueryStatistics() {
+        return QUERY_CACHE.getStatistics();
+    }
+
+    /**
+     * 查询缓存中的一个结果及其依赖的表版本号
+     */
+    private static class CachedQuery {
+        private final Object value;
+        private final int weight;
+        private final String[] tables;
+        private final long[] versions;
+
+        CachedQuery(Object value, int weight, String[] tables, long[] versions) {
+            this.value = value;
+            this.weight = weight;
+            this.tables = tables;
+            this.versions = versions;
+        }
+
+        int getWeight() {
+            return weight;
+        }
+
+        /**
+         * 依赖的表在查询之后是否都没有被写入过
+         */
+        boolean isCurrent() {
+            for (int i = 0; i < tables.length; i++) {
+                if (tableVersion(tables[i]) != versions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
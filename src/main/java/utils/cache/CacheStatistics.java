@@ -0,0 +1,52 @@
+package utils.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 缓存统计信息快照
+ */
+@Getter
+@AllArgsConstructor
+public class CacheStatistics {
+    /** 缓存名称 */
+    private final String name;
+    /** 当前条目数 */
+    private final int size;
+    /** 当前所有条目的权重之和，实体缓存为条目数，查询缓存为缓存的行数 */
+    private final long weight;
+    /** 权重之和的上限 */
+    private final long capacity;
+    /** 命中次数 */
+    private final long hits;
+    /** 未命中次数 */
+    private final long misses;
+    /** 因容量或过期被淘汰的次数 */
+    private final long evictions;
+    /** 因写操作失效的条目数 */
+    private final long invalidations;
+
+    /**
+     * 命中率
+     * @return 命中率，没有请求时为0
+     */
+    public double getHitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{" +
+                "name=" + name +
+                ", size=" + size +
+                ", weight=" + weight +
+                ", capacity=" + capacity +
+                ", hits=" + hits +
+                ", misses=" + misses +
+                ", hitRatio=" + String.format("%.3f", getHitRatio()) +
+                ", evictions=" + evictions +
+                ", invalidations=" + invalidations +
+                '}';
+    }
+}
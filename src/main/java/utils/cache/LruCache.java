@@ -0,0 +1,244 @@
+package utils.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * 有容量上限和过期时间的LRU缓存
+ * 每个条目有一个权重（默认为1，即按条目数计算），总权重超出容量时淘汰最久未访问的条目，
+ * 超过存活时间的条目在下次访问时移除
+ *
+ * 每次失效都会增加代数（generation）：读取数据库前记下代数，写入缓存时代数已变化说明期间发生过写操作，
+ * 这次读到的可能是旧数据，不再写入缓存
+ * 使用ReentrantLock而不是synchronized，持锁期间不做任何IO
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LruCache<K, V> {
+    private final String name;
+    private final long capacity;
+    private final long ttlMillis;
+    private final ToIntFunction<V> weigher;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong generation = new AtomicLong();
+    private long totalWeight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * 按条目数限制容量的缓存
+     * @param name 缓存名称，用于统计信息
+     * @param maxSize 最多缓存的条目数
+     * @param ttlMillis 条目的存活时间，0表示不过期
+     */
+    public LruCache(String name, int maxSize, long ttlMillis) {
+        this(name, maxSize, ttlMillis, value -> 1);
+    }
+
+    /**
+     * 按权重限制容量的缓存
+     * @param name 缓存名称，用于统计信息
+     * @param capacity 所有条目的权重之和的上限
+     * @param ttlMillis 条目的存活时间，0表示不过期
+     * @param weigher 计算条目权重的函数，权重至少为1
+     */
+    public LruCache(String name, long capacity, long ttlMillis, ToIntFunction<V> weigher) {
+        this.name = name;
+        this.capacity = capacity;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+    }
+
+    /**
+     * 读取缓存
+     * @param key 键
+     * @return 缓存的值，没有或已过期时返回null
+     */
+    public V get(K key) {
+        return get(key, null);
+    }
+
+    /**
+     * 读取缓存，值不再有效时移除该条目
+     * @param key 键
+     * @param valid 判断缓存值是否仍然有效，为null时不判断
+     * @return 缓存的值，没有、已过期或已失效时返回null
+     */
+    public V get(K key, Predicate<V> valid) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+                removeEntry(key);
+                evictions.increment();
+                entry = null;
+            } else if (entry != null && valid != null && !valid.test(entry.value)) {
+                removeEntry(key);
+                invalidations.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取当前代数，在读取数据库之前调用
+     * @return 当前代数
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * 写入缓存，代数已变化时放弃写入
+     * @param key 键
+     * @param value 值
+     * @param expectedGeneration 读取数据库之前取得的代数
+     */
+    public void put(K key, V value, long expectedGeneration) {
+        lock.lock();
+        try {
+            if (generation.get() != expectedGeneration) {
+                return;
+            }
+            putEntry(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 写入缓存
+     * @param key 键
+     * @param value 值
+     */
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            putEntry(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 使一个条目失效
+     * @param key 键
+     */
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            if (removeEntry(key) != null) {
+                invalidations.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            invalidations.add(entries.size());
+            entries.clear();
+            totalWeight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取统计信息快照
+     * @return 统计信息
+     */
+    public CacheStatistics getStatistics() {
+        lock.lock();
+        try {
+            return new CacheStatistics(name, entries.size(), totalWeight, capacity, hits.sum(), misses.sum(),
+                    evictions.sum(), invalidations.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 放入条目，超出容量时从最久未访问的条目开始淘汰，调用时必须持有锁
+     */
+    private void putEntry(K key, V value) {
+        int weight = Math.max(weigher.applyAsInt(value), 1);
+        if (weight > capacity) {
+            return;
+        }
+        long expiresAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+        removeEntry(key);
+        entries.put(key, new Entry<>(value, weight, expiresAt));
+        totalWeight += weight;
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (totalWeight > capacity && iterator.hasNext()) {
+            totalWeight -= iterator.next().weight;
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * 移除条目并扣除权重，调用时必须持有锁
+     */
+    private Entry<V> removeEntry(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            totalWeight -= entry.weight;
+        }
+        return entry;
+    }
+
+    /**
+     * 缓存条目
+     */
+    private static class Entry<V> {
+        private final V value;
+        private final int weight;
+        private final long expiresAt;
+
+        Entry(V value, int weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package utils.cache;
+
+import java.util.Arrays;
+
+/**
+ * 查询缓存的键：SQL文本加上按占位符顺序排列的参数值
+ */
+public final class QueryKey {
+    private final String sql;
+    private final Object[] parameters;
+    private final int hash;
+
+    public QueryKey(String sql, Object[] parameters) {
+        this.sql = sql;
+        this.parameters = parameters;
+        this.hash = 31 * sql.hashCode() + Arrays.hashCode(parameters);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QueryKey)) return false;
+        QueryKey other = (QueryKey) o;
+        return hash == other.hash && sql.equals(other.sql) && Arrays.equals(parameters, other.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return sql + " " + Arrays.toString(parameters);
+    }
+}
@@ -0,0 +1,52 @@
+package utils.cache;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 从SQL文本中解析查询依赖的表
+ * 只做轻量的文本匹配：FROM和JOIN之后的表名（包括逗号分隔的多个表和子查询中的表），
+ * 多识别出的名称只会导致多余的失效，不会读到旧数据
+ */
+public final class SqlTables {
+    // FROM/JOIN之后到下一个子句之前的表列表，派生表（括号开头）由其内部的FROM单独匹配
+    private static final Pattern TABLE_REFERENCE_PATTERN = Pattern.compile(
+            "\\b(?:FROM|JOIN)\\s+(?!\\()(.+?)(?=\\s+(?:WHERE|GROUP|ORDER|HAVING|LIMIT|UNION|ON|USING|INNER|LEFT|RIGHT"
+                    + "|FULL|CROSS|NATURAL|JOIN|STRAIGHT_JOIN|FOR|LOCK)\\b|\\)|;|$)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    // 结果依赖于会话或时间、不能缓存的查询
+    private static final Pattern UNCACHEABLE_PATTERN = Pattern.compile(
+            "\\b(?:LAST_INSERT_ID|NOW|SYSDATE|CURDATE|CURTIME|RAND|UUID|FOUND_ROWS|ROW_COUNT|CONNECTION_ID"
+                    + "|USER|DATABASE)\\s*\\(|\\bCURRENT_(?:DATE|TIME|TIMESTAMP|USER)\\b"
+                    + "|\\bFOR\\s+UPDATE\\b|\\bLOCK\\s+IN\\b|@",
+            Pattern.CASE_INSENSITIVE);
+
+    private SqlTables() {
+    }
+
+    /**
+     * 解析查询依赖的表
+     * @param sql 查询语句
+     * @return 小写的表名，结果不能缓存或无法识别表时返回空数组
+     */
+    public static String[] parseQueryTables(String sql) {
+        if (UNCACHEABLE_PATTERN.matcher(sql).find()) {
+            return new String[0];
+        }
+        Set<String> tables = new LinkedHashSet<>();
+        Matcher matcher = TABLE_REFERENCE_PATTERN.matcher(sql);
+        while (matcher.find()) {
+            for (String reference : matcher.group(1).split(",")) {
+                String table = reference.trim().split("\\s+")[0].replace("`", "");
+                table = table.substring(table.lastIndexOf('.') + 1);
+                if (!table.isEmpty()) {
+                    tables.add(table.toLowerCase());
+                }
+            }
+        }
+        return tables.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,19 @@
+package utils.log;
+
+/**
+ * 日志输出目标
+ * 通过log.appender配置实现类的全限定名即可替换默认的控制台输出，实现类需要有public的无参构造器
+ */
+public interface Appender {
+    /**
+     * 输出一条日志
+     * @param event 日志
+     */
+    void append(LogEvent event);
+
+    /**
+     * 输出缓冲中的日志并释放资源
+     */
+    default void close() {
+    }
+}
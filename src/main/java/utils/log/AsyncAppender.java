@@ -0,0 +1,79 @@
+package utils.log;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步日志输出
+ * 调用线程只把日志放入有界队列，由后台线程交给实际的输出目标，调用线程不会因为输出IO而阻塞
+ * 队列满时丢弃新日志并计数，不阻塞业务线程
+ */
+public class AsyncAppender implements Appender {
+    private final Appender target;
+    private final BlockingQueue<LogEvent> queue;
+    private final Thread worker;
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean running = true;
+
+    /**
+     * @param target 实际的输出目标
+     * @param queueSize 队列长度
+     */
+    public AsyncAppender(Appender target, int queueSize) {
+        this.target = target;
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueSize, 1));
+        this.worker = new Thread(this::drain, "log-appender");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public void append(LogEvent event) {
+        if (!queue.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * 因队列已满被丢弃的日志数
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * 停止后台线程，输出队列中剩余的日志
+     */
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LogEvent event;
+        while ((event = queue.poll()) != null) {
+            target.append(event);
+        }
+        target.close();
+    }
+
+    private void drain() {
+        while (running) {
+            try {
+                LogEvent event = queue.poll(1, TimeUnit.SECONDS);
+                if (event != null) {
+                    target.append(event);
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Log appender failed: " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package utils.log;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 输出到标准输出的日志，WARN及以上级别输出到标准错误
+ * 格式：2024-01-01 12:00:00.000 [线程名] LEVEL 记录器名 - 消息
+ */
+public class ConsoleAppender implements Appender {
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    @Override
+    public void append(LogEvent event) {
+        StringBuilder sb = new StringBuilder(64 + event.getMessage().length());
+        sb.append(TIME_FORMAT.format(Instant.ofEpochMilli(event.getTimestamp())))
+                .append(" [").append(event.getThreadName()).append("] ")
+                .append(event.getLevel()).append(' ')
+                .append(event.getLoggerName()).append(" - ")
+                .append(event.getMessage());
+        PrintStream out = event.getLevel().compareTo(Level.WARN) >= 0 ? System.err : System.out;
+        out.println(sb);
+        if (event.getThrowable() != null) {
+            event.getThrowable().printStackTrace(out);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package utils.log;
+
+/**
+ * 日志级别，按严重程度从低到高排列
+ */
+public enum Level {
+    TRACE, DEBUG, INFO, WARN, ERROR, OFF;
+
+    /**
+     * 解析配置中的级别名称
+     * @param name 级别名称，不区分大小写
+     * @param defaultLevel 名称为空或无法识别时使用的级别
+     * @return 日志级别
+     */
+    public static Level parse(String name, Level defaultLevel) {
+        if (name == null || name.trim().isEmpty()) {
+            return defaultLevel;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return defaultLevel;
+        }
+    }
+}
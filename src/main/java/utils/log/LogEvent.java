@@ -0,0 +1,25 @@
+package utils.log;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 一条日志
+ * 消息在调用线程上格式化完成，异步输出时不再引用调用方的对象
+ */
+@Getter
+@AllArgsConstructor
+public class LogEvent {
+    /** 产生时间（毫秒） */
+    private final long timestamp;
+    /** 日志级别 */
+    private final Level level;
+    /** 日志记录器名称 */
+    private final String loggerName;
+    /** 产生日志的线程名 */
+    private final String threadName;
+    /** 格式化后的消息 */
+    private final String message;
+    /** 附带的异常，没有时为null */
+    private final Throwable throwable;
+}
@@ -0,0 +1,107 @@
+package utils.log;
+
+import utils.AppConfig;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 日志记录器的工厂和全局配置
+ *
+ * 配置项：
+ * log.level                 默认级别，默认INFO
+ * log.level.包名或类名      指定包或类的级别，例如 log.level.utils.strategy=DEBUG 输出编译后的SQL
+ * log.appender              输出目标的实现类，默认utils.log.ConsoleAppender
+ * log.async                 是否异步输出，默认true
+ * log.async.queueSize       异步输出的队列长度，默认8192，队列满时丢弃新日志
+ */
+public final class LogManager {
+    private static final String LEVEL_PREFIX = "log.level.";
+    private static final Level ROOT_LEVEL = Level.parse(AppConfig.get("log.level", null), Level.INFO);
+    private static final Map<String, Level> LEVELS = new ConcurrentHashMap<>();
+    private static final Map<String, Logger> LOGGERS = new ConcurrentHashMap<>();
+    private static final Appender APPENDER = createAppender();
+
+    static {
+        Properties levels = AppConfig.getWithPrefix(LEVEL_PREFIX);
+        for (String name : levels.stringPropertyNames()) {
+            LEVELS.put(name, Level.parse(levels.getProperty(name), ROOT_LEVEL));
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(APPENDER::close, "log-shutdown"));
+    }
+
+    private LogManager() {
+    }
+
+    /**
+     * 获取类的日志记录器
+     * @param type 类
+     * @return 以类的全限定名命名的日志记录器
+     */
+    public static Logger getLogger(Class<?> type) {
+        return getLogger(type.getName());
+    }
+
+    /**
+     * 获取日志记录器
+     * @param name 记录器名称
+     * @return 日志记录器，同名的记录器只创建一次
+     */
+    public static Logger getLogger(String name) {
+        return LOGGERS.computeIfAbsent(name, n -> new Logger(n, resolveLevel(n)));
+    }
+
+    /**
+     * 运行时修改包或类的日志级别，已经创建的记录器立即生效
+     * @param name 包名或类名
+     * @param level 日志级别
+     */
+    public static void setLevel(String name, Level level) {
+        LEVELS.put(name, level);
+        for (Logger logger : LOGGERS.values()) {
+            logger.setLevel(resolveLevel(logger.getName()));
+        }
+    }
+
+    /**
+     * 获取当前使用的输出目标
+     */
+    public static Appender getAppender() {
+        return APPENDER;
+    }
+
+    static void append(LogEvent event) {
+        APPENDER.append(event);
+    }
+
+    /**
+     * 按名称从长到短查找配置的级别：a.b.C、a.b、a，都没有时使用默认级别
+     */
+    private static Level resolveLevel(String name) {
+        for (String prefix = name; !prefix.isEmpty(); ) {
+            Level level = LEVELS.get(prefix);
+            if (level != null) {
+                return level;
+            }
+            int dot = prefix.lastIndexOf('.');
+            prefix = dot > 0 ? prefix.substring(0, dot) : "";
+        }
+        return ROOT_LEVEL;
+    }
+
+    private static Appender createAppender() {
+        Appender appender;
+        String className = AppConfig.get("log.appender", ConsoleAppender.class.getName());
+        try {
+            appender = (Appender) Class.forName(className).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            System.err.println("Cannot create log appender " + className + ", using console: " + e);
+            appender = new ConsoleAppender();
+        }
+        if (AppConfig.getBoolean("log.async", true)) {
+            appender = new AsyncAppender(appender, AppConfig.getInt("log.async.queueSize", 8192));
+        }
+        return appender;
+    }
+}
@@ -0,0 +1,154 @@
+package utils.log;
+
+import java.util.function.Supplier;
+
+/**
+ * 日志记录器
+ * 级别未开启时各个方法只做一次整数比较：带参数的方法在开启后才拼接消息，
+ * Supplier形式的方法在开启后才调用Supplier，因此关闭的日志不会创建字符串
+ * 消息中的 {} 依次替换为参数值
+ *
+ * 用法：
+ * <pre>
+ * private static final Logger log = LogManager.getLogger(Xxx.class);
+ * log.debug("Compiled SQL: {}", sql);
+ * if (log.isDebugEnabled()) { ... 代价较高的日志 ... }
+ * </pre>
+ */
+public final class Logger {
+    private final String name;
+    private volatile int threshold;
+
+    Logger(String name, Level level) {
+        this.name = name;
+        this.threshold = level.ordinal();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void setLevel(Level level) {
+        this.threshold = level.ordinal();
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+
+    public boolean isTraceEnabled() {
+        return Level.TRACE.ordinal() >= threshold;
+    }
+
+    public boolean isDebugEnabled() {
+        return Level.DEBUG.ordinal() >= threshold;
+    }
+
+    public boolean isInfoEnabled() {
+        return Level.INFO.ordinal() >= threshold;
+    }
+
+    public boolean isWarnEnabled() {
+        return Level.WARN.ordinal() >= threshold;
+    }
+
+    public void trace(String format, Object arg) {
+        if (isTraceEnabled()) {
+            log(Level.TRACE, format(format, arg), null);
+        }
+    }
+
+    public void debug(String message) {
+        if (isDebugEnabled()) {
+            log(Level.DEBUG, message, null);
+        }
+    }
+
+    public void debug(String format, Object arg) {
+        if (isDebugEnabled()) {
+            log(Level.DEBUG, format(format, arg), null);
+        }
+    }
+
+    public void debug(String format, Object arg1, Object arg2) {
+        if (isDebugEnabled()) {
+            log(Level.DEBUG, format(format, arg1, arg2), null);
+        }
+    }
+
+    public void debug(Supplier<String> message) {
+        if (isDebugEnabled()) {
+            log(Level.DEBUG, message.get(), null);
+        }
+    }
+
+    public void info(String message) {
+        if (isInfoEnabled()) {
+            log(Level.INFO, message, null);
+        }
+    }
+
+    public void info(String format, Object arg) {
+        if (isInfoEnabled()) {
+            log(Level.INFO, format(format, arg), null);
+        }
+    }
+
+    public void info(String format, Object arg1, Object arg2) {
+        if (isInfoEnabled()) {
+            log(Level.INFO, format(format, arg1, arg2), null);
+        }
+    }
+
+    public void warn(String message) {
+        if (isWarnEnabled()) {
+            log(Level.WARN, message, null);
+        }
+    }
+
+    public void warn(String format, Object arg) {
+        if (isWarnEnabled()) {
+            log(Level.WARN, format(format, arg), null);
+        }
+    }
+
+    public void warn(String format, Object arg1, Object arg2) {
+        if (isWarnEnabled()) {
+            log(Level.WARN, format(format, arg1, arg2), null);
+        }
+    }
+
+    public void warn(String message, Throwable throwable) {
+        if (isWarnEnabled()) {
+            log(Level.WARN, message, throwable);
+        }
+    }
+
+    public void error(String message, Throwable throwable) {
+        if (isEnabled(Level.ERROR)) {
+            log(Level.ERROR, message, throwable);
+        }
+    }
+
+    private void log(Level level, String message, Throwable throwable) {
+        LogManager.append(new LogEvent(System.currentTimeMillis(), level, name,
+                Thread.currentThread().getName(), message, throwable));
+    }
+
+    /**
+     * 把消息中的 {} 依次替换为参数值，多余的 {} 保持原样
+     */
+    static String format(String format, Object... args) {
+        StringBuilder sb = new StringBuilder(format.length() + 32);
+        int start = 0;
+        for (Object arg : args) {
+            int index = format.indexOf("{}", start);
+            if (index < 0) {
+                break;
+            }
+            sb.append(format, start, index).append(arg);
+            start = index + 2;
+        }
+        return sb.append(format, start, format.length()).toString();
+    }
+}
@@ -0,0 +1,58 @@
+package utils.log;
+
+import utils.AppConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 慢查询日志
+ * 执行时间超过阈值的语句按采样率以WARN级别输出到名为sql.slow的记录器，所有慢查询都会计数
+ * 未超过阈值时只做一次比较
+ *
+ * 配置项：
+ * log.slowQuery.thresholdMs   慢查询阈值，默认500，0表示关闭
+ * log.slowQuery.sampleRate    输出的比例，0到1之间，默认1即全部输出
+ */
+public final class SlowQueryLog {
+    private static final Logger log = LogManager.getLogger("sql.slow");
+    private static final long THRESHOLD_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(AppConfig.getLong("log.slowQuery.thresholdMs", 500));
+    private static final double SAMPLE_RATE = parseRate(AppConfig.get("log.slowQuery.sampleRate", "1"));
+    private static final LongAdder SLOW_QUERIES = new LongAdder();
+
+    private SlowQueryLog() {
+    }
+
+    /**
+     * 记录一次语句执行
+     * @param statement 语句，只在需要输出时调用toString()
+     * @param elapsedNanos 执行时间（纳秒）
+     */
+    public static void record(Object statement, long elapsedNanos) {
+        if (THRESHOLD_NANOS <= 0 || elapsedNanos < THRESHOLD_NANOS) {
+            return;
+        }
+        SLOW_QUERIES.increment();
+        if (SAMPLE_RATE < 1 && ThreadLocalRandom.current().nextDouble() >= SAMPLE_RATE) {
+            return;
+        }
+        log.warn("Slow statement ({} ms): {}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), statement);
+    }
+
+    /**
+     * 累计的慢查询次数，包括未被采样输出的
+     */
+    public static long getSlowQueryCount() {
+        return SLOW_QUERIES.sum();
+    }
+
+    private static double parseRate(String value) {
+        try {
+            return Math.max(0, Math.min(1, Double.parseDouble(value)));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+}
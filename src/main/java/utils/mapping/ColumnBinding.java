@@ -0,0 +1,19 @@
+package utils.mapping;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 列绑定
+ * 把结果集当前行的一列读取出来并写入实体的一个属性，列索引、读取方式和写入方式在绑定结果集时确定
+ */
+@FunctionalInterface
+public interface ColumnBinding {
+    /**
+     * 读取列值并写入实体，SQL NULL不写入
+     * @param rs 已经定位到某一行的结果集
+     * @param entity 实体对象
+     * @throws SQLException 如果读取失败
+     */
+    void apply(ResultSet rs, Object entity) throws SQLException;
+}
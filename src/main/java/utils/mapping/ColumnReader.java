@@ -0,0 +1,20 @@
+package utils.mapping;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 列读取器
+ * 用与目标属性类型匹配的getter读取一列，SQL NULL统一返回null
+ */
+@FunctionalInterface
+public interface ColumnReader {
+    /**
+     * 读取列值
+     * @param rs 结果集
+     * @param columnIndex 列索引（从1开始）
+     * @return 列值
+     * @throws SQLException 如果读取失败
+     */
+    Object read(ResultSet rs, int columnIndex) throws SQLException;
+}
@@ -0,0 +1,168 @@
+package utils.mapping;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * 列读取器工厂
+ * 根据列的SQL类型和目标属性类型选择读取方式，在绑定结果集时调用一次
+ * int、long、double类型的属性有不装箱的写入器时，读取和写入都使用基本类型
+ */
+public final class ColumnReaders {
+    private static final ColumnReader INTEGER = (rs, i) -> {
+        int value = rs.getInt(i);
+        return rs.wasNull() ? null : value;
+    };
+    private static final ColumnReader LONG = (rs, i) -> {
+        long value = rs.getLong(i);
+        return rs.wasNull() ? null : value;
+    };
+    private static final ColumnReader SHORT = (rs, i) -> {
+        short value = rs.getShort(i);
+        return rs.wasNull() ? null : value;
+    };
+    private static final ColumnReader BYTE = (rs, i) -> {
+        byte value = rs.getByte(i);
+        return rs.wasNull() ? null : value;
+    };
+    private static final ColumnReader DOUBLE = (rs, i) -> {
+        double value = rs.getDouble(i);
+        return rs.wasNull() ? null : value;
+    };
+    private static final ColumnReader FLOAT = (rs, i) -> {
+        float value = rs.getFloat(i);
+        return rs.wasNull() ? null : value;
+    };
+    private static final ColumnReader BOOLEAN = (rs, i) -> {
+        boolean value = rs.getBoolean(i);
+        return rs.wasNull() ? null : value;
+    };
+    private static final ColumnReader STRING = (rs, i) -> rs.getString(i);
+    private static final ColumnReader BIG_DECIMAL = (rs, i) -> rs.getBigDecimal(i);
+    private static final ColumnReader SQL_DATE = (rs, i) -> rs.getDate(i);
+    private static final ColumnReader SQL_TIME = (rs, i) -> rs.getTime(i);
+    private static final ColumnReader SQL_TIMESTAMP = (rs, i) -> rs.getTimestamp(i);
+    // java.time类型通过JDBC 4.2的getObject(int, Class)直接读取，不经过java.sql.Date等中间对象
+    private static final ColumnReader LOCAL_DATE = (rs, i) -> rs.getObject(i, LocalDate.class);
+    private static final ColumnReader LOCAL_TIME = (rs, i) -> rs.getObject(i, LocalTime.class);
+    private static final ColumnReader LOCAL_DATE_TIME = (rs, i) -> rs.getObject(i, LocalDateTime.class);
+    // 驱动不一定支持getObject(int, Instant.class)，按TIMESTAMP读取后转换
+    private static final ColumnReader INSTANT = (rs, i) -> {
+        Timestamp value = rs.getTimestamp(i);
+        return value != null ? value.toInstant() : null;
+    };
+    private static final ColumnReader OBJECT = (rs, i) -> rs.getObject(i);
+
+    private ColumnReaders() {
+    }
+
+    /**
+     * 选择列读取器
+     * @param sqlType 列的SQL类型（java.sql.Types）
+     * @param targetType 目标属性类型
+     * @return 列读取器
+     */
+    public static ColumnReader forColumn(int sqlType, Class<?> targetType) {
+        if (targetType == Integer.class || targetType == int.class) {
+            return INTEGER;
+        } else if (targetType == Long.class || targetType == long.class) {
+            return LONG;
+        } else if (targetType == Short.class || targetType == short.class) {
+            return SHORT;
+        } else if (targetType == Byte.class || targetType == byte.class) {
+            return BYTE;
+        } else if (targetType == Double.class || targetType == double.class) {
+            return DOUBLE;
+        } else if (targetType == Float.class || targetType == float.class) {
+            return FLOAT;
+        } else if (targetType == Boolean.class || targetType == boolean.class) {
+            return BOOLEAN;
+        } else if (targetType == String.class) {
+            return STRING;
+        } else if (targetType == BigDecimal.class) {
+            return BIG_DECIMAL;
+        } else if (targetType == java.sql.Date.class) {
+            return SQL_DATE;
+        } else if (targetType == java.sql.Time.class) {
+            return SQL_TIME;
+        } else if (targetType == java.sql.Timestamp.class) {
+            return SQL_TIMESTAMP;
+        } else if (targetType == LocalDate.class) {
+            return LOCAL_DATE;
+        } else if (targetType == LocalTime.class) {
+            return LOCAL_TIME;
+        } else if (targetType == LocalDateTime.class) {
+            return LOCAL_DATE_TIME;
+        } else if (targetType == Instant.class) {
+            return INSTANT;
+        } else if (targetType == java.util.Date.class) {
+            // java.util.Date属性按列的实际类型读取
+            switch (sqlType) {
+                case Types.DATE:
+                    return SQL_DATE;
+                case Types.TIME:
+                    return SQL_TIME;
+                default:
+                    return SQL_TIMESTAMP;
+            }
+        }
+        return OBJECT;
+    }
+
+    /**
+     * 创建列绑定：读取一列并写入实体的属性
+     * @param property 目标属性，必须可写
+     * @param columnIndex 列索引（从1开始）
+     * @param sqlType 列的SQL类型（java.sql.Types）
+     * @return 列绑定
+     */
+    @SuppressWarnings("unchecked")
+    public static ColumnBinding bind(PropertyAccessor property, int columnIndex, int sqlType) {
+        // 1. 基本类型属性用对应的getter读取后直接写入，不经过包装类型
+        Object primitiveWriter = property.getPrimitiveWriter();
+        if (primitiveWriter instanceof ObjIntConsumer) {
+            ObjIntConsumer<Object> writer = (ObjIntConsumer<Object>) primitiveWriter;
+            return (rs, entity) -> {
+                int value = rs.getInt(columnIndex);
+                if (!rs.wasNull()) {
+                    writer.accept(entity, value);
+                }
+            };
+        } else if (primitiveWriter instanceof ObjLongConsumer) {
+            ObjLongConsumer<Object> writer = (ObjLongConsumer<Object>) primitiveWriter;
+            return (rs, entity) -> {
+                long value = rs.getLong(columnIndex);
+                if (!rs.wasNull()) {
+                    writer.accept(entity, value);
+                }
+            };
+        } else if (primitiveWriter instanceof ObjDoubleConsumer) {
+            ObjDoubleConsumer<Object> writer = (ObjDoubleConsumer<Object>) primitiveWriter;
+            return (rs, entity) -> {
+                double value = rs.getDouble(columnIndex);
+                if (!rs.wasNull()) {
+                    writer.accept(entity, value);
+                }
+            };
+        }
+
+        // 2. 其余类型按属性类型选择读取器
+        ColumnReader reader = forColumn(sqlType, property.getType());
+        BiConsumer<Object, Object> writer = property.getWriter();
+        return (rs, entity) -> {
+            Object value = reader.read(rs, columnIndex);
+            if (value != null) {
+                writer.accept(entity, value);
+            }
+        };
+    }
+}
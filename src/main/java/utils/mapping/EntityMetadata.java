@@ -0,0 +1,241 @@
+package utils.mapping;
+
+import annotations.Id;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 实体类元数据
+ * 每个实体类只解析一次，缓存构造器和所有属性的访问器
+ * 属性优先通过public的getter/setter访问，没有时直接访问字段
+ * 主键属性为标记了@Id的字段，没有标记时为第一个声明的字段
+ */
+public final class EntityMetadata {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final ConcurrentMap<Class<?>, EntityMetadata> CACHE = new ConcurrentHashMap<>();
+
+    private final Class<?> entityType;
+    private final MethodHandle constructor;
+    private final Supplier<Object> instantiator;
+    private final List<PropertyAccessor> properties;
+    // 归一化后的名称（小写、去掉下划线）到属性的映射，列名和别名都按此规则匹配
+    private final Map<String, PropertyAccessor> propertiesByKey;
+    private final PropertyAccessor idProperty;
+    private final boolean generatedId;
+
+    private EntityMetadata(Class<?> entityType) {
+        this.entityType = entityType;
+        this.constructor = findConstructor(entityType);
+        Supplier<Object> supplier = LambdaAccessors.constructor(entityType);
+        this.instantiator = supplier != null ? supplier : this::newInstance;
+        List<PropertyAccessor> list = new ArrayList<>();
+        Map<String, PropertyAccessor> byKey = new HashMap<>();
+        PropertyAccessor id = null;
+        Id idAnnotation = null;
+        for (Field field : entityType.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                continue;
+            }
+            PropertyAccessor accessor = createAccessor(entityType, field);
+            list.add(accessor);
+            byKey.put(normalize(field.getName()), accessor);
+            if (idAnnotation == null && field.isAnnotationPresent(Id.class)) {
+                idAnnotation = field.getAnnotation(Id.class);
+                id = accessor;
+            }
+        }
+        this.properties = Collections.unmodifiableList(list);
+        this.propertiesByKey = byKey;
+        this.idProperty = id != null ? id : (list.isEmpty() ? null : list.get(0));
+        this.generatedId = idAnnotation == null || idAnnotation.generated();
+    }
+
+    /**
+     * 获取实体类的元数据
+     * @param entityType 实体类
+     * @return 实体类元数据
+     */
+    public static EntityMetadata of(Class<?> entityType) {
+        return CACHE.computeIfAbsent(entityType, EntityMetadata::new);
+    }
+
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+
+    public List<PropertyAccessor> getProperties() {
+        return properties;
+    }
+
+    /**
+     * 获取主键属性
+     * @return 主键属性访问器，实体没有字段时返回null
+     */
+    public PropertyAccessor getIdProperty() {
+        return idProperty;
+    }
+
+    /**
+     * 主键是否由数据库生成
+     * @return 自增主键返回true
+     */
+    public boolean isGeneratedId() {
+        return generatedId;
+    }
+
+    /**
+     * 获取无参构造器，类型为()Object
+     * @return 构造器的MethodHandle
+     */
+    public MethodHandle getConstructor() {
+        return constructor;
+    }
+
+    /**
+     * 获取实例化器
+     * @return 由LambdaMetafactory生成的Supplier，无法生成时退回到构造器的MethodHandle
+     */
+    public Supplier<Object> getInstantiator() {
+        return instantiator;
+    }
+
+    /**
+     * 按列名查找属性
+     * course_id、courseId、COURSE_ID都会匹配到courseId属性
+     * @param columnLabel 列名或别名
+     * @return 属性访问器，没有对应属性时返回null
+     */
+    public PropertyAccessor findProperty(String columnLabel) {
+        return propertiesByKey.get(normalize(columnLabel));
+    }
+
+    /**
+     * 创建实体对象
+     * @return 新的实体对象
+     */
+    public Object newInstance() {
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to instantiate " + entityType.getName(), t);
+        }
+    }
+
+    /**
+     * 复制实体对象
+     * 缓存中保存的是副本，调用方修改返回的实体不会影响缓存；可变的日期属性也会复制
+     * @param entity 实体对象
+     * @return 新的实体对象，entity为null时返回null
+     */
+    public Object copy(Object entity) {
+        if (entity == null) {
+            return null;
+        }
+        Object copy = newInstance();
+        for (PropertyAccessor property : properties) {
+            if (property.getSetter() != null) {
+                Object value = property.get(entity);
+                if (value instanceof Date) {
+                    value = ((Date) value).clone();
+                }
+                property.set(copy, value);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * 名称归一化：去掉下划线并转为小写
+     * 编译期生成的行映射器用它匹配列名
+     */
+    public static String normalize(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '_') {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static MethodHandle findConstructor(Class<?> entityType) {
+        try {
+            return LOOKUP.findConstructor(entityType, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("No public no-arg constructor: " + entityType.getName(), e);
+        }
+    }
+
+    /**
+     * 创建属性访问器
+     * @param entityType 实体类
+     * @param field 属性对应的字段
+     * @return 属性访问器
+     */
+    private static PropertyAccessor createAccessor(Class<?> entityType, Field field) {
+        String name = field.getName();
+        String suffix = name.substring(0, 1).toUpperCase() + name.substring(1);
+        try {
+            // 1. 优先使用Lombok生成的getter/setter
+            MethodHandle getter = findMethod(entityType, "get" + suffix);
+            if (getter == null && (field.getType() == boolean.class)) {
+                getter = findMethod(entityType, "is" + suffix);
+            }
+            Method setterMethod = findPublicMethod(entityType, "set" + suffix, field.getType());
+            MethodHandle setter = setterMethod != null ? LOOKUP.unreflect(setterMethod) : null;
+
+            // 2. 没有对应方法时直接访问字段
+            if (getter == null || setter == null) {
+                field.setAccessible(true);
+                if (getter == null) {
+                    getter = LOOKUP.unreflectGetter(field);
+                }
+                if (setter == null && !Modifier.isFinal(field.getModifiers())) {
+                    setter = LOOKUP.unreflectSetter(field);
+                }
+            }
+            return new PropertyAccessor(name, field.getType(),
+                    getter.asType(GETTER_TYPE),
+                    setter != null ? setter.asType(SETTER_TYPE) : null,
+                    setterMethod != null ? LambdaAccessors.setter(setterMethod) : null,
+                    setterMethod != null ? LambdaAccessors.primitiveSetter(setterMethod) : null);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access property " + name + " of " + entityType.getName(), e);
+        }
+    }
+
+    private static MethodHandle findMethod(Class<?> type, String name, Class<?>... parameterTypes)
+            throws IllegalAccessException {
+        Method method = findPublicMethod(type, name, parameterTypes);
+        return method != null ? LOOKUP.unreflect(method) : null;
+    }
+
+    private static Method findPublicMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = type.getMethod(name, parameterTypes);
+            return Modifier.isStatic(method.getModifiers()) ? null : method;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package utils.mapping;
+
+import utils.log.LogManager;
+import utils.log.Logger;
+import utils.plan.BoundRowMapper;
+import utils.plan.RowMapper;
+
+import java.lang.invoke.MethodHandle;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 实体行映射器
+ * 每个结果集只读取一次元数据：把每个列索引绑定到对应属性的setter和类型匹配的列读取器，
+ * 之后逐行映射时只做列读取和MethodHandle调用，不再做名称转换和反射查找
+ */
+public final class EntityRowMapper implements RowMapper {
+    private static final Logger log = LogManager.getLogger(EntityRowMapper.class);
+    // 已经提示过的没有对应属性的列，避免每个结果集重复打印
+    private static final Set<String> REPORTED_COLUMNS = ConcurrentHashMap.newKeySet();
+
+    private final EntityMetadata metadata;
+
+    public EntityRowMapper(Class<?> entityType) {
+        this.metadata = EntityMetadata.of(entityType);
+    }
+
+    @Override
+    public BoundRowMapper bind(ResultSetMetaData metaData) throws SQLException {
+        // 1. 为每一列查找对应的属性和列读取器
+        int columnCount = metaData.getColumnCount();
+        List<Integer> indexes = new ArrayList<>(columnCount);
+        List<ColumnReader> readers = new ArrayList<>(columnCount);
+        List<MethodHandle> setters = new ArrayList<>(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            String columnLabel = metaData.getColumnLabel(i);
+            PropertyAccessor property = metadata.findProperty(columnLabel);
+            if (property == null || property.getSetter() == null) {
+                reportUnmappedColumn(metadata, columnLabel);
+                continue;
+            }
+            indexes.add(i);
+            readers.add(ColumnReaders.forColumn(metaData.getColumnType(i), property.getType()));
+            setters.add(property.getSetter());
+        }
+
+        // 2. 生成该结果集专用的映射器
+        int[] columnIndexes = new int[indexes.size()];
+        for (int i = 0; i < columnIndexes.length; i++) {
+            columnIndexes[i] = indexes.get(i);
+        }
+        return new Bound(metadata.getConstructor(), columnIndexes,
+                readers.toArray(new ColumnReader[0]), setters.toArray(new MethodHandle[0]));
+    }
+
+    /**
+     * 提示结果集中没有对应属性的列，每个实体的每一列只提示一次
+     * @param metadata 实体类元数据
+     * @param columnLabel 列名
+     */
+    static void reportUnmappedColumn(EntityMetadata metadata, String columnLabel) {
+        if (REPORTED_COLUMNS.add(metadata.getEntityType().getName() + "." + columnLabel)) {
+            log.warn("No setter found for column: {} on {}", columnLabel, metadata.getEntityType().getName());
+        }
+    }
+
+    /**
+     * 已绑定列的实体映射器
+     */
+    private static final class Bound implements BoundRowMapper {
+        private final MethodHandle constructor;
+        private final int[] columnIndexes;
+        private final ColumnReader[] readers;
+        private final MethodHandle[] setters;
+
+        Bound(MethodHandle constructor, int[] columnIndexes, ColumnReader[] readers, MethodHandle[] setters) {
+            this.constructor = constructor;
+            this.columnIndexes = columnIndexes;
+            this.readers = readers;
+            this.setters = setters;
+        }
+
+        @Override
+        public Object mapRow(ResultSet rs) throws Exception {
+            try {
+                Object entity = (Object) constructor.invokeExact();
+                for (int i = 0; i < setters.length; i++) {
+                    Object value = readers[i].read(rs, columnIndexes[i]);
+                    if (value != null) {
+                        setters[i].invokeExact(entity, value);
+                    }
+                }
+                return entity;
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+    }
+}
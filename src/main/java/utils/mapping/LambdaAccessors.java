@@ -0,0 +1,120 @@
+package utils.mapping;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 运行时生成的实体访问器
+ * 用LambdaMetafactory为构造器和setter生成实现Supplier、BiConsumer的类，调用时是普通的接口调用，
+ * JIT可以像编译期写好的代码一样内联，不再经过MethodHandle的invokeExact
+ * 只能为public类的public构造器和方法生成；不满足条件时返回null，由调用方使用MethodHandle
+ */
+public final class LambdaAccessors {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType SUPPLIER_FACTORY = MethodType.methodType(Supplier.class);
+    private static final MethodType BI_CONSUMER_FACTORY = MethodType.methodType(BiConsumer.class);
+    private static final MethodType GET_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType ACCEPT_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private LambdaAccessors() {
+    }
+
+    /**
+     * 生成无参构造器的Supplier
+     * @param type 实体类
+     * @return 每次调用创建一个新对象的Supplier，无法生成时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public static Supplier<Object> constructor(Class<?> type) {
+        if (!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers())) {
+            return null;
+        }
+        try {
+            Constructor<?> constructor = type.getConstructor();
+            MethodHandle handle = LOOKUP.unreflectConstructor(constructor);
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get", SUPPLIER_FACTORY,
+                    GET_TYPE, handle, MethodType.methodType(type));
+            return (Supplier<Object>) site.getTarget().invokeExact();
+        } catch (NoSuchMethodException | IllegalAccessException | LambdaConversionException e) {
+            return null;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to generate constructor accessor for " + type.getName(), t);
+        }
+    }
+
+    /**
+     * 生成setter的BiConsumer，第一个参数为实体对象，第二个参数为属性值
+     * 基本类型的属性接收对应的包装类型，调用时自动拆箱
+     * @param setter setter方法
+     * @return BiConsumer，无法生成时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public static BiConsumer<Object, Object> setter(Method setter) {
+        Class<?> owner = setter.getDeclaringClass();
+        if (!Modifier.isPublic(owner.getModifiers()) || !Modifier.isPublic(setter.getModifiers())
+                || Modifier.isStatic(setter.getModifiers()) || setter.getParameterCount() != 1) {
+            return null;
+        }
+        try {
+            MethodHandle handle = LOOKUP.unreflect(setter);
+            MethodType instantiated = MethodType.methodType(void.class, owner, wrap(setter.getParameterTypes()[0]));
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept", BI_CONSUMER_FACTORY,
+                    ACCEPT_TYPE, handle, instantiated);
+            return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+        } catch (IllegalAccessException | LambdaConversionException e) {
+            return null;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to generate setter accessor for " + setter, t);
+        }
+    }
+
+    /**
+     * 为int、long、double类型的setter生成ObjIntConsumer、ObjLongConsumer、ObjDoubleConsumer，写入时不装箱
+     * @param setter setter方法
+     * @return 写入器，参数不是这三种类型或无法生成时返回null
+     */
+    public static Object primitiveSetter(Method setter) {
+        Class<?> owner = setter.getDeclaringClass();
+        if (!Modifier.isPublic(owner.getModifiers()) || !Modifier.isPublic(setter.getModifiers())
+                || Modifier.isStatic(setter.getModifiers()) || setter.getParameterCount() != 1) {
+            return null;
+        }
+        Class<?> type = setter.getParameterTypes()[0];
+        Class<?> functionType;
+        if (type == int.class) {
+            functionType = ObjIntConsumer.class;
+        } else if (type == long.class) {
+            functionType = ObjLongConsumer.class;
+        } else if (type == double.class) {
+            functionType = ObjDoubleConsumer.class;
+        } else {
+            return null;
+        }
+        try {
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept", MethodType.methodType(functionType),
+                    MethodType.methodType(void.class, Object.class, type), LOOKUP.unreflect(setter),
+                    MethodType.methodType(void.class, owner, type));
+            return site.getTarget().invoke();
+        } catch (IllegalAccessException | LambdaConversionException e) {
+            return null;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to generate setter accessor for " + setter, t);
+        }
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+}
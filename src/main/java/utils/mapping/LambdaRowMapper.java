@@ -0,0 +1,95 @@
+package utils.mapping;
+
+import utils.plan.BoundRowMapper;
+import utils.plan.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 使用运行时生成的访问器的实体行映射器
+ * 构造器和setter由LambdaMetafactory生成（见LambdaAccessors），逐行映射时只有接口调用，
+ * int、long、double属性读取和写入都不装箱（见ColumnReaders.bind）；
+ * 没有编译期生成的行映射器时用它代替EntityRowMapper
+ *
+ * 绑定结果按结果集的形状（列名和列类型）缓存，同一条SQL的每次执行只在第一次读取时做列与属性的匹配
+ */
+public final class LambdaRowMapper implements RowMapper {
+    // 每个实体最多缓存的结果集形状数，超过后不再缓存，每次重新绑定
+    private static final int MAX_SHAPES = 256;
+
+    private final EntityMetadata metadata;
+    private final ConcurrentMap<String, Bound> shapes = new ConcurrentHashMap<>();
+
+    public LambdaRowMapper(Class<?> entityType) {
+        this.metadata = EntityMetadata.of(entityType);
+    }
+
+    @Override
+    public BoundRowMapper bind(ResultSetMetaData metaData) throws SQLException {
+        // 1. 读取结果集的形状，命中缓存时直接返回
+        int columnCount = metaData.getColumnCount();
+        String[] labels = new String[columnCount];
+        int[] types = new int[columnCount];
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < columnCount; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+            types[i] = metaData.getColumnType(i + 1);
+            key.append(labels[i]).append(':').append(types[i]).append(',');
+        }
+        String shape = key.toString();
+        Bound bound = shapes.get(shape);
+        if (bound != null) {
+            return bound;
+        }
+
+        // 2. 为每一列创建读取并写入对应属性的列绑定
+        List<ColumnBinding> bindings = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            PropertyAccessor property = metadata.findProperty(labels[i]);
+            if (property == null || property.getWriter() == null) {
+                EntityRowMapper.reportUnmappedColumn(metadata, labels[i]);
+                continue;
+            }
+            bindings.add(ColumnReaders.bind(property, i + 1, types[i]));
+        }
+        bound = new Bound(metadata.getInstantiator(), bindings.toArray(new ColumnBinding[0]));
+
+        // 3. 缓存该形状的绑定结果
+        if (shapes.size() < MAX_SHAPES) {
+            Bound existing = shapes.putIfAbsent(shape, bound);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * 已绑定列的实体映射器，不持有结果集，可以被同一形状的多个结果集共用
+     */
+    private static final class Bound implements BoundRowMapper {
+        private final Supplier<Object> instantiator;
+        private final ColumnBinding[] bindings;
+
+        Bound(Supplier<Object> instantiator, ColumnBinding[] bindings) {
+            this.instantiator = instantiator;
+            this.bindings = bindings;
+        }
+
+        @Override
+        public Object mapRow(ResultSet rs) throws Exception {
+            Object entity = instantiator.get();
+            for (ColumnBinding binding : bindings) {
+                binding.apply(rs, entity);
+            }
+            return entity;
+        }
+    }
+}
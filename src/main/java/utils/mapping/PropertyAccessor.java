@@ -0,0 +1,92 @@
+package utils.mapping;
+
+import java.lang.invoke.MethodHandle;
+import java.util.function.BiConsumer;
+
+/**
+ * 实体属性访问器
+ * 保存属性的名称、类型以及读写用的MethodHandle
+ * getter的类型统一为(Object)Object，setter的类型统一为(Object, Object)void
+ * 有public setter时另外生成一个BiConsumer形式的写入器，供逐行映射等高频写入使用；
+ * int、long、double类型的setter还会生成不装箱的ObjIntConsumer、ObjLongConsumer、ObjDoubleConsumer
+ */
+public final class PropertyAccessor {
+    private final String name;
+    private final Class<?> type;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+    private final BiConsumer<Object, Object> writer;
+    private final Object primitiveWriter;
+
+    PropertyAccessor(String name, Class<?> type, MethodHandle getter, MethodHandle setter,
+                     BiConsumer<Object, Object> writer, Object primitiveWriter) {
+        this.name = name;
+        this.type = type;
+        this.getter = getter;
+        this.setter = setter;
+        this.writer = writer != null ? writer : (setter != null ? this::set : null);
+        this.primitiveWriter = primitiveWriter;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public MethodHandle getGetter() {
+        return getter;
+    }
+
+    public MethodHandle getSetter() {
+        return setter;
+    }
+
+    /**
+     * 获取写入器
+     * @return 由LambdaMetafactory生成的写入器，没有public setter时退回到MethodHandle；属性只读时返回null
+     */
+    public BiConsumer<Object, Object> getWriter() {
+        return writer;
+    }
+
+    /**
+     * 获取基本类型属性的不装箱写入器
+     * @return ObjIntConsumer、ObjLongConsumer或ObjDoubleConsumer，属性不是int、long、double或没有public setter时返回null
+     */
+    public Object getPrimitiveWriter() {
+        return primitiveWriter;
+    }
+
+    /**
+     * 读取属性值
+     * @param entity 实体对象
+     * @return 属性值
+     */
+    public Object get(Object entity) {
+        try {
+            return (Object) getter.invokeExact(entity);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to read property " + name, t);
+        }
+    }
+
+    /**
+     * 写入属性值
+     * @param entity 实体对象
+     * @param value 属性值
+     */
+    public void set(Object entity, Object value) {
+        try {
+            setter.invokeExact(entity, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to write property " + name, t);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package utils.mapping;
+
+import utils.AppConfig;
+import utils.plan.RowMapper;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 行映射器工厂
+ * 优先使用编译期由MapperProcessor生成的XxxRowMapper，直接调用setter和类型匹配的ResultSet getter；
+ * 没有生成的类（例如实体不在@Table标记的查询结果中）时使用运行时由LambdaMetafactory生成访问器的LambdaRowMapper，
+ * 关闭后使用基于MethodHandle的EntityRowMapper
+ *
+ * 配置项：
+ * mapper.useGenerated      是否使用编译期生成的Mapper实现和行映射器，默认true
+ * mapper.lambdaAccessors   没有编译期生成的行映射器时是否使用LambdaRowMapper，默认false
+ */
+public final class RowMappers {
+    private static final boolean USE_GENERATED = AppConfig.getBoolean("mapper.useGenerated", true);
+    private static final boolean LAMBDA_ACCESSORS = AppConfig.getBoolean("mapper.lambdaAccessors", false);
+
+    private static final ConcurrentMap<Class<?>, RowMapper> CACHE = new ConcurrentHashMap<>();
+
+    private RowMappers() {
+    }
+
+    /**
+     * 是否使用编译期生成的类
+     */
+    public static boolean useGenerated() {
+        return USE_GENERATED;
+    }
+
+    /**
+     * 获取实体的行映射器
+     * @param entityType 实体类
+     * @return 行映射器
+     */
+    public static RowMapper forEntity(Class<?> entityType) {
+        return CACHE.computeIfAbsent(entityType, RowMappers::create);
+    }
+
+    private static RowMapper create(Class<?> entityType) {
+        if (USE_GENERATED) {
+            try {
+                Class<?> generated = Class.forName(entityType.getName() + "RowMapper", true, entityType.getClassLoader());
+                if (RowMapper.class.isAssignableFrom(generated)) {
+                    return (RowMapper) generated.getConstructor().newInstance();
+                }
+            } catch (ClassNotFoundException e) {
+                // 没有生成的行映射器
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to instantiate generated row mapper for " + entityType.getName(), e);
+            }
+        }
+        return LAMBDA_ACCESSORS ? new LambdaRowMapper(entityType) : new EntityRowMapper(entityType);
+    }
+}
@@ -0,0 +1,80 @@
+package utils.metrics;
+
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定分桶的延迟直方图
+ * 每个桶是一个LongAdder，记录时只做一次桶查找和两次累加，多线程并发记录不加锁
+ * 输出时按Prometheus的格式累加成le桶
+ */
+public final class LatencyHistogram {
+    // 桶的上界（秒），最后还有一个+Inf桶
+    private static final double[] BOUNDS_SECONDS = {
+            0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS_SECONDS.length];
+    // 输出用的le标签值，加上最后的+Inf
+    private static final String[] BOUND_LABELS = new String[BOUNDS_SECONDS.length + 1];
+
+    static {
+        for (int i = 0; i < BOUNDS_SECONDS.length; i++) {
+            BOUNDS_NANOS[i] = (long) (BOUNDS_SECONDS[i] * TimeUnit.SECONDS.toNanos(1));
+            BOUND_LABELS[i] = BigDecimal.valueOf(BOUNDS_SECONDS[i]).stripTrailingZeros().toPlainString();
+        }
+        BOUND_LABELS[BOUNDS_SECONDS.length] = "+Inf";
+    }
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_NANOS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次耗时
+     * @param nanos 耗时（纳秒）
+     */
+    public void record(long nanos) {
+        int i = 0;
+        while (i < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * 累计记录次数
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * 以Prometheus文本格式输出_bucket、_sum、_count三组样本
+     * @param out 输出
+     * @param name 指标名
+     * @param labels 标签，形如 a="1",b="2"，没有标签时为空字符串
+     */
+    void write(PrintWriter out, String name, String labels) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i].sum();
+            out.print(name + "_bucket{" + prefix + "le=\"" + BOUND_LABELS[i] + "\"} " + cumulative + "\n");
+        }
+        String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.print(name + "_sum" + suffix + " " + sumNanos.sum() / 1e9 + "\n");
+        out.print(name + "_count" + suffix + " " + cumulative + "\n");
+    }
+}
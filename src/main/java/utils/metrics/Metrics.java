@@ -0,0 +1,145 @@
+package utils.metrics;
+
+import utils.AppConfig;
+import utils.DbExecutor;
+import utils.cache.CacheManager;
+import utils.cache.CacheStatistics;
+import utils.log.AsyncAppender;
+import utils.log.LogManager;
+import utils.log.SlowQueryLog;
+import utils.pool.PoolStatistics;
+import utils.strategy.AbstractSqlStrategy;
+
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 运行指标的注册表
+ * 记录每个Mapper方法的调用耗时、错误次数、执行次数和行数，以及借连接的等待时间，
+ * 并把这些指标和连接池、缓存、线程池、日志的统计一起以Prometheus文本格式输出
+ *
+ * 配置项：
+ * metrics.enabled   是否记录Mapper方法和借连接的指标，默认true
+ */
+public final class Metrics {
+    private static final boolean ENABLED = AppConfig.getBoolean("metrics.enabled", true);
+
+    // Mapper方法到指标的映射
+    private static final ConcurrentMap<Method, StatementMetrics> STATEMENTS = new ConcurrentHashMap<>();
+    // 从连接池借连接的等待时间，事务中复用已绑定的连接不计入
+    private static final LatencyHistogram CONNECTION_ACQUIRE = new LatencyHistogram();
+
+    private Metrics() {
+    }
+
+    /**
+     * 是否记录指标，关闭时调用方不必计时
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * 获取Mapper方法的指标，语句计划编译时调用一次并保存
+     * @param method Mapper方法
+     * @return 指标
+     */
+    public static StatementMetrics statement(Method method) {
+        return STATEMENTS.computeIfAbsent(method, StatementMetrics::new);
+    }
+
+    /**
+     * 记录一次借连接的等待时间
+     * @param nanos 等待时间（纳秒）
+     */
+    public static void recordConnectionAcquire(long nanos) {
+        CONNECTION_ACQUIRE.record(nanos);
+    }
+
+    /**
+     * 以Prometheus文本格式输出所有指标
+     * @param out 输出
+     */
+    public static void writePrometheus(PrintWriter out) {
+        // 1. Mapper方法，按名称排序让输出稳定
+        List<StatementMetrics> statements = new ArrayList<>(STATEMENTS.values());
+        statements.sort(Comparator.comparing(StatementMetrics::getMapper).thenComparing(StatementMetrics::getMethod));
+
+        header(out, "mapper_call_duration_seconds", "histogram", "Mapper方法调用耗时，包括命中缓存的调用");
+        for (StatementMetrics statement : statements) {
+            statement.getLatency().write(out, "mapper_call_duration_seconds", statement.labels());
+        }
+        header(out, "mapper_call_errors_total", "counter", "Mapper方法抛出异常的次数");
+        for (StatementMetrics statement : statements) {
+            sample(out, "mapper_call_errors_total", statement.labels(), statement.getErrors());
+        }
+        header(out, "mapper_statement_executions_total", "counter", "实际访问数据库的执行次数");
+        for (StatementMetrics statement : statements) {
+            sample(out, "mapper_statement_executions_total", statement.labels(), statement.getExecutions());
+        }
+        header(out, "mapper_statement_rows_total", "counter", "查询返回或写语句影响的行数");
+        for (StatementMetrics statement : statements) {
+            sample(out, "mapper_statement_rows_total", statement.labels(), statement.getRows());
+        }
+
+        // 2. 连接池
+        header(out, "db_connection_acquire_seconds", "histogram", "从连接池借连接的等待时间");
+        CONNECTION_ACQUIRE.write(out, "db_connection_acquire_seconds", "");
+        PoolStatistics pool = AbstractSqlStrategy.getDataSource().getStatistics();
+        header(out, "db_pool_connections", "gauge", "连接池中的连接数");
+        sample(out, "db_pool_connections", "state=\"active\"", pool.getActiveConnections());
+        sample(out, "db_pool_connections", "state=\"idle\"", pool.getIdleConnections());
+        header(out, "db_pool_pending_threads", "gauge", "正在等待借连接的线程数");
+        sample(out, "db_pool_pending_threads", "", pool.getPendingThreads());
+        header(out, "db_pool_borrow_timeouts_total", "counter", "借连接超时次数");
+        sample(out, "db_pool_borrow_timeouts_total", "", pool.getTimeoutCount());
+        header(out, "db_pool_leaks_total", "counter", "检测到的连接泄漏次数");
+        sample(out, "db_pool_leaks_total", "", pool.getLeakCount());
+        header(out, "db_statement_cache_requests_total", "counter", "PreparedStatement缓存的请求次数");
+        sample(out, "db_statement_cache_requests_total", "result=\"hit\"", pool.getStatementCacheHits());
+        sample(out, "db_statement_cache_requests_total", "result=\"miss\"", pool.getStatementCacheMisses());
+
+        // 3. 二级缓存
+        CacheStatistics[] caches = {CacheManager.getEntityStatistics(), CacheManager.getQueryStatistics()};
+        header(out, "cache_requests_total", "counter", "缓存的读取次数");
+        for (CacheStatistics cache : caches) {
+            sample(out, "cache_requests_total", "cache=\"" + cache.getName() + "\",result=\"hit\"", cache.getHits());
+            sample(out, "cache_requests_total", "cache=\"" + cache.getName() + "\",result=\"miss\"", cache.getMisses());
+        }
+        header(out, "cache_evictions_total", "counter", "因容量或过期被淘汰的条目数");
+        for (CacheStatistics cache : caches) {
+            sample(out, "cache_evictions_total", "cache=\"" + cache.getName() + "\"", cache.getEvictions());
+        }
+        header(out, "cache_size", "gauge", "缓存的条目数");
+        for (CacheStatistics cache : caches) {
+            sample(out, "cache_size", "cache=\"" + cache.getName() + "\"", cache.getSize());
+        }
+
+        // 4. 异步线程池、慢查询和日志
+        header(out, "db_executor_active_threads", "gauge", "正在处理请求的数据库线程数");
+        sample(out, "db_executor_active_threads", "", DbExecutor.getActiveCount());
+        header(out, "db_executor_queue_size", "gauge", "排队等待处理的请求数");
+        sample(out, "db_executor_queue_size", "", DbExecutor.getQueueSize());
+        header(out, "sql_slow_statements_total", "counter", "超过慢查询阈值的语句数");
+        sample(out, "sql_slow_statements_total", "", SlowQueryLog.getSlowQueryCount());
+        if (LogManager.getAppender() instanceof AsyncAppender) {
+            header(out, "log_dropped_events_total", "counter", "异步日志队列满时丢弃的日志数");
+            sample(out, "log_dropped_events_total", "", ((AsyncAppender) LogManager.getAppender()).getDroppedCount());
+        }
+    }
+
+    private static void header(PrintWriter out, String name, String type, String help) {
+        out.print("# HELP " + name + " " + help + "\n");
+        out.print("# TYPE " + name + " " + type + "\n");
+    }
+
+    private static void sample(PrintWriter out, String name, String labels, long value) {
+        out.print(labels.isEmpty() ? name : name + "{" + labels + "}");
+        out.print(" " + value + "\n");
+    }
+}
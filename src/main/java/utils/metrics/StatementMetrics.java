@@ -0,0 +1,74 @@
+package utils.metrics;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个Mapper方法的执行指标
+ * 调用耗时包括命中缓存的调用，执行次数和行数只统计实际访问数据库的执行
+ */
+public final class StatementMetrics {
+    private final String mapper;
+    private final String method;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+
+    StatementMetrics(Method method) {
+        this.mapper = method.getDeclaringClass().getSimpleName();
+        this.method = method.getName();
+    }
+
+    /**
+     * 记录一次Mapper方法调用
+     * @param nanos 调用耗时（纳秒）
+     * @param failed 是否抛出了异常
+     */
+    public void recordCall(long nanos, boolean failed) {
+        latency.record(nanos);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * 记录一次数据库执行
+     * @param rowCount 查询返回或写语句影响的行数
+     */
+    public void recordExecution(long rowCount) {
+        executions.increment();
+        rows.add(rowCount);
+    }
+
+    public String getMapper() {
+        return mapper;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    /**
+     * Prometheus标签
+     */
+    String labels() {
+        return "mapper=\"" + mapper + "\",method=\"" + method + "\"";
+    }
+}
@@ -0,0 +1,43 @@
+package utils.page;
+
+import utils.AppConfig;
+import utils.plan.ParameterBinder;
+
+/**
+ * 分页参数处理
+ * 每页行数限制在[1, page.maxLimit]之间，未指定时使用page.defaultLimit
+ */
+public final class PageLimits {
+    public static final int DEFAULT_LIMIT = AppConfig.getInt("page.defaultLimit", 100);
+    public static final int MAX_LIMIT = AppConfig.getInt("page.maxLimit", 1000);
+
+    /**
+     * LIMIT占位符的绑定器，多取一行用于判断是否还有下一页
+     */
+    public static final ParameterBinder LIMIT = (ps, index, value) -> ps.setInt(index, normalize(value) + 1);
+
+    /**
+     * 游标占位符的绑定器，游标为null时从最小值开始，保证条件始终是走索引的范围扫描
+     */
+    public static final ParameterBinder CURSOR = (ps, index, value) ->
+            ps.setLong(index, value == null ? Long.MIN_VALUE : ((Number) value).longValue());
+
+    private PageLimits() {
+    }
+
+    /**
+     * 规范化每页行数
+     * @param limit 请求的行数，可以为null
+     * @return 实际使用的行数
+     */
+    public static int normalize(Object limit) {
+        if (limit == null) {
+            return DEFAULT_LIMIT;
+        }
+        int value = ((Number) limit).intValue();
+        if (value <= 0) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(value, MAX_LIMIT);
+    }
+}
@@ -0,0 +1,35 @@
+package utils.page;
+
+import java.util.List;
+
+/**
+ * 键集分页的一页结果
+ * @param <T> 实体类型
+ */
+public class PageResult<T> {
+    private final List<T> items;
+    private final Object nextCursor;
+
+    public PageResult(List<T> items, Object nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * 本页数据，按键升序排列
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * 下一页的游标，即本页最后一行的键值；没有下一页时为null
+     */
+    public Object getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,18 @@
+package utils.plan;
+
+import java.sql.ResultSet;
+
+/**
+ * 已绑定到某个结果集的行映射器
+ * 把结果集的当前行转换为返回对象
+ */
+@FunctionalInterface
+public interface BoundRowMapper {
+    /**
+     * 映射当前行
+     * @param rs 已经定位到某一行的结果集
+     * @return 映射后的对象
+     * @throws Exception 如果映射过程出错
+     */
+    Object mapRow(ResultSet rs) throws Exception;
+}
@@ -0,0 +1,251 @@
+package utils.plan;
+
+import annotations.Param;
+import utils.log.LogManager;
+import utils.log.Logger;
+import utils.mapping.LambdaAccessors;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 实体组装器
+ * 用Mapper方法的参数创建实体对象，用于写操作返回写入后的实体
+ * 参数与属性的对应关系和属性的setter在编译语句计划时确定，
+ * 构造器和类型兼容的setter由LambdaMetafactory生成访问器，需要数值转换或直接写字段时使用MethodHandle
+ */
+public final class EntityAssembler {
+    private static final Logger log = LogManager.getLogger(EntityAssembler.class);
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Supplier<Object> constructor;
+    private final int[] argIndexes;
+    private final BiConsumer<Object, Object>[] setters;
+    private final BiConsumer<Object, Object> keySetter;
+
+    private EntityAssembler(Supplier<Object> constructor, int[] argIndexes, BiConsumer<Object, Object>[] setters,
+                            BiConsumer<Object, Object> keySetter) {
+        this.constructor = constructor;
+        this.argIndexes = argIndexes;
+        this.setters = setters;
+        this.keySetter = keySetter;
+    }
+
+    /**
+     * 按@Param名称把参数设置到同名属性上
+     * @param entityType 实体类
+     * @param method Mapper方法
+     * @param withGeneratedKey 是否把生成的主键设置到实体的主键属性（第一个声明的字段）上
+     * @return 实体组装器
+     */
+    @SuppressWarnings("unchecked")
+    public static EntityAssembler byParamNames(Class<?> entityType, Method method, boolean withGeneratedKey) {
+        // 1. 收集每个@Param参数对应的setter
+        List<Integer> indexes = new ArrayList<>();
+        List<BiConsumer<Object, Object>> handles = new ArrayList<>();
+        Parameter[] parameters = method.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            Param param = parameters[i].getAnnotation(Param.class);
+            if (param == null) {
+                continue;
+            }
+            BiConsumer<Object, Object> setter = findSetter(entityType, param.value(), parameters[i].getType());
+            if (setter != null) {
+                indexes.add(i);
+                handles.add(setter);
+            }
+        }
+
+        // 2. 主键属性约定为实体的第一个字段
+        BiConsumer<Object, Object> keySetter = null;
+        if (withGeneratedKey) {
+            Field[] fields = entityType.getDeclaredFields();
+            if (fields.length > 0) {
+                keySetter = findSetter(entityType, fields[0].getName(), Number.class);
+            }
+        }
+        return new EntityAssembler(findConstructor(entityType), toIntArray(indexes),
+                handles.toArray(new BiConsumer[0]), keySetter);
+    }
+
+    /**
+     * 按字段声明顺序把第i个参数设置到第i个字段上
+     * @param entityType 实体类
+     * @param argCount 参数个数
+     * @return 实体组装器
+     */
+    @SuppressWarnings("unchecked")
+    public static EntityAssembler byFieldOrder(Class<?> entityType, int argCount) {
+        Field[] fields = entityType.getDeclaredFields();
+        int count = Math.min(argCount, fields.length);
+        int[] indexes = new int[count];
+        BiConsumer<Object, Object>[] handles = new BiConsumer[count];
+        for (int i = 0; i < count; i++) {
+            Field field = fields[i];
+            field.setAccessible(true);
+            try {
+                indexes[i] = i;
+                handles[i] = writer(LOOKUP.unreflectSetter(field).asType(SETTER_TYPE));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot access field " + field, e);
+            }
+        }
+        return new EntityAssembler(findConstructor(entityType), indexes, handles, null);
+    }
+
+    /**
+     * 组装实体对象
+     * @param args Mapper方法参数
+     * @param generatedKey 生成的主键，没有时为null
+     * @return 实体对象
+     * @throws Exception 如果组装过程出错
+     */
+    public Object assemble(Object[] args, Object generatedKey) throws Exception {
+        Object instance = constructor.get();
+        if (keySetter != null && generatedKey != null) {
+            keySetter.accept(instance, generatedKey);
+        }
+        for (int i = 0; i < setters.length; i++) {
+            setters[i].accept(instance, args[argIndexes[i]]);
+        }
+        return instance;
+    }
+
+    /**
+     * 查找实体类的无参构造器
+     */
+    private static Supplier<Object> findConstructor(Class<?> entityType) {
+        Supplier<Object> supplier = LambdaAccessors.constructor(entityType);
+        if (supplier != null) {
+            return supplier;
+        }
+        try {
+            MethodHandle handle = LOOKUP.findConstructor(entityType, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            return () -> {
+                try {
+                    return (Object) handle.invokeExact();
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            };
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("No public no-arg constructor: " + entityType.getName(), e);
+        }
+    }
+
+    /**
+     * 查找属性的setter，并在参数类型与属性类型不一致时加上数值转换
+     * @param entityType 实体类
+     * @param propertyName 属性名
+     * @param valueType 写入值的类型
+     * @return setter，找不到时返回null
+     */
+    private static BiConsumer<Object, Object> findSetter(Class<?> entityType, String propertyName, Class<?> valueType) {
+        String setterName = "set" + propertyName.substring(0, 1).toUpperCase() + propertyName.substring(1);
+        Class<?> propertyType;
+        Method setter;
+        try {
+            propertyType = entityType.getDeclaredField(propertyName).getType();
+            setter = entityType.getMethod(setterName, propertyType);
+        } catch (NoSuchFieldException | NoSuchMethodException e) {
+            log.warn("Could not find setter: {} on {}", setterName, entityType.getName());
+            return null;
+        }
+        if (Modifier.isStatic(setter.getModifiers())) {
+            return null;
+        }
+        try {
+            MethodHandle handle = LOOKUP.unreflect(setter);
+            // 1. 类型兼容时直接使用setter
+            if (wrap(propertyType).isAssignableFrom(wrap(valueType))) {
+                BiConsumer<Object, Object> accessor = LambdaAccessors.setter(setter);
+                return accessor != null ? accessor : writer(handle.asType(SETTER_TYPE));
+            }
+            // 2. 数值类型之间先做转换，例如double参数写入Integer属性
+            if (Number.class.isAssignableFrom(wrap(valueType)) && Number.class.isAssignableFrom(wrap(propertyType))) {
+                MethodHandle converter = LOOKUP.findStatic(EntityAssembler.class, "convertNumber",
+                        MethodType.methodType(Object.class, Object.class, Class.class));
+                converter = MethodHandles.insertArguments(converter, 1, wrap(propertyType));
+                return writer(MethodHandles.filterArguments(handle.asType(SETTER_TYPE), 1, converter));
+            }
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access setter " + setter, e);
+        }
+        log.warn("Could not find setter: {} for type {}", setterName, valueType.getName());
+        return null;
+    }
+
+    /**
+     * 把类型为(Object, Object)void的MethodHandle包装成BiConsumer
+     */
+    private static BiConsumer<Object, Object> writer(MethodHandle handle) {
+        return (instance, value) -> {
+            try {
+                handle.invokeExact(instance, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        };
+    }
+
+    /**
+     * 数值类型转换
+     * @param value 原始值
+     * @param targetType 目标包装类型
+     * @return 转换后的值
+     */
+    @SuppressWarnings("unused")
+    private static Object convertNumber(Object value, Class<?> targetType) {
+        if (value == null || targetType.isInstance(value)) {
+            return value;
+        }
+        Number number = (Number) value;
+        if (targetType == Integer.class) {
+            return number.intValue();
+        } else if (targetType == Long.class) {
+            return number.longValue();
+        } else if (targetType == Double.class) {
+            return number.doubleValue();
+        } else if (targetType == Float.class) {
+            return number.floatValue();
+        } else if (targetType == Short.class) {
+            return number.shortValue();
+        } else if (targetType == Byte.class) {
+            return number.byteValue();
+        }
+        return value;
+    }
+
+    /**
+     * 基本类型转换为包装类型
+     */
+    private static Class<?> wrap(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    private static int[] toIntArray(List<Integer> list) {
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,21 @@
+package utils.plan;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 参数绑定器
+ * 把一个方法参数值设置到PreparedStatement的指定位置
+ * 绑定器在编译语句计划时根据参数的声明类型选定，执行时不再做类型判断
+ */
+@FunctionalInterface
+public interface ParameterBinder {
+    /**
+     * 绑定参数值
+     * @param ps PreparedStatement对象
+     * @param index 参数索引（从1开始）
+     * @param value 参数值
+     * @throws SQLException 如果设置参数失败
+     */
+    void bind(PreparedStatement ps, int index, Object value) throws SQLException;
+}
@@ -0,0 +1,157 @@
+package utils.plan;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Date;
+
+/**
+ * 参数绑定器工厂
+ * 根据参数的声明类型返回对应的绑定器
+ */
+public final class ParameterBinders {
+    private static final ParameterBinder INT = (ps, index, value) -> {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, ((Number) value).intValue());
+        }
+    };
+
+    private static final ParameterBinder LONG = (ps, index, value) -> {
+        if (value == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, ((Number) value).longValue());
+        }
+    };
+
+    private static final ParameterBinder DOUBLE = (ps, index, value) -> {
+        if (value == null) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, ((Number) value).doubleValue());
+        }
+    };
+
+    private static final ParameterBinder FLOAT = (ps, index, value) -> {
+        if (value == null) {
+            ps.setNull(index, Types.FLOAT);
+        } else {
+            ps.setFloat(index, ((Number) value).floatValue());
+        }
+    };
+
+    private static final ParameterBinder BOOLEAN = (ps, index, value) -> {
+        if (value == null) {
+            ps.setNull(index, Types.BOOLEAN);
+        } else {
+            ps.setBoolean(index, (Boolean) value);
+        }
+    };
+
+    private static final ParameterBinder STRING = (ps, index, value) -> {
+        if (value == null) {
+            ps.setNull(index, Types.VARCHAR);
+        } else {
+            ps.setString(index, (String) value);
+        }
+    };
+
+    private static final ParameterBinder DATE = (ps, index, value) -> {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else {
+            ps.setTimestamp(index, new Timestamp(((Date) value).getTime()));
+        }
+    };
+
+    private static final ParameterBinder INSTANT = (ps, index, value) -> {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else {
+            ps.setTimestamp(index, Timestamp.from((Instant) value));
+        }
+    };
+
+    // LocalDate、LocalTime、LocalDateTime通过JDBC 4.2的setObject直接绑定
+    private static final ParameterBinder LOCAL_DATE = javaTime(Types.DATE);
+    private static final ParameterBinder LOCAL_TIME = javaTime(Types.TIME);
+    private static final ParameterBinder LOCAL_DATE_TIME = javaTime(Types.TIMESTAMP);
+
+    /**
+     * 声明类型不确定时使用，执行时按实际类型选择setter方法
+     */
+    private static final ParameterBinder DYNAMIC = (ps, index, value) -> {
+        if (value == null) {
+            ps.setNull(index, Types.NULL);
+        } else if (value instanceof String) {
+            STRING.bind(ps, index, value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            INT.bind(ps, index, value);
+        } else if (value instanceof Long) {
+            LONG.bind(ps, index, value);
+        } else if (value instanceof Double) {
+            DOUBLE.bind(ps, index, value);
+        } else if (value instanceof Float) {
+            FLOAT.bind(ps, index, value);
+        } else if (value instanceof Boolean) {
+            BOOLEAN.bind(ps, index, value);
+        } else if (value instanceof Date) {
+            DATE.bind(ps, index, value);
+        } else if (value instanceof Instant) {
+            INSTANT.bind(ps, index, value);
+        } else {
+            ps.setObject(index, value);
+        }
+    };
+
+    private ParameterBinders() {
+    }
+
+    /**
+     * 获取参数类型对应的绑定器
+     * @param type 参数的声明类型
+     * @return 参数绑定器
+     */
+    public static ParameterBinder forType(Class<?> type) {
+        if (type == int.class || type == Integer.class || type == short.class || type == Short.class
+                || type == byte.class || type == Byte.class) {
+            return INT;
+        } else if (type == long.class || type == Long.class) {
+            return LONG;
+        } else if (type == double.class || type == Double.class) {
+            return DOUBLE;
+        } else if (type == float.class || type == Float.class) {
+            return FLOAT;
+        } else if (type == boolean.class || type == Boolean.class) {
+            return BOOLEAN;
+        } else if (type == String.class) {
+            return STRING;
+        } else if (Date.class.isAssignableFrom(type)) {
+            return DATE;
+        } else if (type == Instant.class) {
+            return INSTANT;
+        } else if (type == LocalDate.class) {
+            return LOCAL_DATE;
+        } else if (type == LocalTime.class) {
+            return LOCAL_TIME;
+        } else if (type == LocalDateTime.class) {
+            return LOCAL_DATE_TIME;
+        }
+        return DYNAMIC;
+    }
+
+    private static ParameterBinder javaTime(int sqlType) {
+        return (ps, index, value) -> {
+            if (value == null) {
+                ps.setNull(index, sqlType);
+            } else {
+                ps.setObject(index, value, sqlType);
+            }
+        };
+    }
+}
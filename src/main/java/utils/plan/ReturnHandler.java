@@ -0,0 +1,20 @@
+package utils.plan;
+
+import java.sql.ResultSet;
+
+/**
+ * 返回值处理器
+ * 把JDBC的执行结果转换为Mapper方法声明的返回形态
+ */
+@FunctionalInterface
+public interface ReturnHandler {
+    /**
+     * 处理执行结果
+     * @param rs 查询语句的结果集；写语句为生成的主键结果集，没有时为null
+     * @param affected 写语句影响的行数，查询语句为-1
+     * @param args Mapper方法参数
+     * @return Mapper方法的返回值
+     * @throws Exception 如果处理过程出错
+     */
+    Object handle(ResultSet rs, int affected, Object[] args) throws Exception;
+}
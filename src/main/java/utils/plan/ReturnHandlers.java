@@ -0,0 +1,131 @@
+package utils.plan;
+
+import utils.mapping.PropertyAccessor;
+import utils.page.PageLimits;
+import utils.page.PageResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 常用返回值处理器
+ */
+public final class ReturnHandlers {
+    private ReturnHandlers() {
+    }
+
+    /**
+     * 查询结果映射为列表
+     * @param rowMapper 行映射器
+     * @return 返回值处理器
+     */
+    public static ReturnHandler list(RowMapper rowMapper) {
+        return (rs, affected, args) -> {
+            List<Object> resultList = new ArrayList<>();
+            BoundRowMapper mapper = rowMapper.bind(rs.getMetaData());
+            while (rs.next()) {
+                resultList.add(mapper.mapRow(rs));
+            }
+            return resultList;
+        };
+    }
+
+    /**
+     * 键集分页查询结果映射为一页
+     * SQL多取一行，取到时说明还有下一页，游标为本页最后一行的键值
+     * @param rowMapper 行映射器
+     * @param limitIndex 每页行数参数的下标
+     * @param keyProperty 分页键对应的属性
+     * @return 返回值处理器
+     */
+    public static ReturnHandler page(RowMapper rowMapper, int limitIndex, PropertyAccessor keyProperty) {
+        return (rs, affected, args) -> {
+            int limit = PageLimits.normalize(args[limitIndex]);
+            List<Object> items = new ArrayList<>(Math.min(limit, 1024));
+            BoundRowMapper mapper = rowMapper.bind(rs.getMetaData());
+            boolean hasNext = false;
+            while (rs.next()) {
+                if (items.size() == limit) {
+                    hasNext = true;
+                    break;
+                }
+                items.add(mapper.mapRow(rs));
+            }
+            Object nextCursor = hasNext ? keyProperty.get(items.get(items.size() - 1)) : null;
+            return new PageResult<>(items, nextCursor);
+        };
+    }
+
+    /**
+     * 查询结果逐行交给回调处理，不在内存中保留结果列表
+     * @param rowMapper 行映射器
+     * @param consumerIndex Consumer参数的下标
+     * @param returnType Mapper方法的返回类型，int/long返回处理的行数，其余返回null
+     * @return 返回值处理器
+     */
+    @SuppressWarnings("unchecked")
+    public static ReturnHandler stream(RowMapper rowMapper, int consumerIndex, Class<?> returnType) {
+        return (rs, affected, args) -> {
+            Consumer<Object> consumer = (Consumer<Object>) args[consumerIndex];
+            BoundRowMapper mapper = rowMapper.bind(rs.getMetaData());
+            long count = 0;
+            while (rs.next()) {
+                consumer.accept(mapper.mapRow(rs));
+                count++;
+            }
+            if (returnType == long.class || returnType == Long.class) {
+                return count;
+            }
+            if (returnType == int.class || returnType == Integer.class) {
+                return (int) count;
+            }
+            return null;
+        };
+    }
+
+    /**
+     * 查询结果映射为单个对象，没有结果时返回null
+     * @param rowMapper 行映射器
+     * @return 返回值处理器
+     */
+    public static ReturnHandler single(RowMapper rowMapper) {
+        return (rs, affected, args) -> rs.next() ? rowMapper.bind(rs.getMetaData()).mapRow(rs) : null;
+    }
+
+    /**
+     * 写语句返回影响行数或是否成功
+     * @param returnType Mapper方法的返回类型
+     * @return 返回值处理器
+     */
+    public static ReturnHandler affectedRows(Class<?> returnType) {
+        if (returnType == Integer.class || returnType == int.class) {
+            return (rs, affected, args) -> affected;
+        }
+        return (rs, affected, args) -> affected > 0;
+    }
+
+    /**
+     * 写语句成功时用方法参数组装实体对象，失败时返回null
+     * 如果有生成的主键，同时设置到实体对象上
+     * @param assembler 实体组装器
+     * @return 返回值处理器
+     */
+    public static ReturnHandler assembledEntity(EntityAssembler assembler) {
+        return (rs, affected, args) -> {
+            if (affected <= 0) {
+                return null;
+            }
+            Object generatedKey = rs != null && rs.next() ? rs.getObject(1) : null;
+            return assembler.assemble(args, generatedKey);
+        };
+    }
+
+    /**
+     * 返回第一个方法参数，用于批量写语句返回传入的实体列表
+     * @return 返回值处理器
+     */
+    public static ReturnHandler firstArgument() {
+        return (rs, affected, args) -> args[0];
+    }
+}
@@ -0,0 +1,20 @@
+package utils.plan;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * 行映射器
+ * 每个结果集开始读取前调用一次bind()，根据结果集元数据确定每一列的读取和写入方式，
+ * 之后该结果集的所有行都复用同一个绑定结果
+ */
+@FunctionalInterface
+public interface RowMapper {
+    /**
+     * 根据结果集元数据绑定列
+     * @param metaData 结果集元数据
+     * @return 该结果集专用的行映射器
+     * @throws SQLException 如果读取元数据失败
+     */
+    BoundRowMapper bind(ResultSetMetaData metaData) throws SQLException;
+}
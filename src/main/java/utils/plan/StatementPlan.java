@@ -0,0 +1,119 @@
+package utils.plan;
+
+import lombok.Builder;
+import lombok.Getter;
+import utils.mapping.ColumnReader;
+import utils.mapping.EntityMetadata;
+import utils.mapping.PropertyAccessor;
+import utils.metrics.Metrics;
+import utils.metrics.StatementMetrics;
+import utils.strategy.SqlExecutionStrategy;
+
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 编译后的语句计划
+ * 每个Mapper方法在创建代理时编译一次，保存执行时需要的全部信息：
+ * 最终的SQL文本、按占位符顺序排列的参数绑定器、行映射器和返回值处理器
+ * 执行时不再拼接SQL字符串，也不再读取注解
+ * 批量语句的参数是实体列表，每个占位符从实体的某个属性取值
+ * 按主键查询单个实体的语句记录缓存表和主键参数，其余可缓存的查询记录依赖的表，
+ * 写语句记录被写入的表，执行后使缓存失效
+ */
+@Getter
+@Builder
+public final class StatementPlan {
+    /** 对应的Mapper方法 */
+    private final Method method;
+    /** 负责执行的SQL策略 */
+    private final SqlExecutionStrategy strategy;
+    /** 最终的SQL文本，命名参数已替换为问号占位符 */
+    private final String sql;
+    /** 是否为查询语句 */
+    private final boolean query;
+    /** 是否为流式查询，结果逐行交给Consumer参数，使用只进游标读取 */
+    private final boolean streaming;
+    /** 是否需要返回生成的主键 */
+    private final boolean returnGeneratedKeys;
+    /** 是否为批量语句，参数为List时每个元素执行一次 */
+    private final boolean batch;
+    /** 第i个占位符对应的方法参数下标 */
+    private final int[] argIndexes;
+    /** 第i个占位符使用的参数绑定器 */
+    private final ParameterBinder[] binders;
+    /** 批量语句中第i个占位符读取的实体属性 */
+    private final PropertyAccessor[] properties;
+    /** 批量插入时回填生成主键的属性，不需要回填时为null */
+    private final PropertyAccessor keyProperty;
+    /** 读取生成主键的列读取器 */
+    private final ColumnReader keyReader;
+    /** 查询语句的行映射器，写语句为null */
+    private final RowMapper rowMapper;
+    /** 返回值处理器 */
+    private final ReturnHandler returnHandler;
+
+    /** 按主键查询单个实体时结果缓存所在的表，不可缓存时为null */
+    private final String cacheTable;
+    /** 主键对应的方法参数下标 */
+    private final int cacheKeyIndex;
+    /** 查询结果缓存依赖的表，不可缓存时为null */
+    private final String[] queryTables;
+    /** 缓存实体的元数据，用于复制缓存中的实体 */
+    private final EntityMetadata cacheEntity;
+    /** 缓存或写入所按的主键列名 */
+    private final String keyColumn;
+    /** 写语句写入的表，查询语句为null */
+    private final String writeTable;
+    /** 写语句的主键对应的方法参数下标，-1表示无法确定写入的行，整张表失效 */
+    @Builder.Default
+    private final int writeKeyIndex = -1;
+    /** 批量写语句从实体上读取主键的属性 */
+    private final PropertyAccessor writeKeyProperty;
+    /** 是否为插入语句 */
+    private final boolean insert;
+
+    /** 方法的执行指标，第一次使用时从注册表取得 */
+    @Getter(lazy = true)
+    private final StatementMetrics metrics = Metrics.statement(method);
+
+    /**
+     * 按占位符顺序绑定参数
+     * @param ps PreparedStatement对象
+     * @param args Mapper方法参数
+     * @throws SQLException 如果设置参数失败
+     */
+    public void bindParameters(PreparedStatement ps, Object[] args) throws SQLException {
+        for (int i = 0; i < binders.length; i++) {
+            binders[i].bind(ps, i + 1, args[argIndexes[i]]);
+        }
+    }
+
+    /**
+     * 批量语句按占位符顺序绑定一个实体的属性
+     * @param ps PreparedStatement对象
+     * @param entity 列表中的一个实体
+     * @throws SQLException 如果设置参数失败
+     */
+    public void bindEntity(PreparedStatement ps, Object entity) throws SQLException {
+        for (int i = 0; i < binders.length; i++) {
+            binders[i].bind(ps, i + 1, properties[i].get(entity));
+        }
+    }
+
+    /**
+     * 执行语句计划
+     * @param args Mapper方法参数
+     * @return Mapper方法的返回值
+     * @throws Exception 如果执行过程出错
+     */
+    public Object execute(Object[] args) throws Exception {
+        return strategy.execute(this, args);
+    }
+
+    @Override
+    public String toString() {
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName() + ": " + sql;
+    }
+}
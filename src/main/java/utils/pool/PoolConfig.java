@@ -0,0 +1,136 @@
+package utils.pool;
+
+import lombok.Getter;
+import lombok.Setter;
+import utils.AppConfig;
+
+import java.util.Properties;
+
+/**
+ * 连接池配置
+ * 所有时间单位均为毫秒，取值为0表示关闭对应功能
+ */
+@Getter
+@Setter
+public class PoolConfig {
+    private String jdbcUrl;
+    private String username;
+    private String password;
+
+    /** 传给JDBC驱动的额外属性 */
+    private Properties driverProperties = new Properties();
+
+    /** 后台维护线程保证的最少空闲连接数 */
+    private int minIdle = 2;
+    /** 归还时允许保留的最多空闲连接数，超出的连接直接关闭 */
+    private int maxIdle = 10;
+    /** 连接池允许的最大连接数（借出 + 空闲） */
+    private int maxPoolSize = 10;
+
+    /** 借连接时的最长等待时间 */
+    private long borrowTimeoutMs = 30_000;
+    /** 借出前是否校验连接 */
+    private boolean validateOnBorrow = true;
+    /** 空闲时间小于该值的连接借出时跳过校验 */
+    private long validationSkipWindowMs = 500;
+    /** Connection.isValid的超时时间（秒） */
+    private int validationTimeoutSeconds = 3;
+
+    /** 连接的最长存活时间，超过后在下次归还或维护时关闭 */
+    private long maxLifetimeMs = 30 * 60_000L;
+    /** 超过minIdle部分的空闲连接的最长空闲时间 */
+    private long idleTimeoutMs = 10 * 60_000L;
+    /** 连接借出超过该时间未归还时报告泄漏 */
+    private long leakDetectionThresholdMs = 60_000;
+    /** 后台维护任务的执行周期 */
+    private long housekeepingPeriodMs = 30_000;
+
+    /** 每个物理连接缓存的PreparedStatement数量，0表示不缓存 */
+    private int statementCacheSize = 64;
+
+    /**
+     * 从应用配置加载连接池配置
+     * 未配置的连接信息使用调用方给出的默认值
+     * @param defaultUrl 默认JDBC URL
+     * @param defaultUsername 默认用户名
+     * @param defaultPassword 默认密码
+     * @return 连接池配置
+     */
+    public static PoolConfig load(String defaultUrl, String defaultUsername, String defaultPassword) {
+        PoolConfig config = new PoolConfig();
+        // 1. 连接信息
+        config.setJdbcUrl(AppConfig.get("db.url", defaultUrl));
+        config.setUsername(AppConfig.get("db.username", defaultUsername));
+        config.setPassword(AppConfig.get("db.password", defaultPassword));
+        config.setDriverProperties(AppConfig.getWithPrefix("db.property."));
+        applyMySqlDefaults(config);
+
+        // 2. 容量配置
+        config.setMinIdle(AppConfig.getInt("db.pool.minIdle", config.getMinIdle()));
+        config.setMaxIdle(AppConfig.getInt("db.pool.maxIdle", config.getMaxIdle()));
+        config.setMaxPoolSize(AppConfig.getInt("db.pool.maxPoolSize", config.getMaxPoolSize()));
+
+        // 3. 借出与校验配置
+        config.setBorrowTimeoutMs(AppConfig.getLong("db.pool.borrowTimeoutMs", config.getBorrowTimeoutMs()));
+        config.setValidateOnBorrow(AppConfig.getBoolean("db.pool.validateOnBorrow", config.isValidateOnBorrow()));
+        config.setValidationSkipWindowMs(AppConfig.getLong("db.pool.validationSkipWindowMs", config.getValidationSkipWindowMs()));
+        config.setValidationTimeoutSeconds(AppConfig.getInt("db.pool.validationTimeoutSeconds", config.getValidationTimeoutSeconds()));
+
+        // 4. 生命周期与泄漏检测配置
+        config.setMaxLifetimeMs(AppConfig.getLong("db.pool.maxLifetimeMs", config.getMaxLifetimeMs()));
+        config.setIdleTimeoutMs(AppConfig.getLong("db.pool.idleTimeoutMs", config.getIdleTimeoutMs()));
+        config.setLeakDetectionThresholdMs(AppConfig.getLong("db.pool.leakDetectionThresholdMs", config.getLeakDetectionThresholdMs()));
+        config.setHousekeepingPeriodMs(AppConfig.getLong("db.pool.housekeepingPeriodMs", config.getHousekeepingPeriodMs()));
+
+        // 5. 语句缓存配置
+        config.setStatementCacheSize(AppConfig.getInt("db.pool.statementCacheSize", config.getStatementCacheSize()));
+
+        config.validate();
+        return config;
+    }
+
+    /**
+     * MySQL驱动的默认属性
+     * 开启服务端预处理，语句由连接池按连接缓存，因此关闭驱动自带的客户端缓存
+     * 开启批量语句改写，executeBatch时多条INSERT合并为一条多值INSERT发送
+     * 显式配置的db.property.*优先
+     * @param config 连接池配置
+     */
+    private static void applyMySqlDefaults(PoolConfig config) {
+        if (!config.getJdbcUrl().startsWith("jdbc:mysql:")) {
+            return;
+        }
+        Properties properties = config.getDriverProperties();
+        properties.putIfAbsent("useServerPrepStmts", "true");
+        properties.putIfAbsent("cachePrepStmts", "false");
+        properties.putIfAbsent("rewriteBatchedStatements", "true");
+    }
+
+    /**
+     * 校验配置项之间的约束
+     * @throws IllegalArgumentException 如果配置不合法
+     */
+    public void validate() {
+        if (jdbcUrl == null || jdbcUrl.isEmpty()) {
+            throw new IllegalArgumentException("jdbcUrl must not be empty");
+        }
+        if (maxPoolSize <= 0) {
+            throw new IllegalArgumentException("maxPoolSize must be positive: " + maxPoolSize);
+        }
+        if (minIdle < 0 || minIdle > maxPoolSize) {
+            throw new IllegalArgumentException("minIdle must be between 0 and maxPoolSize: " + minIdle);
+        }
+        if (maxIdle < minIdle) {
+            throw new IllegalArgumentException("maxIdle must not be less than minIdle: " + maxIdle);
+        }
+        if (borrowTimeoutMs < 0) {
+            throw new IllegalArgumentException("borrowTimeoutMs must not be negative: " + borrowTimeoutMs);
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("statementCacheSize must not be negative: " + statementCacheSize);
+        }
+        if (housekeepingPeriodMs <= 0) {
+            throw new IllegalArgumentException("housekeepingPeriodMs must be positive: " + housekeepingPeriodMs);
+        }
+    }
+}
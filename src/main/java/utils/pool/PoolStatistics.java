@@ -0,0 +1,79 @@
+package utils.pool;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 连接池统计信息快照
+ */
+@Getter
+@AllArgsConstructor
+public class PoolStatistics {
+    /** 当前物理连接总数 */
+    private final int totalConnections;
+    /** 当前借出中的连接数 */
+    private final int activeConnections;
+    /** 当前空闲的连接数 */
+    private final int idleConnections;
+    /** 正在等待借连接的线程数 */
+    private final int pendingThreads;
+
+    /** 累计借出次数 */
+    private final long borrowCount;
+    /** 累计借连接超时次数 */
+    private final long timeoutCount;
+    /** 累计创建的物理连接数 */
+    private final long createdCount;
+    /** 累计关闭的物理连接数 */
+    private final long destroyedCount;
+    /** 累计校验失败次数 */
+    private final long validationFailureCount;
+    /** 累计检测到的泄漏次数 */
+    private final long leakCount;
+    /** 累计借连接等待时间（纳秒） */
+    private final long totalWaitNanos;
+
+    /** 语句缓存命中次数 */
+    private final long statementCacheHits;
+    /** 语句缓存未命中次数 */
+    private final long statementCacheMisses;
+    /** 语句缓存淘汰次数 */
+    private final long statementCacheEvictions;
+
+    /**
+     * 平均借连接等待时间
+     * @return 平均等待时间（毫秒）
+     */
+    public double getAverageWaitMillis() {
+        return borrowCount == 0 ? 0 : totalWaitNanos / 1_000_000.0 / borrowCount;
+    }
+
+    /**
+     * 语句缓存命中率
+     * @return 命中率，没有请求时为0
+     */
+    public double getStatementCacheHitRatio() {
+        long total = statementCacheHits + statementCacheMisses;
+        return total == 0 ? 0 : (double) statementCacheHits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStatistics{" +
+                "total=" + totalConnections +
+                ", active=" + activeConnections +
+                ", idle=" + idleConnections +
+                ", pending=" + pendingThreads +
+                ", borrowed=" + borrowCount +
+                ", timeouts=" + timeoutCount +
+                ", created=" + createdCount +
+                ", destroyed=" + destroyedCount +
+                ", validationFailures=" + validationFailureCount +
+                ", leaks=" + leakCount +
+                ", avgWaitMs=" + String.format("%.3f", getAverageWaitMillis()) +
+                ", stmtCacheHits=" + statementCacheHits +
+                ", stmtCacheMisses=" + statementCacheMisses +
+                ", stmtCacheEvictions=" + statementCacheEvictions +
+                '}';
+    }
+}
@@ -0,0 +1,188 @@
+package utils.pool;
+
+import utils.log.LogManager;
+import utils.log.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 连接池中的一个物理连接
+ * 记录连接的创建、使用和借出信息，并为每次借出生成一个代理连接
+ * 代理连接的close()不会关闭物理连接，而是把连接归还给连接池
+ */
+class PooledConnection {
+    private static final Logger log = LogManager.getLogger(PooledConnection.class);
+    private final PooledDataSource pool;
+    private final Connection physical;
+    private final StatementCache statementCache;
+    private final long createdAt;
+
+    private volatile long lastAccessedAt;
+    private volatile long borrowedAt;
+    private volatile Throwable borrowTrace;
+    private volatile boolean leakReported;
+    private volatile Connection activeProxy;
+
+    PooledConnection(PooledDataSource pool, Connection physical, StatementCache statementCache) {
+        this.pool = pool;
+        this.physical = physical;
+        this.statementCache = statementCache;
+        this.createdAt = System.currentTimeMillis();
+        this.lastAccessedAt = createdAt;
+    }
+
+    Connection getPhysical() {
+        return physical;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    long getLastAccessedAt() {
+        return lastAccessedAt;
+    }
+
+    long getBorrowedAt() {
+        return borrowedAt;
+    }
+
+    Throwable getBorrowTrace() {
+        return borrowTrace;
+    }
+
+    boolean isBorrowed() {
+        return activeProxy != null;
+    }
+
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    void setLeakReported(boolean leakReported) {
+        this.leakReported = leakReported;
+    }
+
+    /**
+     * 标记连接被借出，并生成本次借出使用的代理连接
+     * @param trace 借出时的调用栈，未开启泄漏检测时为null
+     * @return 代理连接
+     */
+    Connection borrow(Throwable trace) {
+        long now = System.currentTimeMillis();
+        this.borrowedAt = now;
+        this.lastAccessedAt = now;
+        this.borrowTrace = trace;
+        this.leakReported = false;
+        Connection proxy = (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class[]{Connection.class},
+                new ConnectionHandler());
+        this.activeProxy = proxy;
+        return proxy;
+    }
+
+    /**
+     * 标记连接已归还
+     */
+    void markReturned() {
+        this.lastAccessedAt = System.currentTimeMillis();
+        this.borrowTrace = null;
+        this.activeProxy = null;
+    }
+
+    /**
+     * 关闭物理连接，忽略关闭过程中的异常
+     */
+    void closePhysical() {
+        if (statementCache != null) {
+            statementCache.closeAll();
+        }
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            log.warn("Failed to close connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 代理连接的处理器
+     * 拦截close()把连接还给连接池，归还后拒绝一切调用
+     * 同时记录本次借出期间创建的Statement，归还时统一关闭，避免在长期存活的物理连接上堆积
+     * 开启语句缓存时，prepareStatement优先从当前物理连接的语句缓存中获取
+     */
+    private class ConnectionHandler implements InvocationHandler {
+        private final List<Statement> openStatements = new ArrayList<>();
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            // 1. close()归还连接，重复调用无效果
+            if ("close".equals(name)) {
+                if (!closed) {
+                    closed = true;
+                    closeStatements();
+                    if (statementCache != null) {
+                        statementCache.releaseAll();
+                    }
+                    pool.release(PooledConnection.this);
+                }
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return closed || physical.isClosed();
+            }
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("toString".equals(name)) {
+                return "PooledConnection@" + Integer.toHexString(System.identityHashCode(proxy)) + "[" + physical + "]";
+            }
+            // 2. 已归还的代理连接不允许继续使用
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            // 3. 可缓存的prepareStatement走语句缓存
+            if (statementCache != null && StatementCache.isCacheable(method)) {
+                return statementCache.prepare(physical, (Connection) proxy, method, args);
+            }
+            // 4. 其余调用转发给物理连接
+            Object result;
+            try {
+                result = method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+            if (result instanceof Statement) {
+                openStatements.add((Statement) result);
+            }
+            return result;
+        }
+
+        /**
+         * 关闭本次借出期间创建的Statement
+         */
+        private void closeStatements() {
+            for (Statement statement : openStatements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    log.warn("Failed to close statement: {}", e.getMessage());
+                }
+            }
+            openStatements.clear();
+        }
+    }
+}
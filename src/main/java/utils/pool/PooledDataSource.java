@@ -0,0 +1,416 @@
+package utils.pool;
+
+import utils.log.LogManager;
+import utils.log.Logger;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带连接池的数据源
+ * 复用物理连接，避免每次执行SQL都重新进行TCP、TLS和认证握手
+ * 支持以下功能：
+ * 1. 最小/最大空闲连接数和最大连接数控制
+ * 2. 借连接超时
+ * 3. 借出前校验连接
+ * 4. 连接最长存活时间和空闲超时
+ * 5. 连接泄漏检测
+ * 6. 连接池统计信息
+ * 7. 每个物理连接上的PreparedStatement缓存（LRU）
+ *
+ * 借出的连接是物理连接的代理，调用close()会把连接归还给连接池
+ * 实现中只使用并发容器和信号量，不在JDBC调用外层加synchronized
+ */
+public class PooledDataSource implements DataSource, AutoCloseable {
+    private static final Logger log = LogManager.getLogger(PooledDataSource.class);
+    private final PoolConfig config;
+    private final Properties connectionProperties;
+
+    // 空闲连接，按LIFO使用以优先复用最近归还的连接
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    // 所有物理连接（借出 + 空闲）
+    private final Set<PooledConnection> allConnections = ConcurrentHashMap.newKeySet();
+    // 控制同时借出的连接数
+    private final Semaphore borrowPermits;
+    // 已创建或正在创建的物理连接数
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // 统计信息
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder destroyedCount = new LongAdder();
+    private final LongAdder validationFailureCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder statementCacheEvictions = new LongAdder();
+
+    /**
+     * 创建连接池并启动后台维护任务
+     * @param config 连接池配置
+     */
+    public PooledDataSource(PoolConfig config) {
+        config.validate();
+        this.config = config;
+        this.borrowPermits = new Semaphore(config.getMaxPoolSize(), true);
+
+        // 1. 组装传给驱动的连接属性
+        this.connectionProperties = new Properties();
+        connectionProperties.putAll(config.getDriverProperties());
+        if (config.getUsername() != null) {
+            connectionProperties.setProperty("user", config.getUsername());
+        }
+        if (config.getPassword() != null) {
+            connectionProperties.setProperty("password", config.getPassword());
+        }
+
+        // 2. 启动后台维护线程：补充最小空闲连接、回收过期连接、检测泄漏
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0,
+                config.getHousekeepingPeriodMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 从连接池借出一个连接
+     * @return 代理连接，调用close()时归还连接池
+     * @throws SQLException 如果连接池已关闭、等待超时或创建连接失败
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool has been closed");
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(config.getBorrowTimeoutMs());
+
+        // 1. 获取借出许可，限制同时借出的连接数
+        try {
+            if (!borrowPermits.tryAcquire(config.getBorrowTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                throw borrowTimeout();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while (true) {
+                // 2. 优先复用空闲连接
+                pooled = idleConnections.pollFirst();
+                if (pooled == null) {
+                    // 3. 没有空闲连接时，在容量允许的情况下新建连接
+                    if (reserveSlot()) {
+                        pooled = createConnection();
+                        break;
+                    }
+                    // 4. 连接数已满，等待其他线程归还
+                    long remaining = deadline - System.nanoTime();
+                    pooled = remaining > 0 ? idleConnections.pollFirst(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (pooled == null) {
+                        throw borrowTimeout();
+                    }
+                }
+                // 5. 校验空闲连接，失效则丢弃后重试
+                if (isUsable(pooled)) {
+                    break;
+                }
+                destroy(pooled);
+            }
+
+            borrowCount.increment();
+            totalWaitNanos.add(System.nanoTime() - start);
+            Throwable trace = config.getLeakDetectionThresholdMs() > 0
+                    ? new Throwable("Connection borrowed here") : null;
+            return pooled.borrow(trace);
+        } catch (InterruptedException e) {
+            borrowPermits.release();
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        } catch (SQLException | RuntimeException e) {
+            borrowPermits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 归还连接，由代理连接的close()调用
+     * @param pooled 被归还的连接
+     */
+    void release(PooledConnection pooled) {
+        try {
+            // 1. 重置连接状态，回滚未提交的事务
+            boolean healthy = resetState(pooled);
+            pooled.markReturned();
+
+            // 2. 连接池已关闭、连接异常、超过存活时间或空闲连接过多时直接关闭
+            if (closed || !healthy || isExpired(pooled, System.currentTimeMillis())
+                    || idleConnections.size() >= config.getMaxIdle()) {
+                destroy(pooled);
+            } else {
+                idleConnections.offerFirst(pooled);
+            }
+        } finally {
+            borrowPermits.release();
+        }
+    }
+
+    /**
+     * 获取连接池统计信息
+     * @return 统计信息快照
+     */
+    public PoolStatistics getStatistics() {
+        int idle = idleConnections.size();
+        int total = allConnections.size();
+        return new PoolStatistics(
+                total,
+                Math.max(0, total - idle),
+                idle,
+                borrowPermits.getQueueLength(),
+                borrowCount.sum(),
+                timeoutCount.sum(),
+                createdCount.sum(),
+                destroyedCount.sum(),
+                validationFailureCount.sum(),
+                leakCount.sum(),
+                totalWaitNanos.sum(),
+                statementCacheHits.sum(),
+                statementCacheMisses.sum(),
+                statementCacheEvictions.sum());
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * 关闭连接池
+     * 空闲连接立即关闭，借出中的连接在归还时关闭
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    /**
+     * 后台维护任务
+     */
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+
+            // 1. 回收超过存活时间或空闲过久的空闲连接
+            for (PooledConnection pooled : idleConnections) {
+                boolean expired = isExpired(pooled, now);
+                boolean idleTooLong = config.getIdleTimeoutMs() > 0
+                        && now - pooled.getLastAccessedAt() > config.getIdleTimeoutMs()
+                        && idleConnections.size() > config.getMinIdle();
+                if ((expired || idleTooLong) && idleConnections.remove(pooled)) {
+                    destroy(pooled);
+                }
+            }
+
+            // 2. 检测借出时间过长的连接
+            if (config.getLeakDetectionThresholdMs() > 0) {
+                for (PooledConnection pooled : allConnections) {
+                    if (pooled.isBorrowed() && !pooled.isLeakReported()
+                            && now - pooled.getBorrowedAt() > config.getLeakDetectionThresholdMs()) {
+                        pooled.setLeakReported(true);
+                        leakCount.increment();
+                        log.warn("Possible connection leak, connection borrowed for " + (now - pooled.getBorrowedAt())
+                                + " ms", pooled.getBorrowTrace());
+                    }
+                }
+            }
+
+            // 3. 补充空闲连接到minIdle
+            while (!closed && idleConnections.size() < config.getMinIdle() && reserveSlot()) {
+                idleConnections.offerLast(createConnection());
+            }
+        } catch (SQLException e) {
+            log.warn("Failed to fill connection pool: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Connection pool housekeeping failed", e);
+        }
+    }
+
+    /**
+     * 预占一个连接名额
+     * @return 如果还没有达到最大连接数返回true
+     */
+    private boolean reserveSlot() {
+        while (true) {
+            int current = totalCount.get();
+            if (current >= config.getMaxPoolSize()) {
+                return false;
+            }
+            if (totalCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 创建新的物理连接，调用前必须已经预占名额
+     * @return 新的连接
+     * @throws SQLException 如果创建连接失败
+     */
+    private PooledConnection createConnection() throws SQLException {
+        try {
+            Connection physical = DriverManager.getConnection(config.getJdbcUrl(), connectionProperties);
+            StatementCache statementCache = config.getStatementCacheSize() > 0
+                    ? new StatementCache(config.getStatementCacheSize(),
+                            statementCacheHits, statementCacheMisses, statementCacheEvictions)
+                    : null;
+            PooledConnection pooled = new PooledConnection(this, physical, statementCache);
+            allConnections.add(pooled);
+            createdCount.increment();
+            return pooled;
+        } catch (SQLException | RuntimeException e) {
+            totalCount.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * 关闭物理连接并释放名额
+     * @param pooled 要关闭的连接
+     */
+    private void destroy(PooledConnection pooled) {
+        if (allConnections.remove(pooled)) {
+            totalCount.decrementAndGet();
+            destroyedCount.increment();
+            pooled.closePhysical();
+        }
+    }
+
+    /**
+     * 判断空闲连接是否可以借出
+     * @param pooled 空闲连接
+     * @return 连接可用返回true
+     */
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.currentTimeMillis();
+        if (isExpired(pooled, now)) {
+            return false;
+        }
+        // 刚刚使用过的连接跳过校验，减少一次网络往返
+        if (!config.isValidateOnBorrow()
+                || now - pooled.getLastAccessedAt() < config.getValidationSkipWindowMs()) {
+            return true;
+        }
+        try {
+            if (pooled.getPhysical().isValid(config.getValidationTimeoutSeconds())) {
+                return true;
+            }
+        } catch (SQLException e) {
+            // 按校验失败处理
+        }
+        validationFailureCount.increment();
+        return false;
+    }
+
+    private boolean isExpired(PooledConnection pooled, long now) {
+        return config.getMaxLifetimeMs() > 0 && now - pooled.getCreatedAt() > config.getMaxLifetimeMs();
+    }
+
+    /**
+     * 重置连接状态
+     * @param pooled 被归还的连接
+     * @return 重置成功返回true
+     */
+    private boolean resetState(PooledConnection pooled) {
+        Connection physical = pooled.getPhysical();
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            log.warn("Failed to reset pooled connection: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private SQLTimeoutException borrowTimeout() {
+        timeoutCount.increment();
+        return new SQLTimeoutException("Timed out after " + config.getBorrowTimeoutMs()
+                + " ms waiting for a connection, " + getStatistics());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pooled connections use the configured credentials");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return DriverManager.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        DriverManager.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -0,0 +1,260 @@
+package utils.pool;
+
+import utils.log.LogManager;
+import utils.log.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个物理连接上的PreparedStatement缓存
+ * 以SQL文本和prepareStatement的参数为键，按LRU淘汰
+ * 配合MySQL服务端预处理（useServerPrepStmts=true），命中缓存时不再发生解析和prepare往返
+ *
+ * 取出的语句是代理对象，close()只会清空参数并放回缓存；
+ * 同一条语句正在使用时再次prepare会创建一个不进入缓存的新语句；
+ * 每次放回语句都使之前取出的代理失效，连接归还时被强制放回的语句，其旧代理不能再操作下一个使用者的语句
+ * 一个物理连接同一时间只会借给一个线程，所以这里不需要加锁
+ */
+class StatementCache {
+    private static final Logger log = LogManager.getLogger(StatementCache.class);
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    StatementCache(int maxSize, LongAdder hits, LongAdder misses, LongAdder evictions) {
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.statements = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    StatementCache.this.evictions.increment();
+                    eldest.getValue().evict();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 判断prepareStatement调用能否使用缓存
+     * 只缓存(String)、(String, int)和(String, int, int)三种形式
+     * @param method Connection上被调用的方法
+     * @return 可以缓存返回true
+     */
+    static boolean isCacheable(Method method) {
+        if (!"prepareStatement".equals(method.getName())) {
+            return false;
+        }
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 1; i < types.length; i++) {
+            if (types[i] != int.class) {
+                return false;
+            }
+        }
+        return types.length >= 1 && types.length <= 3 && types[0] == String.class;
+    }
+
+    /**
+     * 获取预处理语句，优先复用缓存中的语句
+     * @param physical 物理连接
+     * @param connectionProxy 借出的代理连接，作为语句的getConnection()返回值
+     * @param method 被调用的prepareStatement方法
+     * @param args prepareStatement的参数
+     * @return 预处理语句的代理
+     * @throws Throwable 如果创建语句失败
+     */
+    PreparedStatement prepare(Connection physical, Connection connectionProxy, Method method, Object[] args)
+            throws Throwable {
+        String key = cacheKey(args);
+        // 1. 命中且未被占用时直接复用
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            hits.increment();
+            return cached.checkout(connectionProxy);
+        }
+
+        // 2. 未命中时创建新的语句
+        misses.increment();
+        PreparedStatement statement = (PreparedStatement) invoke(physical, method, args);
+        CachedStatement created = new CachedStatement(statement);
+        // 3. 同一条SQL正在使用中时，新语句只在本次使用，关闭时真正关闭
+        if (cached != null) {
+            created.evicted = true;
+        } else {
+            statements.put(key, created);
+        }
+        return created.checkout(connectionProxy);
+    }
+
+    /**
+     * 连接归还时调用，回收忘记关闭的语句，忘记关闭语句的调用方手里的代理随之失效
+     */
+    void releaseAll() {
+        for (CachedStatement cached : statements.values()) {
+            if (cached.inUse) {
+                cached.checkin();
+            }
+        }
+    }
+
+    /**
+     * 关闭缓存中的所有语句
+     */
+    void closeAll() {
+        Iterator<CachedStatement> iterator = statements.values().iterator();
+        while (iterator.hasNext()) {
+            iterator.next().closePhysical();
+            iterator.remove();
+        }
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    private static String cacheKey(Object[] args) {
+        StringBuilder sb = new StringBuilder((String) args[0]);
+        for (int i = 1; i < args.length; i++) {
+            sb.append('\u0000').append(args[i]);
+        }
+        return sb.toString();
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * 缓存中的一条语句
+     */
+    private static class CachedStatement {
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+        // 放回的次数，代理记录取出时的值，不相等时说明语句已被放回，代理失效
+        // 失效的代理可能在其他线程上被调用，需要volatile
+        private volatile int generation;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        /**
+         * 取出语句，生成本次使用的代理
+         */
+        PreparedStatement checkout(Connection connectionProxy) {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class[]{PreparedStatement.class},
+                    new StatementHandler(this, connectionProxy, generation));
+        }
+
+        /**
+         * 放回语句：清空参数和批处理，已被淘汰的语句直接关闭
+         */
+        void checkin() {
+            inUse = false;
+            generation++;
+            if (evicted) {
+                closePhysical();
+                return;
+            }
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+            } catch (SQLException e) {
+                evicted = true;
+                closePhysical();
+            }
+        }
+
+        /**
+         * 被LRU淘汰，正在使用时延迟到放回时关闭
+         */
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closePhysical();
+            }
+        }
+
+        void closePhysical() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                log.warn("Failed to close statement: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 语句代理的处理器，拦截close()把语句放回缓存
+     * 语句被强制放回后代理视为已关闭，不再访问物理语句
+     */
+    private static class StatementHandler implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection connectionProxy;
+        private final int generation;
+        private boolean closed;
+
+        StatementHandler(CachedStatement cached, Connection connectionProxy, int generation) {
+            this.cached = cached;
+            this.connectionProxy = connectionProxy;
+            this.generation = generation;
+        }
+
+        /**
+         * 代理是否已关闭：调用过close()，或者语句已被放回（连接归还时强制放回）
+         */
+        private boolean isStale() {
+            return closed || cached.generation != generation;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!isStale()) {
+                        cached.checkin();
+                    }
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return isStale() || cached.statement.isClosed();
+                case "getConnection":
+                    return connectionProxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (isStale()) {
+                        throw new SQLException("Statement has already been closed");
+                    }
+                    return StatementCache.invoke(cached.statement, method, args);
+            }
+        }
+    }
+}
@@ -1,314 +1,822 @@
-package utils.strategy;
-
-import annotations.Table;
-
-import java.lang.reflect.*;
-import java.sql.*;
-import java.util.*;
-import java.util.Date;
-import java.util.stream.Collectors;
-
-/**
- * SQL执行策略的抽象基类
- * 提供了所有SQL策略共用的基础功能，包括数据库连接、参数处理、结果集解析等
- */
-public abstract class AbstractSqlStrategy implements SqlExecutionStrategy {
-    // 数据库连接配置
-    protected static String jdbcUrl = "jdbc:mysql://localhost:3306/mybatis_db";
-    protected static String username = "root";
-    protected static String password = "12345678";
-
-    /**
-     * 获取数据库连接
-     * @return 返回新创建的数据库连接对象
-     * @throws SQLException 如果数据库连接失败
-     */
-    protected Connection getConnection() throws SQLException {
-        // 1. 使用配置的URL、用户名和密码创建连接
-        return DriverManager.getConnection(jdbcUrl, username, password);
-    }
-
-    /**
-     * 将驼峰命名转换为下划线命名
-     * @param camelCase 驼峰命名的字符串
-     * @return 转换后的下划线命名字符串
-     */
-    protected String camelCaseToSnakeCase(String camelCase) {
-        // 1. 检查输入是否为null
-        if (camelCase == null) return null;
-        // 2. 使用正则表达式匹配大小写字母之间的位置
-        String regex = "([a-z])([A-Z])";
-        String replacement = "$1_$2";
-        // 3. 在匹配位置插入下划线并转换为小写
-        return camelCase.replaceAll(regex, replacement).toLowerCase();
-    }
-
-    /**
-     * 转换参数名称为数据库列名格式
-     * @param paramName 参数名称
-     * @return 转换后的数据库列名
-     */
-    protected String convertParamName(String paramName) {
-        // 1. 调用camelCaseToSnakeCase方法进行转换
-        return camelCaseToSnakeCase(paramName);
-    }
-
-    /**
-     * 设置PreparedStatement的参数值
-     * @param ps PreparedStatement对象
-     * @param index 参数索引
-     * @param value 参数值
-     * @throws SQLException 如果设置参数失败
-     */
-    protected void setParameterValue(PreparedStatement ps, int index, Object value) throws SQLException {
-        // 1. 处理null值的情况
-        if (value == null) {
-            ps.setNull(index, Types.NULL);
-        }
-        // 2. 根据参数类型选择适当的setter方法
-        else if (value instanceof Integer) {
-            ps.setInt(index, (Integer) value);
-        } else if (value instanceof String) {
-            ps.setString(index, (String) value);
-        } else if (value instanceof Long) {
-            ps.setLong(index, (Long) value);
-        } else if (value instanceof Double) {
-            ps.setDouble(index, (Double) value);
-        } else if (value instanceof Date) {
-            ps.setTimestamp(index, new Timestamp(((Date) value).getTime()));
-        }
-    }
-
-    /**
-     * 解析查询结果集为对象
-     * @param rs 结果集
-     * @param returnType 返回类型
-     * @return 解析后的对象
-     * @throws Exception 如果解析过程出错
-     */
-    protected Object parseResult(ResultSet rs, Class<?> returnType) throws Exception {
-        // 1. 创建返回类型的实例
-        Object result = returnType.getDeclaredConstructor().newInstance();
-        // 2. 获取结果集的元数据
-        ResultSetMetaData metaData = rs.getMetaData();
-        int columnCount = metaData.getColumnCount();
-
-        // 3. 遍历所有列
-        for (int i = 1; i <= columnCount; i++) {
-            String columnName = metaData.getColumnName(i);
-            // 4. 将列名转换为驼峰格式
-            String propertyName = convertToCamelCase(columnName);
-
-            try {
-                // 5. 查找并调用对应的setter方法
-                String setterName = "set" + propertyName.substring(0, 1).toUpperCase() + propertyName.substring(1);
-               Method setter = returnType.getMethod(setterName, getColumnType(metaData, i));
-
-                // 6. 设置属性值
-                Object value = getColumnValue(rs, i, metaData.getColumnType(i));
-                if (value != null) {
-                    setter.invoke(result, value);
-                }
-            } catch (NoSuchMethodException e) {
-                // 7. 如果找不到对应的setter方法，尝试使用Lombok生成的setter
-                try {
-                    String lombokSetterName = "set" + propertyName.substring(0, 1).toUpperCase() + propertyName.substring(1);
-                    Method lombokSetter = returnType.getMethod(lombokSetterName, getColumnType(metaData, i));
-                    Object value = getColumnValue(rs, i, metaData.getColumnType(i));
-                    if (value != null) {
-                        lombokSetter.invoke(result, value);
-                    }
-                } catch (NoSuchMethodException ex) {
-                    System.out.println("Warning: No setter found for property: " + propertyName);
-                }
-            }
-        }
-        return result;
-    }
-
-    /**
-     * 将下划线格式转换为驼峰格式
-     * @param columnName 下划线格式的列名
-     * @return 转换后的驼峰格式字符串
-     */
-    private String convertToCamelCase(String columnName) {
-        StringBuilder result = new StringBuilder();
-        boolean nextUpper = false;
-
-        // 1. 遍历字符串的每个字符
-        for (int i = 0; i < columnName.length(); i++) {
-            char currentChar = columnName.charAt(i);
-            // 2. 遇到下划线时，将下一个字符转换为大写
-            if (currentChar == '_') {
-                nextUpper = true;
-            } else {
-                if (nextUpper) {
-                    result.append(Character.toUpperCase(currentChar));
-                    nextUpper = false;
-                } else {
-                    // 3. 其他字符保持原样
-                    result.append(Character.toLowerCase(currentChar));
-                }
-            }
-        }
-        return result.toString();
-    }
-
-    /**
-     * 获取列对应的Java类型
-     * @param metaData 结果集元数据
-     * @param columnIndex 列索引
-     * @return 对应的Java类型
-     * @throws SQLException 如果获取列类型失败
-     */
-    private Class<?> getColumnType(ResultSetMetaData metaData, int columnIndex) throws SQLException {
-        // 1. 获取SQL类型和列名
-        int type = metaData.getColumnType(columnIndex);
-        String columnName = metaData.getColumnName(columnIndex);
-//        System.out.println("Column: " + columnName + ", SQL Type: " + type);
-        
-        // 2. 根据SQL类型映射到对应的Java类型
-        switch (type) {
-            case Types.INTEGER:
-            case Types.SMALLINT:
-            case Types.TINYINT:
-            case Types.BIGINT:
-            case Types.DECIMAL:
-            case Types.NUMERIC:
-                return Integer.class;
-            case Types.VARCHAR:
-            case Types.CHAR:
-            case Types.LONGVARCHAR:
-                return String.class;
-            case Types.DATE:
-                return java.util.Date.class;
-            default:
-                System.out.println("Unknown type for column " + columnName + ": " + type);
-                return Object.class;
-        }
-    }
-
-    /**
-     * 从结果集中获取列值
-     * @param rs 结果集
-     * @param columnIndex 列索引
-     * @param columnType 列类型
-     * @return 列值
-     * @throws SQLException 如果获取列值失败
-     */
-    private Object getColumnValue(ResultSet rs, int columnIndex, int columnType) throws SQLException {
-        String columnName = rs.getMetaData().getColumnName(columnIndex);
-        try {
-            // 1. 根据列类型选择适当的getter方法
-            switch (columnType) {
-                case Types.INTEGER:
-                case Types.SMALLINT:
-                case Types.TINYINT:
-                case Types.BIGINT:
-                case Types.DECIMAL:
-                case Types.NUMERIC:
-                    int intValue = rs.getInt(columnIndex);
-//                    System.out.println("Getting integer value for " + columnName + ": " + intValue);
-                    return intValue;
-                case Types.VARCHAR:
-                case Types.CHAR:
-                case Types.LONGVARCHAR:
-                    return rs.getString(columnIndex);
-                case Types.DATE:
-                    return rs.getDate(columnIndex);
-                default:
-                    Object objValue = rs.getObject(columnIndex);
-//                    System.out.println("Getting object value for " + columnName + ": " + objValue);
-                    return objValue;
-            }
-        } catch (SQLException e) {
-            System.out.println("Error getting value for column " + columnName + ": " + e.getMessage());
-            throw e;
-        }
-    }
-
-    /**
-     * 解析结果集为对象列表
-     * @param rs 结果集
-     * @param method 方法对象
-     * @return 对象列表
-     * @throws Exception 如果解析过程出错
-     */
-    protected List<Object> parseResultList(ResultSet rs, Method method) throws Exception {
-        // 1. 获取方法的返回类型和泛型类型
-        List<Object> resultList = new ArrayList<>();
-        Class<?> returnType = method.getReturnType();
-        Class<?> genericType = getGenericType(method);
-
-        // 2. 遍历结果集并创建对象
-        while (rs.next()) {
-            resultList.add(parseResult(rs, genericType));
-        }
-        return resultList;
-    }
-
-    /**
-     * 获取List的泛型类型
-     * @param method 方法对象
-     * @return 泛型类型
-     */
-    private Class<?> getGenericType(Method method) {
-        // 1. 获取方法的泛型返回类型
-        java.lang.reflect.Type returnType = method.getGenericReturnType();
-        // 2. 如果是ParameterizedType，获取实际的类型参数
-        if (returnType instanceof java.lang.reflect.ParameterizedType) {
-            java.lang.reflect.Type[] typeArguments = ((java.lang.reflect.ParameterizedType) returnType).getActualTypeArguments();
-            if (typeArguments.length > 0) {
-                return (Class<?>) typeArguments[0];
-            }
-        }
-        return Object.class;
-    }
-
-    /**
-     * 解析插入结果
-     * @param args 参数数组
-     * @param returnType 返回类型
-     * @return 解析后的对象
-     * @throws Exception 如果解析过程出错
-     */
-    protected Object parseInsertResult(Object[] args, Class<?> returnType) throws Exception {
-        // 1. 创建返回类型的实例
-        Constructor<?> constructor = returnType.getConstructor();
-        Object result = constructor.newInstance();
-        // 2. 获取所有字段
-        Field[] fields = returnType.getDeclaredFields();
-
-        // 3. 设置字段值
-        for (int i = 0; i < Math.min(args.length, fields.length); i++) {
-            Field field = fields[i];
-            field.setAccessible(true);
-            field.set(result, args[i]);
-        }
-        return result;
-    }
-
-    /**
-     * 获取实体类对应的表名
-     * @param clazz 实体类
-     * @return 表名
-     */
-    protected String getTableName(Class<?> clazz) {
-        // 1. 检查是否有@Table注解
-        Table table = clazz.getAnnotation(Table.class);
-        // 2. 如果有注解，使用注解中的表名，否则使用类名的小写形式
-        return table != null ? table.tableName() : clazz.getSimpleName().toLowerCase();
-    }
-
-    /**
-     * 获取实体类的所有字段名
-     * @param clazz 实体类
-     * @return 字段名列表
-     */
-    protected List<String> getColumns(Class<?> clazz) {
-        // 1. 获取所有声明的字段并转换为列表
-        return Arrays.stream(clazz.getDeclaredFields())
-                .map(Field::getName)
-                .collect(Collectors.toList());
-    }
-}
+package utils.strategy;
+
+import annotations.Page;
+import annotations.Param;
+import annotations.Table;
+import utils.AppConfig;
+import utils.TransactionManager;
+import utils.cache.CacheManager;
+import utils.cache.LruCache;
+import utils.cache.QueryKey;
+import utils.cache.SqlTables;
+import utils.log.LogManager;
+import utils.log.Logger;
+import utils.log.SlowQueryLog;
+import utils.metrics.Metrics;
+import utils.mapping.EntityMetadata;
+import utils.mapping.PropertyAccessor;
+import utils.mapping.RowMappers;
+import utils.page.PageLimits;
+import utils.page.PageResult;
+import utils.plan.*;
+import utils.pool.PoolConfig;
+import utils.pool.PooledDataSource;
+
+import java.lang.reflect.*;
+import java.sql.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * SQL执行策略的抽象基类
+ * 提供了所有SQL策略共用的基础功能，包括数据库连接、参数处理、结果集解析等
+ */
+public abstract class AbstractSqlStrategy implements SqlExecutionStrategy {
+    // 以具体策略类命名的日志记录器，编译后的SQL以DEBUG级别输出
+    protected final Logger log = LogManager.getLogger(getClass());
+
+    // 数据库连接配置
+    protected static String jdbcUrl = "jdbc:mysql://localhost:3306/mybatis_db";
+    protected static String username = "root";
+    protected static String password = "12345678";
+
+    // 批量语句每次executeBatch提交的行数
+    protected static final int BATCH_SIZE = AppConfig.getInt("db.batchSize", 500);
+
+    // 非MySQL数据库流式查询时每次从服务端读取的行数
+    private static final int STREAM_FETCH_SIZE = AppConfig.getInt("db.streamFetchSize", 1000);
+
+    // 命名参数格式：#{paramName}
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("#\\{(.*?)}");
+
+    // 单个等值条件：column = #{paramName}
+    private static final Pattern KEY_CONDITION_PATTERN =
+            Pattern.compile("^\\s*`?(\\w+)`?\\s*=\\s*#\\{\\s*(\\w+)\\s*}\\s*;?\\s*$");
+
+    /**
+     * 连接池持有类
+     * 第一次获取连接时才创建连接池，上面的连接配置可以被db.url、db.username、db.password覆盖
+     */
+    private static class DataSourceHolder {
+        private static final PooledDataSource INSTANCE =
+                new PooledDataSource(PoolConfig.load(jdbcUrl, username, password));
+    }
+
+    /**
+     * 获取所有策略共用的连接池
+     * @return 连接池数据源
+     */
+    public static PooledDataSource getDataSource() {
+        return DataSourceHolder.INSTANCE;
+    }
+
+    /**
+     * 获取数据库连接
+     * @return 当前事务绑定的连接，或从连接池借出的连接，关闭时归还连接池
+     * @throws SQLException 如果数据库连接失败或等待超时
+     */
+    protected Connection getConnection() throws SQLException {
+        // 1. 当前线程在事务中时使用事务绑定的连接，关闭它不会归还连接池
+        Connection transactional = TransactionManager.currentConnection();
+        if (transactional != null) {
+            return transactional;
+        }
+        // 2. 否则从连接池借出连接
+        if (!Metrics.isEnabled()) {
+            return getDataSource().getConnection();
+        }
+        long start = System.nanoTime();
+        Connection connection = getDataSource().getConnection();
+        Metrics.recordConnectionAcquire(System.nanoTime() - start);
+        return connection;
+    }
+
+    /**
+     * 将驼峰命名转换为下划线命名
+     * @param camelCase 驼峰命名的字符串
+     * @return 转换后的下划线命名字符串
+     */
+    protected String camelCaseToSnakeCase(String camelCase) {
+        // 1. 检查输入是否为null
+        if (camelCase == null) return null;
+        // 2. 使用正则表达式匹配大小写字母之间的位置
+        String regex = "([a-z])([A-Z])";
+        String replacement = "$1_$2";
+        // 3. 在匹配位置插入下划线并转换为小写
+        return camelCase.replaceAll(regex, replacement).toLowerCase();
+    }
+
+    /**
+     * 转换参数名称为数据库列名格式
+     * @param paramName 参数名称
+     * @return 转换后的数据库列名
+     */
+    protected String convertParamName(String paramName) {
+        // 1. 调用camelCaseToSnakeCase方法进行转换
+        return camelCaseToSnakeCase(paramName);
+    }
+
+    /**
+     * 执行语句计划
+     * 按主键查询单个实体的语句先查实体缓存，写语句执行后使对应的缓存失效
+     * @param plan 语句计划
+     * @param args 方法参数
+     * @return 执行结果
+     * @throws Exception 如果执行过程出错
+     */
+    @Override
+    public Object execute(StatementPlan plan, Object[] args) throws Exception {
+        // 1. 按主键查询单个实体时先查缓存，事务中可能读到未提交的数据，不使用缓存
+        if (plan.getCacheTable() != null && CacheManager.isEnabled() && !TransactionManager.isActive()) {
+            return executeCached(plan, args);
+        }
+        if (plan.getQueryTables() != null && CacheManager.isQueryCacheEnabled() && !TransactionManager.isActive()) {
+            return executeQueryCached(plan, args);
+        }
+        // 2. 执行语句，写语句执行后使缓存失效
+        Object result = plan.isBatch() ? executeBatch(plan, args) : executeStatement(plan, args);
+        if (plan.getWriteTable() != null) {
+            invalidateCache(plan, args);
+        }
+        return result;
+    }
+
+    /**
+     * 通过实体缓存执行按主键查询的语句
+     * 命中时返回缓存实体的副本；未命中时查询数据库，查到的实体放入缓存
+     * 查询期间同一张表发生写操作时，本次结果可能已过时，不放入缓存
+     * @param plan 语句计划
+     * @param args 方法参数
+     * @return 查询到的实体，没有时返回null
+     * @throws Exception 如果执行过程出错
+     */
+    private Object executeCached(StatementPlan plan, Object[] args) throws Exception {
+        Object id = args[plan.getCacheKeyIndex()];
+        if (id == null) {
+            return executeStatement(plan, args);
+        }
+        LruCache<Object, Object> region = CacheManager.entityRegion(plan.getCacheTable(), plan.getKeyColumn());
+        Object key = CacheManager.entityKey(id);
+        Object cached = region.get(key);
+        if (cached != null) {
+            return plan.getCacheEntity().copy(cached);
+        }
+        long generation = region.generation();
+        Object result = executeStatement(plan, args);
+        if (result != null) {
+            region.put(key, plan.getCacheEntity().copy(result), generation);
+        }
+        return result;
+    }
+
+    /**
+     * 通过查询缓存执行查询
+     * 以SQL文本和参数值为键，命中时返回缓存结果的副本；未命中时查询数据库并放入缓存
+     * 查询前先取得依赖的表的版本号，查询期间表被写入时结果不放入缓存
+     * @param plan 语句计划
+     * @param args 方法参数
+     * @return 查询结果
+     * @throws Exception 如果执行过程出错
+     */
+    private Object executeQueryCached(StatementPlan plan, Object[] args) throws Exception {
+        QueryKey key = new QueryKey(plan.getSql(), boundArguments(plan, args));
+        Object cached = CacheManager.getQuery(key);
+        if (cached != null) {
+            return copyResult(plan, cached);
+        }
+        long[] versions = CacheManager.tableVersions(plan.getQueryTables());
+        Object result = executeStatement(plan, args);
+        if (result != null) {
+            CacheManager.putQuery(key, copyResult(plan, result), countRows(result), plan.getQueryTables(), versions);
+        }
+        return result;
+    }
+
+    /**
+     * 记录一次数据库执行的行数，流式查询的行数由调用方处理，记为0
+     */
+    private static void recordExecution(StatementPlan plan, long rows) {
+        if (Metrics.isEnabled()) {
+            plan.getMetrics().recordExecution(rows);
+        }
+    }
+
+    /**
+     * 按占位符顺序取出绑定的参数值
+     */
+    private static Object[] boundArguments(StatementPlan plan, Object[] args) {
+        int[] argIndexes = plan.getArgIndexes();
+        Object[] values = new Object[argIndexes.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = args[argIndexes[i]];
+        }
+        return values;
+    }
+
+    /**
+     * 复制查询结果，缓存和调用方各自持有一份实体
+     */
+    private static Object copyResult(StatementPlan plan, Object result) {
+        if (result instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) result).size());
+            for (Object entity : (List<?>) result) {
+                copy.add(plan.getCacheEntity().copy(entity));
+            }
+            return copy;
+        }
+        if (result instanceof PageResult) {
+            PageResult<?> page = (PageResult<?>) result;
+            return new PageResult<>((List<?>) copyResult(plan, page.getItems()), page.getNextCursor());
+        }
+        return plan.getCacheEntity().copy(result);
+    }
+
+    /**
+     * 查询结果的行数
+     */
+    private static int countRows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof List) {
+            return ((List<?>) result).size();
+        }
+        if (result instanceof PageResult) {
+            return ((PageResult<?>) result).getItems().size();
+        }
+        return 1;
+    }
+
+    /**
+     * 写语句执行后增加表的版本号并使缓存失效
+     * 缓存关闭时也要增加版本号，Servlet按表的版本号生成ETag
+     * 在事务中时，事务结束后再失效一次，清理提交前被其他线程读入缓存的旧数据
+     * @param plan 写语句计划
+     * @param args 方法参数
+     */
+    private static void invalidateCache(StatementPlan plan, Object[] args) {
+        // 1. 确定被写入的主键，无法确定或缓存关闭时整张表失效
+        String table = plan.getWriteTable();
+        String keyColumn = plan.getKeyColumn();
+        boolean insert = plan.isInsert();
+        boolean cacheEnabled = CacheManager.isEnabled();
+        List<Object> keys = null;
+        if (cacheEnabled && plan.getWriteKeyProperty() != null && args[0] != null) {
+            keys = new ArrayList<>();
+            for (Object entity : (List<?>) args[0]) {
+                keys.add(plan.getWriteKeyProperty().get(entity));
+            }
+        } else if (cacheEnabled && plan.getWriteKeyIndex() >= 0 && args[plan.getWriteKeyIndex()] != null) {
+            keys = Collections.singletonList(args[plan.getWriteKeyIndex()]);
+        }
+        List<Object> writtenKeys = keys;
+        Runnable invalidation = () -> {
+            if (writtenKeys == null) {
+                CacheManager.onWrite(table, keyColumn, null, insert);
+                return;
+            }
+            for (Object key : writtenKeys) {
+                CacheManager.onWrite(table, keyColumn, key, insert);
+            }
+        };
+
+        // 2. 立即失效，事务中再注册事务结束后的失效
+        invalidation.run();
+        if (TransactionManager.isActive()) {
+            TransactionManager.afterCompletion(invalidation);
+        }
+    }
+
+    /**
+     * 执行单条语句
+     * 借出连接、准备语句、按计划绑定参数，再交给返回值处理器生成结果
+     * @param plan 语句计划
+     * @param args 方法参数
+     * @return 执行结果
+     * @throws Exception 如果执行过程出错
+     */
+    private Object executeStatement(StatementPlan plan, Object[] args) throws Exception {
+        if (log.isDebugEnabled()) {
+            log.debug("Executing {} with {}", plan, Arrays.toString(boundArguments(plan, args)));
+        }
+        long startTime = System.nanoTime();
+        try (Connection connection = getConnection();
+             PreparedStatement preparedStatement = prepare(connection, plan)) {
+            // 1. 按占位符顺序绑定参数
+            plan.bindParameters(preparedStatement, args);
+
+            // 2. 查询语句交给返回值处理器映射结果集
+            if (plan.isQuery()) {
+                try (ResultSet rs = preparedStatement.executeQuery()) {
+                    Object result = plan.getReturnHandler().handle(rs, -1, args);
+                    recordExecution(plan, plan.isStreaming() ? 0 : countRows(result));
+                    return result;
+                }
+            }
+
+            // 3. 写语句根据影响行数和生成的主键构造返回值
+            int affected = preparedStatement.executeUpdate();
+            recordExecution(plan, affected);
+            if (plan.isReturnGeneratedKeys()) {
+                try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+                    return plan.getReturnHandler().handle(generatedKeys, affected, args);
+                }
+            }
+            return plan.getReturnHandler().handle(null, affected, args);
+        } finally {
+            // 流式查询的耗时包含回调处理每一行的时间，不计入慢查询
+            if (!plan.isStreaming()) {
+                SlowQueryLog.record(plan, System.nanoTime() - startTime);
+            }
+        }
+    }
+
+    /**
+     * 按语句计划准备语句
+     * 流式查询使用只进、只读的结果集，MySQL下fetchSize设为Integer.MIN_VALUE，驱动逐行从网络读取而不是一次读完整个结果集
+     * @param connection 数据库连接
+     * @param plan 语句计划
+     * @return 预处理语句
+     * @throws SQLException 如果准备语句失败
+     */
+    protected PreparedStatement prepare(Connection connection, StatementPlan plan) throws SQLException {
+        if (plan.isReturnGeneratedKeys()) {
+            return connection.prepareStatement(plan.getSql(), Statement.RETURN_GENERATED_KEYS);
+        }
+        if (plan.isStreaming()) {
+            PreparedStatement preparedStatement = connection.prepareStatement(plan.getSql(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            preparedStatement.setFetchSize(isMySql() ? Integer.MIN_VALUE : STREAM_FETCH_SIZE);
+            return preparedStatement;
+        }
+        return connection.prepareStatement(plan.getSql());
+    }
+
+    /**
+     * 当前连接池是否连接的是MySQL
+     */
+    private static boolean isMySql() {
+        return getDataSource().getConfig().getJdbcUrl().startsWith("jdbc:mysql:");
+    }
+
+    /**
+     * 执行批量语句
+     * 列表按BATCH_SIZE分段addBatch/executeBatch，全部分段在一个事务中提交，任何一段失败时整体回滚
+     * 生成的主键先按顺序收集，全部分段成功（自己开启的事务已提交）后才写回实体，回滚时实体不会带上不存在的主键
+     * 配合MySQL驱动的rewriteBatchedStatements，一段INSERT会被改写成一条多值INSERT
+     * @param plan 批量语句计划
+     * @param args 方法参数，第一个参数为实体列表
+     * @return 执行结果
+     * @throws Exception 如果执行过程出错
+     */
+    protected Object executeBatch(StatementPlan plan, Object[] args) throws Exception {
+        List<?> entities = (List<?>) args[0];
+        if (entities == null || entities.isEmpty()) {
+            return plan.getReturnHandler().handle(null, 0, args);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Executing {} with {} entities", plan, entities.size());
+        }
+        long startTime = System.nanoTime();
+        try (Connection connection = getConnection();
+             PreparedStatement preparedStatement = plan.getKeyProperty() != null
+                     ? connection.prepareStatement(plan.getSql(), Statement.RETURN_GENERATED_KEYS)
+                     : connection.prepareStatement(plan.getSql())) {
+            // 1. 自动提交模式下开启事务，让整个列表一起成功或失败
+            boolean autoCommit = connection.getAutoCommit();
+            if (autoCommit) {
+                connection.setAutoCommit(false);
+            }
+            try {
+                int affected = 0;
+                List<Object> generatedKeys = plan.getKeyProperty() != null ? new ArrayList<>(entities.size()) : null;
+                for (int start = 0; start < entities.size(); start += BATCH_SIZE) {
+                    List<?> chunk = entities.subList(start, Math.min(start + BATCH_SIZE, entities.size()));
+                    // 2. 绑定并提交一段
+                    for (Object entity : chunk) {
+                        plan.bindEntity(preparedStatement, entity);
+                        preparedStatement.addBatch();
+                    }
+                    affected += countAffected(preparedStatement.executeBatch());
+
+                    // 3. 按顺序收集生成的主键
+                    if (generatedKeys != null) {
+                        readGeneratedKeys(plan, preparedStatement, chunk.size(), generatedKeys);
+                    }
+                }
+                if (autoCommit) {
+                    connection.commit();
+                }
+                // 4. 提交成功后再回填主键；加入外层事务时外层回滚由调用方处理
+                if (generatedKeys != null) {
+                    fillGeneratedKeys(plan, entities, generatedKeys);
+                }
+                recordExecution(plan, affected);
+                return plan.getReturnHandler().handle(null, affected, args);
+            } catch (Exception e) {
+                if (autoCommit) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                if (autoCommit) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        } finally {
+            SlowQueryLog.record(plan, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * 统计executeBatch的影响行数
+     * 驱动改写批量语句后可能只返回SUCCESS_NO_INFO，此时按每条语句影响一行计算
+     */
+    private static int countAffected(int[] counts) {
+        int affected = 0;
+        for (int count : counts) {
+            affected += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return affected;
+    }
+
+    /**
+     * 按顺序读取一段批量插入生成的主键
+     * @param count 这一段的行数，最多读取这么多个主键
+     * @param generatedKeys 输出参数，追加读到的主键；驱动返回的主键不足时补null，保持与实体一一对应
+     */
+    private static void readGeneratedKeys(StatementPlan plan, PreparedStatement preparedStatement, int count,
+                                          List<Object> generatedKeys) throws SQLException {
+        try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+            int read = 0;
+            while (read < count && keys.next()) {
+                generatedKeys.add(plan.getKeyReader().read(keys, 1));
+                read++;
+            }
+            for (; read < count; read++) {
+                generatedKeys.add(null);
+            }
+        }
+    }
+
+    /**
+     * 把收集到的主键依次写回实体，没有读到主键的实体不回填
+     */
+    private static void fillGeneratedKeys(StatementPlan plan, List<?> entities, List<Object> generatedKeys) {
+        for (int i = 0; i < generatedKeys.size(); i++) {
+            if (generatedKeys.get(i) != null) {
+                plan.getKeyProperty().set(entities.get(i), generatedKeys.get(i));
+            }
+        }
+    }
+
+    /**
+     * 把文本中的 #{paramName} 替换为问号占位符，并按出现顺序记录对应的方法参数下标
+     * @param text 含命名参数的SQL片段
+     * @param method Mapper方法
+     * @param argIndexes 输出参数，按占位符顺序追加方法参数下标
+     * @return 替换后的SQL片段
+     * @throws IllegalArgumentException 如果命名参数没有对应的@Param参数
+     */
+    protected String compilePlaceholders(String text, Method method, List<Integer> argIndexes) {
+        // 1. 建立@Param名称到参数下标的映射
+        Map<String, Integer> paramIndexes = new HashMap<>();
+        Parameter[] parameters = method.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            Param param = parameters[i].getAnnotation(Param.class);
+            if (param != null) {
+                paramIndexes.put(param.value(), i);
+            }
+        }
+
+        // 2. 依次替换 #{paramName} 为 ?
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(text);
+        StringBuffer sb = new StringBuffer();
+        while (matcher.find()) {
+            String paramName = matcher.group(1).trim();
+            Integer index = paramIndexes.get(paramName);
+            if (index == null) {
+                throw new IllegalArgumentException("No @Param(\"" + paramName + "\") on method " + method);
+            }
+            argIndexes.add(index);
+            matcher.appendReplacement(sb, "?");
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    /**
+     * 根据方法参数下标生成参数绑定器
+     * 分页查询的limit和after参数使用分页专用的绑定器
+     * @param method Mapper方法
+     * @param argIndexes 按占位符顺序排列的参数下标
+     * @return 参数绑定器数组
+     */
+    protected ParameterBinder[] createBinders(Method method, List<Integer> argIndexes) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Page page = method.getAnnotation(Page.class);
+        int limitIndex = page != null ? findParamIndex(method, page.limitParam()) : -1;
+        int afterIndex = page != null ? findParamIndex(method, page.afterParam()) : -1;
+        ParameterBinder[] binders = new ParameterBinder[argIndexes.size()];
+        for (int i = 0; i < binders.length; i++) {
+            int argIndex = argIndexes.get(i);
+            if (argIndex == limitIndex) {
+                binders[i] = PageLimits.LIMIT;
+            } else if (argIndex == afterIndex) {
+                binders[i] = PageLimits.CURSOR;
+            } else {
+                binders[i] = ParameterBinders.forType(parameterTypes[argIndex]);
+            }
+        }
+        return binders;
+    }
+
+    /**
+     * 为@Page方法追加键集分页条件：键大于游标，按键升序，多取一行判断是否有下一页
+     * @param sql 查询语句，不能包含ORDER BY和LIMIT
+     * @param method Mapper方法
+     * @param argIndexes 输出参数，追加游标和行数参数的下标
+     * @param derivedTable 为true时把原查询作为派生表包一层（用于@SQL），否则直接追加到WHERE条件之后
+     * @return 分页查询语句
+     * @throws IllegalArgumentException 如果缺少分页参数或分页键不是数值类型
+     */
+    protected String appendKeysetClause(String sql, Method method, List<Integer> argIndexes, boolean derivedTable) {
+        Page page = method.getAnnotation(Page.class);
+        if (!PageResult.class.equals(method.getReturnType())) {
+            throw new IllegalArgumentException("@Page method must return PageResult: " + method);
+        }
+        // 1. 查找游标和行数参数
+        int afterIndex = findParamIndex(method, page.afterParam());
+        int limitIndex = findParamIndex(method, page.limitParam());
+        if (afterIndex < 0 || limitIndex < 0) {
+            throw new IllegalArgumentException("@Page method needs @Param(\"" + page.afterParam()
+                    + "\") and @Param(\"" + page.limitParam() + "\"): " + method);
+        }
+
+        // 2. 拼接分页条件
+        String keyColumn = getPageKeyColumn(method, derivedTable);
+        String where;
+        if (derivedTable) {
+            keyColumn = "page_t." + keyColumn;
+            where = "SELECT * FROM (" + sql + ") page_t WHERE " + keyColumn + " > ?";
+        } else {
+            where = sql + " AND " + keyColumn + " > ?";
+        }
+        argIndexes.add(afterIndex);
+        argIndexes.add(limitIndex);
+        return where + " ORDER BY " + keyColumn + " LIMIT ?";
+    }
+
+    /**
+     * 获取分页键在SQL中的列名
+     * SelectStrategy生成的查询使用数据库列名，@SQL查询使用结果集中的列名
+     */
+    private String getPageKeyColumn(Method method, boolean resultLabel) {
+        String key = method.getAnnotation(Page.class).key();
+        if (resultLabel && !key.isEmpty()) {
+            return key;
+        }
+        return camelCaseToSnakeCase(getPageKeyProperty(method).getName());
+    }
+
+    /**
+     * 获取分页键对应的实体属性，用于从本页最后一行取出下一页的游标
+     * @param method @Page方法
+     * @return 分页键属性
+     * @throws IllegalArgumentException 如果找不到属性或属性不是整数类型
+     */
+    protected PropertyAccessor getPageKeyProperty(Method method) {
+        String key = method.getAnnotation(Page.class).key();
+        EntityMetadata metadata = EntityMetadata.of(getResultType(method));
+        PropertyAccessor property = key.isEmpty() ? metadata.getIdProperty() : metadata.findProperty(key);
+        if (property == null) {
+            throw new IllegalArgumentException("Unknown @Page key '" + key + "' on " + method);
+        }
+        Class<?> type = property.getType();
+        if (type != Integer.class && type != int.class && type != Long.class && type != long.class) {
+            throw new IllegalArgumentException("@Page key must be an integer property: " + method);
+        }
+        return property;
+    }
+
+    /**
+     * 获取实体主键对应的列名
+     * @param entityType 实体类
+     * @return 主键列名，实体没有属性时返回null
+     */
+    protected String getIdColumn(Class<?> entityType) {
+        PropertyAccessor idProperty = EntityMetadata.of(entityType).getIdProperty();
+        return idProperty != null ? camelCaseToSnakeCase(idProperty.getName()) : null;
+    }
+
+    /**
+     * 判断条件是否为按主键等值匹配，例如 student_id = #{studentId}
+     * @param method Mapper方法
+     * @param entityType 实体类
+     * @param condition WHERE条件
+     * @return 主键对应的方法参数下标，不是按主键匹配时返回-1
+     */
+    protected int findKeyParamIndex(Method method, Class<?> entityType, String condition) {
+        Matcher matcher = KEY_CONDITION_PATTERN.matcher(condition);
+        if (!matcher.matches() || !matcher.group(1).equalsIgnoreCase(getIdColumn(entityType))) {
+            return -1;
+        }
+        return findParamIndex(method, matcher.group(2));
+    }
+
+    /**
+     * 判断查询方法是否返回单个实体，只有这类查询的结果放入实体缓存
+     * @param method Mapper方法
+     * @return 返回带@Table的实体类且不是流式、分页查询时返回true
+     */
+    protected boolean returnsSingleEntity(Method method) {
+        return findConsumerIndex(method) < 0
+                && !method.isAnnotationPresent(Page.class)
+                && method.getReturnType().isAnnotationPresent(Table.class);
+    }
+
+    /**
+     * 为查询开启结果缓存
+     * 流式查询不缓存；SQL依赖会话或时间（如LAST_INSERT_ID()、NOW()）或无法识别依赖的表时也不缓存
+     * @param builder 语句计划构建器
+     * @param method Mapper方法
+     * @param sql 最终的SQL文本
+     */
+    protected void applyQueryCache(StatementPlan.StatementPlanBuilder builder, Method method, String sql) {
+        if (findConsumerIndex(method) >= 0) {
+            return;
+        }
+        Class<?> resultType = getResultType(method);
+        if (!resultType.isAnnotationPresent(Table.class)) {
+            return;
+        }
+        String[] tables = SqlTables.parseQueryTables(sql);
+        if (tables.length > 0) {
+            builder.queryTables(tables).cacheEntity(EntityMetadata.of(resultType));
+        }
+    }
+
+    /**
+     * 按@Param名称查找参数下标
+     * @return 参数下标，没有时返回-1
+     */
+    protected int findParamIndex(Method method, String name) {
+        Parameter[] parameters = method.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            Param param = parameters[i].getAnnotation(Param.class);
+            if (param != null && param.value().equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 创建查询语句的返回值处理器
+     * 有Consumer参数时逐行回调，@Page方法返回一页，返回List时映射全部行，否则映射第一行
+     * @param method Mapper方法
+     * @param rowMapper 行映射器
+     * @return 返回值处理器
+     */
+    protected ReturnHandler createQueryReturnHandler(Method method, RowMapper rowMapper) {
+        int consumerIndex = findConsumerIndex(method);
+        if (consumerIndex >= 0) {
+            return ReturnHandlers.stream(rowMapper, consumerIndex, method.getReturnType());
+        }
+        Page page = method.getAnnotation(Page.class);
+        if (page != null) {
+            return ReturnHandlers.page(rowMapper, findParamIndex(method, page.limitParam()),
+                    getPageKeyProperty(method));
+        }
+        return method.getReturnType().equals(List.class)
+                ? ReturnHandlers.list(rowMapper)
+                : ReturnHandlers.single(rowMapper);
+    }
+
+    /**
+     * 创建查询语句的行映射器
+     * 列与属性的对应关系在每个结果集开始时确定一次，逐行映射时不再使用反射
+     * 有编译期生成的行映射器时优先使用
+     * @param method Mapper方法
+     * @return 行映射器
+     */
+    protected RowMapper createRowMapper(Method method) {
+        return RowMappers.forEntity(getResultType(method));
+    }
+
+    /**
+     * 获取查询结果的元素类型
+     * @param method Mapper方法
+     * @return Consumer参数、List或PageResult的泛型类型，或方法的返回类型
+     */
+    protected Class<?> getResultType(Method method) {
+        int consumerIndex = findConsumerIndex(method);
+        if (consumerIndex >= 0) {
+            return getTypeArgument(method.getGenericParameterTypes()[consumerIndex]);
+        }
+        Class<?> returnType = method.getReturnType();
+        return returnType.equals(List.class) || returnType.equals(PageResult.class)
+                ? getGenericType(method) : returnType;
+    }
+
+    /**
+     * 查找流式查询的Consumer参数
+     * @param method Mapper方法
+     * @return Consumer参数的下标，没有时返回-1
+     */
+    protected int findConsumerIndex(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (Consumer.class.isAssignableFrom(parameterTypes[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 把整数列表转换为数组
+     */
+    protected static int[] toIntArray(List<Integer> list) {
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * 获取List的泛型类型
+     * @param method 方法对象
+     * @return 泛型类型
+     */
+    private Class<?> getGenericType(Method method) {
+        // 1. 获取方法的泛型返回类型
+        java.lang.reflect.Type returnType = method.getGenericReturnType();
+        // 2. 如果是ParameterizedType，获取实际的类型参数
+        return getTypeArgument(returnType);
+    }
+
+    /**
+     * 获取批量方法的实体类型，即List参数的泛型类型
+     * @param method 批量Mapper方法
+     * @return 实体类型
+     * @throws IllegalArgumentException 如果无法确定实体类型
+     */
+    protected Class<?> getBatchEntityType(Method method) {
+        Class<?> entityType = getTypeArgument(method.getGenericParameterTypes()[0]);
+        if (entityType == Object.class) {
+            throw new IllegalArgumentException("Batch method needs a List<Entity> parameter: " + method);
+        }
+        return entityType;
+    }
+
+    private static Class<?> getTypeArgument(java.lang.reflect.Type type) {
+        if (type instanceof java.lang.reflect.ParameterizedType) {
+            java.lang.reflect.Type[] typeArguments = ((java.lang.reflect.ParameterizedType) type).getActualTypeArguments();
+            if (typeArguments.length > 0 && typeArguments[0] instanceof Class) {
+                return (Class<?>) typeArguments[0];
+            }
+        }
+        return Object.class;
+    }
+
+    /**
+     * 创建批量语句的返回值处理器
+     * 返回List时返回传入的实体列表（插入时已回填主键），否则返回影响行数或是否成功
+     * @param method 批量Mapper方法
+     * @return 返回值处理器
+     */
+    protected ReturnHandler createBatchReturnHandler(Method method) {
+        return List.class.isAssignableFrom(method.getReturnType())
+                ? ReturnHandlers.firstArgument()
+                : ReturnHandlers.affectedRows(method.getReturnType());
+    }
+
+    /**
+     * 获取实体类对应的表名
+     * @param clazz 实体类
+     * @return 表名
+     */
+    protected String getTableName(Class<?> clazz) {
+        // 1. 检查是否有@Table注解
+        Table table = clazz.getAnnotation(Table.class);
+        // 2. 如果有注解，使用注解中的表名，否则使用类名的小写形式
+        return table != null ? table.tableName() : clazz.getSimpleName().toLowerCase();
+    }
+
+    /**
+     * 获取实体类的所有字段名
+     * @param clazz 实体类
+     * @return 字段名列表
+     */
+    protected List<String> getColumns(Class<?> clazz) {
+        // 1. 获取所有声明的字段并转换为列表
+        return Arrays.stream(clazz.getDeclaredFields())
+                .map(Field::getName)
+                .collect(Collectors.toList());
+    }
+}
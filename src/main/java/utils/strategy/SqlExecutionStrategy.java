@@ -1,7 +1,23 @@
 package utils.strategy;
 
+import utils.plan.StatementPlan;
+
 import java.lang.reflect.Method;
 
 public interface SqlExecutionStrategy {
-    Object execute(Method method, Object[] args) throws Exception;
+    /**
+     * 编译Mapper方法，生成语句计划
+     * @param method Mapper接口的方法
+     * @return 语句计划
+     */
+    StatementPlan compile(Method method);
+
+    /**
+     * 执行语句计划
+     * @param plan 语句计划
+     * @param args 方法参数
+     * @return 执行结果
+     * @throws Exception 如果执行过程出错
+     */
+    Object execute(StatementPlan plan, Object[] args) throws Exception;
 }
@@ -0,0 +1,85 @@
+package utils.strategy.impl;
+
+import utils.mapping.ColumnReaders;
+import utils.mapping.EntityMetadata;
+import utils.mapping.PropertyAccessor;
+import utils.plan.ParameterBinder;
+import utils.plan.ParameterBinders;
+import utils.plan.StatementPlan;
+import utils.strategy.AbstractSqlStrategy;
+
+import java.lang.reflect.Method;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 批量插入策略实现类
+ * 负责处理参数为实体列表的INSERT操作，例如 List<Student> insertStudents(List<Student> students)
+ * 所有实体共用一条INSERT语句，通过addBatch/executeBatch一次发送，自增主键插入后按顺序回填
+ */
+public class BatchInsertStrategy extends AbstractSqlStrategy {
+    /**
+     * 编译批量插入方法
+     * @param method 要编译的方法
+     * @return 批量语句计划
+     */
+    @Override
+    public StatementPlan compile(Method method) {
+        // 1. 确定实体类型和主键属性
+        Class<?> entityType = getBatchEntityType(method);
+        EntityMetadata metadata = EntityMetadata.of(entityType);
+        PropertyAccessor idProperty = metadata.getIdProperty();
+        boolean generatedId = metadata.isGeneratedId();
+
+        // 2. 自增主键不写入，其余属性按声明顺序作为插入列
+        List<String> columns = new ArrayList<>();
+        List<PropertyAccessor> properties = new ArrayList<>();
+        for (PropertyAccessor property : metadata.getProperties()) {
+            if (generatedId && property == idProperty) {
+                continue;
+            }
+            columns.add(camelCaseToSnakeCase(property.getName()));
+            properties.add(property);
+        }
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("No columns specified for insert");
+        }
+
+        // 3. 创建INSERT SQL语句
+        String sql = String.format("INSERT INTO %s (%s) VALUES (%s)",
+                getTableName(entityType),
+                String.join(", ", columns),
+                String.join(", ", Collections.nCopies(columns.size(), "?")));
+        log.debug("Compiled BATCH INSERT SQL: {}", sql);
+
+        // 4. 自增主键插入后回填到实体上
+        PropertyAccessor keyProperty = generatedId ? idProperty : null;
+        return StatementPlan.builder()
+                .method(method)
+                .strategy(this)
+                .sql(sql)
+                .batch(true)
+                .writeTable(getTableName(entityType))
+                .insert(true)
+                .argIndexes(new int[0])
+                .properties(properties.toArray(new PropertyAccessor[0]))
+                .binders(createPropertyBinders(properties))
+                .keyProperty(keyProperty)
+                .keyReader(keyProperty != null ? ColumnReaders.forColumn(Types.BIGINT, keyProperty.getType()) : null)
+                .returnHandler(createBatchReturnHandler(method))
+                .build();
+    }
+
+    /**
+     * 根据属性类型生成参数绑定器
+     */
+    static ParameterBinder[] createPropertyBinders(List<PropertyAccessor> properties) {
+        ParameterBinder[] binders = new ParameterBinder[properties.size()];
+        for (int i = 0; i < binders.length; i++) {
+            binders[i] = ParameterBinders.forType(properties.get(i).getType());
+        }
+        return binders;
+    }
+}
@@ -0,0 +1,65 @@
+package utils.strategy.impl;
+
+import utils.mapping.EntityMetadata;
+import utils.mapping.PropertyAccessor;
+import utils.plan.StatementPlan;
+import utils.strategy.AbstractSqlStrategy;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量更新策略实现类
+ * 负责处理参数为实体列表的UPDATE操作，例如 int updateStudents(List<Student> students)
+ * 按主键更新其余所有列，所有实体共用一条UPDATE语句，通过addBatch/executeBatch一次发送
+ */
+public class BatchUpdateStrategy extends AbstractSqlStrategy {
+    /**
+     * 编译批量更新方法
+     * @param method 要编译的方法
+     * @return 批量语句计划
+     */
+    @Override
+    public StatementPlan compile(Method method) {
+        // 1. 确定实体类型和主键属性
+        Class<?> entityType = getBatchEntityType(method);
+        EntityMetadata metadata = EntityMetadata.of(entityType);
+        PropertyAccessor idProperty = metadata.getIdProperty();
+        if (idProperty == null) {
+            throw new IllegalArgumentException("No id property on " + entityType.getName());
+        }
+
+        // 2. 主键以外的属性作为SET子句
+        List<String> setClauses = new ArrayList<>();
+        List<PropertyAccessor> properties = new ArrayList<>();
+        for (PropertyAccessor property : metadata.getProperties()) {
+            if (property != idProperty) {
+                setClauses.add(camelCaseToSnakeCase(property.getName()) + " = ?");
+                properties.add(property);
+            }
+        }
+
+        // 3. 主键作为WHERE子句
+        properties.add(idProperty);
+        String sql = String.format("UPDATE %s SET %s WHERE %s = ?",
+                getTableName(entityType),
+                String.join(", ", setClauses),
+                camelCaseToSnakeCase(idProperty.getName()));
+        log.debug("Compiled BATCH UPDATE SQL: {}", sql);
+
+        return StatementPlan.builder()
+                .method(method)
+                .strategy(this)
+                .sql(sql)
+                .batch(true)
+                .writeTable(getTableName(entityType))
+                .writeKeyProperty(idProperty)
+                .keyColumn(camelCaseToSnakeCase(idProperty.getName()))
+                .argIndexes(new int[0])
+                .properties(properties.toArray(new PropertyAccessor[0]))
+                .binders(BatchInsertStrategy.createPropertyBinders(properties))
+                .returnHandler(createBatchReturnHandler(method))
+                .build();
+    }
+}
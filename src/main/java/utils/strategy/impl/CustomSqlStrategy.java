@@ -1,152 +1,151 @@
 package utils.strategy.impl;
 
-import annotations.Param;
+import annotations.Page;
 import annotations.SQL;
+import utils.mapping.EntityMetadata;
+import utils.plan.ReturnHandlers;
+import utils.plan.RowMapper;
+import utils.plan.StatementPlan;
 import utils.strategy.AbstractSqlStrategy;
 
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
-import java.sql.*;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * 自定义SQL执行策略实现类
- * 继承自AbstractSqlStrategy，实现具体的SQL执行逻辑
+ * 继承自AbstractSqlStrategy，实现具体的SQL编译逻辑
  * 支持动态SQL参数替换和结果集映射
  * 处理SELECT和UPDATE/INSERT/DELETE两种类型的SQL语句
  */
 public class CustomSqlStrategy extends AbstractSqlStrategy {
+    // 按单个等值条件查询一张表：SELECT 列 FROM table WHERE column = #{param}
+    private static final Pattern KEY_SELECT_PATTERN = Pattern.compile(
+            "^\\s*SELECT\\s+(.+?)\\s+FROM\\s+`?(\\w+)`?\\s+WHERE\\s+(.+)$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    // 写语句的目标表
+    private static final Pattern WRITE_TABLE_PATTERN = Pattern.compile(
+            "^\\s*(INSERT\\s+(?:IGNORE\\s+)?INTO|REPLACE\\s+INTO|UPDATE|DELETE\\s+FROM)\\s+`?(\\w+)`?",
+            Pattern.CASE_INSENSITIVE);
+    // 写语句末尾的单个等值条件
+    private static final Pattern WRITE_KEY_PATTERN = Pattern.compile(
+            "\\s+WHERE\\s+`?(\\w+)`?\\s*=\\s*#\\{\\s*(\\w+)\\s*}\\s*;?\\s*$",
+            Pattern.CASE_INSENSITIVE);
+
     /**
-     * 执行SQL方法
-     * @param method 要执行的方法
-     * @param args 方法参数
-     * @return 执行结果
-     * @throws Exception 执行过程中的异常
+     * 编译SQL方法
+     * @param method 要编译的方法
+     * @return 语句计划
      */
     @Override
-    public Object execute(Method method, Object[] args) throws Exception {
+    public StatementPlan compile(Method method) {
         // 获取方法上的SQL注解值
         SQL sqlAnnotation = method.getAnnotation(SQL.class);
-        String sql = sqlAnnotation.value();
-        
-        try (Connection connection = getConnection()) {
-            // 处理SQL参数，将命名参数替换为问号占位符
-            sql = processSQLParameters(sql, method, args);
-            PreparedStatement preparedStatement = connection.prepareStatement(sql);
-            // 设置参数值
-            setParameterValues(preparedStatement, method, args);
-            System.out.println("Executing SQL: " + sql);
 
-            // 根据SQL类型执行不同的操作
-            if (sql.trim().toUpperCase().startsWith("SELECT")) {
-                ResultSet rs = preparedStatement.executeQuery();
-                // 处理查询结果
-                if (method.getReturnType().equals(List.class)) {
-                    return parseResultList(rs, method);
-                } else {
-                    return rs.next() ? parseResult(rs, method.getReturnType()) : null;
-                }
-            } else {
-                // 处理更新操作
-                int affected = preparedStatement.executeUpdate();
-                if (method.getReturnType().equals(Integer.class)) {
-                    return affected;
-                }
-                return affected > 0;
+        // 处理SQL参数，将命名参数替换为问号占位符，并按出现顺序记录参数
+        List<Integer> argIndexes = new ArrayList<>();
+        String sql = compilePlaceholders(sqlAnnotation.value(), method, argIndexes);
+        // 分页查询把原SQL作为派生表，追加键集分页条件
+        if (method.isAnnotationPresent(Page.class)) {
+            sql = appendKeysetClause(sql, method, argIndexes, true);
+        }
+        log.debug("Compiled SQL: {}", sql);
+
+        StatementPlan.StatementPlanBuilder builder = StatementPlan.builder()
+                .method(method)
+                .strategy(this)
+                .sql(sql)
+                .argIndexes(toIntArray(argIndexes))
+                .binders(createBinders(method, argIndexes));
+
+        // 根据SQL类型选择不同的结果处理方式
+        if (sql.trim().toUpperCase().startsWith("SELECT")) {
+            RowMapper rowMapper = createRowMapper(method);
+            if (!applyEntityCache(builder, method, sqlAnnotation.value())) {
+                applyQueryCache(builder, method, sql);
             }
+            return builder.query(true)
+                    .streaming(findConsumerIndex(method) >= 0)
+                    .rowMapper(rowMapper)
+                    .returnHandler(createQueryReturnHandler(method, rowMapper))
+                    .build();
         }
+        // 更新操作返回影响行数或是否成功，并使目标表的缓存失效
+        applyWriteTable(builder, method, sqlAnnotation.value());
+        return builder.returnHandler(ReturnHandlers.affectedRows(method.getReturnType())).build();
     }
 
     /**
-     * 处理SQL参数
-     * @param sql 原始SQL语句
-     * @param method 执行的方法
-     * @param args 方法参数
-     * @return 处理后的SQL语句
+     * 按主键查询完整实体的SQL使用实体缓存
+     * 要求查询的是实体对应的表，条件为主键等值匹配，并且查询列覆盖实体的全部属性，
+     * 否则缓存的实体会缺少属性
+     * @param builder 语句计划构建器
+     * @param method Mapper方法
+     * @param sql 原始SQL
+     * @return 使用实体缓存时返回true
      */
-    private String processSQLParameters(String sql, Method method, Object[] args) {
-        Parameter[] parameters = method.getParameters();
-        for (int i = 0; i < parameters.length; i++) {
-            // 查找带有@Param注解的参数
-            Param param = parameters[i].getAnnotation(Param.class);
-            if (param != null) {
-                String paramName = param.value();
-                // 将命名参数替换为问号占位符
-                sql = sql.replace("#{" + paramName + "}", "?");
-            }
+    private boolean applyEntityCache(StatementPlan.StatementPlanBuilder builder, Method method, String sql) {
+        if (!returnsSingleEntity(method)) {
+            return false;
         }
-        return sql;
+        Class<?> entityType = method.getReturnType();
+        Matcher matcher = KEY_SELECT_PATTERN.matcher(sql);
+        if (!matcher.matches() || !matcher.group(2).equalsIgnoreCase(getTableName(entityType))) {
+            return false;
+        }
+        int keyIndex = findKeyParamIndex(method, entityType, matcher.group(3));
+        if (keyIndex < 0 || !selectsAllProperties(matcher.group(1), EntityMetadata.of(entityType))) {
+            return false;
+        }
+        builder.cacheTable(getTableName(entityType))
+                .cacheKeyIndex(keyIndex)
+                .cacheEntity(EntityMetadata.of(entityType))
+                .keyColumn(getIdColumn(entityType));
+        return true;
     }
 
     /**
-     * 设置PreparedStatement的参数值
-     * @param ps PreparedStatement对象
-     * @param method 执行的方法
-     * @param args 方法参数
-     * @throws SQLException SQL异常
+     * 判断查询列是否覆盖实体的全部属性
+     * @param selectList SELECT和FROM之间的列列表
+     * @param metadata 实体元数据
+     * @return 为*或每个属性都有对应的列或别名时返回true
      */
-    private void setParameterValues(PreparedStatement ps, Method method, Object[] args) throws SQLException {
-        Parameter[] parameters = method.getParameters();
-        SQL sqlAnnotation = method.getAnnotation(SQL.class);
-        String sql = sqlAnnotation.value();
-        
-        // 从SQL语句中提取参数名的顺序
-        List<String> paramOrder = new ArrayList<>();
-        Pattern pattern = Pattern.compile("#\\{(.*?)}");
-        Matcher matcher = pattern.matcher(sql);
-        while (matcher.find()) {
-            paramOrder.add(matcher.group(1));
+    private boolean selectsAllProperties(String selectList, EntityMetadata metadata) {
+        if (selectList.trim().equals("*")) {
+            return true;
         }
-        
-        // 创建参数名到参数值的映射
-        Map<String, Object> paramMap = new HashMap<>();
-        for (int i = 0; i < parameters.length; i++) {
-            Param param = parameters[i].getAnnotation(Param.class);
-            if (param != null) {
-                paramMap.put(param.value(), args[i]);
+        int covered = 0;
+        for (String column : selectList.split(",")) {
+            String[] tokens = column.trim().split("\\s+");
+            String label = tokens[tokens.length - 1].replace("`", "");
+            if (metadata.findProperty(label) != null) {
+                covered++;
             }
         }
-        
-        // 按SQL中的参数顺序设置值
-        for (int i = 0; i < paramOrder.size(); i++) {
-            String paramName = paramOrder.get(i);
-            Object value = paramMap.get(paramName);
-            setParameterValue(ps, i + 1, value);
-        }
+        return covered >= metadata.getProperties().size();
     }
 
     /**
-     * 设置单个参数值
-     * @param ps PreparedStatement对象
-     * @param index 参数索引
-     * @param value 参数值
-     * @throws SQLException SQL异常
+     * 记录写语句的目标表，以WHERE column = #{param}结尾时记录写入行的主键参数
+     * @param builder 语句计划构建器
+     * @param method Mapper方法
+     * @param sql 原始SQL
      */
-    protected void setParameterValue(PreparedStatement ps, int index, Object value) throws SQLException {
-        // 根据参数类型设置对应的值
-        if (value == null) {
-            ps.setNull(index, Types.NULL);
-        } else if (value instanceof String) {
-            ps.setString(index, (String) value);
-        } else if (value instanceof Integer) {
-            ps.setInt(index, (Integer) value);
-        } else if (value instanceof Long) {
-            ps.setLong(index, (Long) value);
-        } else if (value instanceof Double) {
-            ps.setDouble(index, (Double) value);
-        } else if (value instanceof Float) {
-            ps.setFloat(index, (Float) value);
-        } else if (value instanceof Boolean) {
-            ps.setBoolean(index, (Boolean) value);
-        } else if (value instanceof Date) {
-            ps.setTimestamp(index, new Timestamp(((Date) value).getTime()));
-        } else {
-            ps.setObject(index, value);
+    private void applyWriteTable(StatementPlan.StatementPlanBuilder builder, Method method, String sql) {
+        Matcher matcher = WRITE_TABLE_PATTERN.matcher(sql);
+        if (!matcher.find()) {
+            return;
+        }
+        // INSERT ... ON DUPLICATE KEY UPDATE可能修改已有的行，按更新处理
+        String upperSql = sql.toUpperCase();
+        builder.writeTable(matcher.group(2))
+                .insert(upperSql.trim().startsWith("INSERT") && !upperSql.contains("ON DUPLICATE KEY"));
+        Matcher keyMatcher = WRITE_KEY_PATTERN.matcher(sql);
+        if (keyMatcher.find()) {
+            builder.keyColumn(keyMatcher.group(1))
+                    .writeKeyIndex(findParamIndex(method, keyMatcher.group(2)));
         }
     }
 }
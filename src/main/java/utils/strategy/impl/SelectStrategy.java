@@ -1,12 +1,13 @@
 package utils.strategy.impl;
 
-import annotations.Param;
+import annotations.Page;
 import annotations.Where;
+import utils.mapping.EntityMetadata;
+import utils.plan.RowMapper;
+import utils.plan.StatementPlan;
 import utils.strategy.AbstractSqlStrategy;
 
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
-import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,48 +17,57 @@ import java.util.List;
  */
 public class SelectStrategy extends AbstractSqlStrategy {
     /**
-     * 执行查询操作
-     * @param method 要执行的方法
-     * @param args 方法参数
-     * @return 查询结果，可能是单个对象或对象列表
-     * @throws Exception 如果执行过程出错
+     * 编译查询方法
+     * @param method 要编译的方法
+     * @return 语句计划，执行结果可能是单个对象或对象列表
      */
     @Override
-    public Object execute(Method method, Object[] args) throws Exception {
-        // 1. 创建SELECT SQL语句
-        String sql = createSelectSql(method);
-        try (Connection connection = getConnection()) {
-            // 2. 准备SQL语句
-            PreparedStatement preparedStatement = connection.prepareStatement(sql);
-            System.out.println("SELECT SQL: " + preparedStatement);
-            
-            // 3. 设置参数值
-            for (int i = 0; i < args.length; i++) {
-                setParameterValue(preparedStatement, i + 1, args[i]);
-            }
-            
-            // 4. 执行查询
-            System.out.println("Executing SQL: " + sql);
-            ResultSet rs = preparedStatement.executeQuery();
+    public StatementPlan compile(Method method) {
+        // 1. 创建SELECT SQL语句，同时记录占位符对应的参数
+        List<Integer> argIndexes = new ArrayList<>();
+        String sql = createSelectSql(method, argIndexes);
+        log.debug("Compiled SELECT SQL: {}", sql);
+
+        // 2. 根据返回类型选择结果处理方式
+        RowMapper rowMapper = createRowMapper(method);
+        StatementPlan.StatementPlanBuilder builder = StatementPlan.builder()
+                .method(method)
+                .strategy(this)
+                .sql(sql)
+                .query(true)
+                .streaming(findConsumerIndex(method) >= 0)
+                .argIndexes(toIntArray(argIndexes))
+                .binders(createBinders(method, argIndexes))
+                .rowMapper(rowMapper)
+                .returnHandler(createQueryReturnHandler(method, rowMapper));
 
-            // 5. 根据返回类型处理结果
-            if (method.getReturnType().equals(List.class)) {
-                return parseResultList(rs, method);
-            } else {
-                return rs.next() ? parseResult(rs, method.getReturnType()) : null;
-            }
+        // 3. 按主键查询单个实体时使用实体缓存，其余查询使用查询缓存
+        Where where = method.getAnnotation(Where.class);
+        int keyIndex = where != null && returnsSingleEntity(method)
+                ? findKeyParamIndex(method, method.getReturnType(), where.value()) : -1;
+        if (keyIndex >= 0) {
+            Class<?> entityType = method.getReturnType();
+            builder.cacheTable(getTableName(entityType))
+                    .cacheKeyIndex(keyIndex)
+                    .cacheEntity(EntityMetadata.of(entityType))
+                    .keyColumn(getIdColumn(entityType));
+        } else {
+            applyQueryCache(builder, method, sql);
         }
+        return builder.build();
     }
 
     /**
      * 创建SELECT SQL语句
      * @param method 要执行的方法
+     * @param argIndexes 输出参数，按占位符顺序记录参数下标
      * @return 生成的SQL语句
      */
-    private String createSelectSql(Method method) {
+    private String createSelectSql(Method method, List<Integer> argIndexes) {
         // 1. 构建SELECT子句
         StringBuilder sb = new StringBuilder("SELECT ");
-        List<String> columns = getColumns(method.getReturnType());
+        Class<?> entityType = getResultType(method);
+        List<String> columns = getColumns(entityType);
 
         // 2. 将Java字段名映射为数据库列名
         List<String> dbColumns = new ArrayList<>();
@@ -70,7 +80,7 @@ public class SelectStrategy extends AbstractSqlStrategy {
         // 4. 构建FROM子句
         sb.append(String.join(", ", dbColumns))
                 .append(" FROM ")
-                .append(getTableName(method.getReturnType()))
+                .append(getTableName(entityType))
                 .append(" WHERE ");
 
         // 5. 处理WHERE子句
@@ -78,18 +88,16 @@ public class SelectStrategy extends AbstractSqlStrategy {
         String whereClause = where != null ? where.value() : "1=1";
 
         // 6. 处理WHERE子句中的参数占位符
-        if (where != null) {
-            for (Parameter param : method.getParameters()) {
-                Param paramAnnotation = param.getAnnotation(Param.class);
-                if (paramAnnotation != null) {
-                    String paramName = paramAnnotation.value();
-                    whereClause = whereClause.replace("#{" + paramName + "}", "?");
-                }
-            }
-        }
+        whereClause = compilePlaceholders(whereClause, method, argIndexes);
 
         // 7. 添加WHERE子句到SQL语句
         sb.append(whereClause);
+
+        // 8. 分页查询追加键集分页条件，原条件加括号避免与追加的AND混合
+        if (method.isAnnotationPresent(Page.class)) {
+            String sql = sb.insert(sb.length() - whereClause.length(), '(').append(')').toString();
+            return appendKeysetClause(sql, method, argIndexes, false);
+        }
         return sb.toString();
     }
 }